@@ -0,0 +1,48 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files, e.g. from two commits.
+
+Usage: python compare.py baseline.json candidate.json
+"""
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        results = {}
+        for run in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted(run.get("params", {}).items()))
+            name = run["benchmark"].rsplit(".", 2)[-2:]
+            key = ".".join(name) + (f" [{params}]" if params else "")
+            metric = run["primaryMetric"]
+            results[key] = (metric["score"], metric["scoreError"], metric["scoreUnit"], run["mode"])
+        return results
+
+
+def main():
+    if len(sys.argv) != 3:
+        print(__doc__)
+        sys.exit(1)
+
+    baseline = load(sys.argv[1])
+    candidate = load(sys.argv[2])
+    width = max((len(k) for k in baseline.keys() | candidate.keys()), default=10)
+
+    print(f"{'benchmark':<{width}}  {'baseline':>14}  {'candidate':>14}  {'change':>8}  unit")
+    for key in sorted(baseline.keys() | candidate.keys()):
+        before = baseline.get(key)
+        after = candidate.get(key)
+        if before is None or after is None:
+            present = before or after
+            label = "baseline only" if after is None else "candidate only"
+            print(f"{key:<{width}}  {label:>31}  {'':>8}  {present[2]}")
+            continue
+        change = (after[0] - before[0]) / before[0] * 100 if before[0] else 0.0
+        # Throughput is better when higher, time per operation when lower
+        better = change > 0 if after[3] == "thrpt" else change < 0
+        marker = "+" if better and abs(change) >= 5 else "-" if abs(change) >= 5 else " "
+        print(f"{key:<{width}}  {before[0]:>14.3f}  {after[0]:>14.3f}  {change:>+7.1f}%{marker} {after[2]}")
+
+
+if __name__ == "__main__":
+    main()
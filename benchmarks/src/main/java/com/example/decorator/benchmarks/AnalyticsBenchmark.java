@@ -0,0 +1,57 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the order analytics add to each order: recording one of 1,000 random burger
+ * recipes of 1 to 8 decorators, from four threads at once, so the counters are
+ * contended as they would be under load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AnalyticsBenchmark {
+    private static final int RECIPES = 1000;
+
+    private OrderAnalytics analytics;
+    private int[][] recipes;
+
+    @Setup
+    public void setUp() throws IOException {
+        DecoratorRegistries registries = new DecoratorRegistries();
+        analytics = new OrderAnalytics(registries, new Pricing(registries, "", 0),
+            new OrderJournal(false, "", 0, 0, 0), true, 60, 60, 10, 4096, false);
+        Random random = new Random(42);
+        int decorators = registries.burger().getMaxId() + 1;
+        recipes = new int[RECIPES][];
+        for (int i = 0; i < RECIPES; i++) {
+            recipes[i] = new int[1 + random.nextInt(8)];
+            for (int j = 0; j < recipes[i].length; j++) {
+                recipes[i][j] = random.nextInt(decorators);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        int[] recipe = recipes[cursor.next++ % RECIPES];
+        analytics.record("burger", recipe, recipe.length, 1299, System.currentTimeMillis());
+    }
+}
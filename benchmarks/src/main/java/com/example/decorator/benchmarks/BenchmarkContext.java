@@ -0,0 +1,48 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.DecoratorApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.*;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import javax.servlet.Filter;
+
+/**
+ * The application's controllers and services in a plain MVC context, without an
+ * embedded server, for MockMvc benchmarks.
+ */
+final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    static MockMvc mockMvc(String... properties) {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(Config.class);
+        for (String property : properties) {
+            String[] pair = property.split("=", 2);
+            System.setProperty(pair[0], pair[1]);
+        }
+        context.refresh();
+        // Servlet filters are only registered by the embedded server, so add them here
+        return MockMvcBuilders.webAppContextSetup(context)
+            .addFilters(context.getBeansOfType(Filter.class).values().toArray(new Filter[0]))
+            .build();
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @PropertySource("classpath:application.properties")
+    @ComponentScan(basePackages = "com.example.decorator",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = DecoratorApplication.class))
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
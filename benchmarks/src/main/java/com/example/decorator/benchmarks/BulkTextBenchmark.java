@@ -0,0 +1,90 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.service.BulkTextService;
+import com.example.decorator.service.RecipeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk text formatting on 1 to 8 fork/join workers: 10,000 2KB documents through one
+ * recipe, and one 32MB document cut into chunks. Throughput should grow with the
+ * parallelism up to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkTextBenchmark {
+    private static final String[] DECORATORS = {"encrypt", "uppercase", "bold"};
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private BulkTextService bulkText;
+    private int[] decoratorIds;
+    private List<String> documents;
+    private String largeDocument;
+
+    @Setup
+    public void setUp() throws IOException {
+        DecoratorRegistries registries = new DecoratorRegistries();
+        Pricing pricing = new Pricing(registries, "", 0);
+        OrderJournal journal = new OrderJournal(false, "", 0, 0, 0);
+        RecipeService recipes = new RecipeService(registries, new DecoratorMetrics(registries, false, 0), pricing,
+            journal, new OrderAnalytics(registries, pricing, journal, false, 60, 1, 1, 1, false),
+            10_000, 10_000, 16 << 20, 10_000);
+        bulkText = new BulkTextService(recipes, parallelism, 64 * 1024);
+        decoratorIds = new int[DECORATORS.length];
+        for (int i = 0; i < DECORATORS.length; i++) {
+            decoratorIds[i] = registries.text().idOf(DECORATORS[i]);
+        }
+
+        Random random = new Random(42);
+        documents = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            documents.add(words(random, 2 * 1024));
+        }
+        largeDocument = words(random, 32 * 1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulkText.destroy();
+    }
+
+    private static String words(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int word = 1 + random.nextInt(10);
+            for (int i = 0; i < word; i++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append(random.nextInt(20) == 0 ? ". " : " ");
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+
+    @Benchmark
+    public int manyDocuments() {
+        return bulkText.formatAll(documents, decoratorIds, 5, Locale.ROOT).getContents().size();
+    }
+
+    @Benchmark
+    public int oneLargeDocument() {
+        return bulkText.format(largeDocument, decoratorIds, 5, Locale.ROOT).getContents().get(0).length();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.text.CaseMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The case mapper against String.toUpperCase and toLowerCase on ASCII text, and on
+ * mixed text with a Latin-1 or Cyrillic letter every 64 chars. The mixed text has
+ * sharp s, whose expansion to "SS" is slow in the JDK's own upper-casing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CaseMappingBenchmark {
+    private static final String OTHER_LETTERS = "\u00E9\u00FC\u00F1\u00E7\u00DF\u0436\u0416\u0451";
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    @Param({"ascii", "mixed"})
+    public String input;
+
+    @Param({"und", "tr"})
+    public String locale;
+
+    private String text;
+    private Locale caseLocale;
+    private CaseMapper mapper;
+
+    @Setup
+    public void setUp() {
+        char[] chars = Chains.asciiText(size, 42).toCharArray();
+        if (input.equals("mixed")) {
+            Random random = new Random(7);
+            for (int i = 0; i < chars.length; i += 64) {
+                chars[i] = OTHER_LETTERS.charAt(random.nextInt(OTHER_LETTERS.length()));
+            }
+        }
+        text = new String(chars);
+        caseLocale = CaseMapper.parse(locale);
+        mapper = CaseMapper.forLocale(caseLocale);
+    }
+
+    @Benchmark
+    public String mapperUpperCase() {
+        return mapper.toUpperCase(text);
+    }
+
+    @Benchmark
+    public String stringUpperCase() {
+        return text.toUpperCase(caseLocale);
+    }
+
+    @Benchmark
+    public String mapperLowerCase() {
+        return mapper.toLowerCase(text);
+    }
+
+    @Benchmark
+    public String stringLowerCase() {
+        return text.toLowerCase(caseLocale);
+    }
+
+    @Benchmark
+    public String mapperTitleCase() {
+        return mapper.toTitleCase(text);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.burger.Burger;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.text.Text;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chain construction and evaluation for each product family at increasing depths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+
+    @Param({"1", "10", "100", "10000"})
+    public int depth;
+
+    private Coffee coffee;
+    private Burger burger;
+    private Text text;
+
+    @Setup
+    public void setUp() {
+        coffee = Chains.coffee(depth);
+        burger = Chains.burger(depth);
+        text = Chains.text("Hello, World!", depth);
+    }
+
+    @Benchmark
+    public Coffee buildCoffee() {
+        return Chains.coffee(depth);
+    }
+
+    @Benchmark
+    public Burger buildBurger() {
+        return Chains.burger(depth);
+    }
+
+    @Benchmark
+    public Text buildText() {
+        return Chains.text("Hello, World!", depth);
+    }
+
+    @Benchmark
+    public void evaluateCoffee(Blackhole blackhole) {
+        blackhole.consume(coffee.getDescription());
+        blackhole.consume(coffee.getCost());
+    }
+
+    @Benchmark
+    public void evaluateBurger(Blackhole blackhole) {
+        blackhole.consume(burger.getDescription());
+        blackhole.consume(burger.getCost());
+        blackhole.consume(burger.getSentencePart());
+    }
+
+    @Benchmark
+    public void evaluateText(Blackhole blackhole) {
+        blackhole.consume(text.getContent());
+        blackhole.consume(text.getCost());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.burger.*;
+import com.example.decorator.coffee.*;
+import com.example.decorator.text.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the decorator chains and inputs shared by the benchmarks.
+ */
+final class Chains {
+    private Chains() {
+    }
+
+    static Coffee coffee(int depth) {
+        Coffee coffee = new SimpleCoffee();
+        for (int i = 0; i < depth; i++) {
+            switch (i % 5) {
+                case 0:
+                    coffee = new Milk(coffee);
+                    break;
+                case 1:
+                    coffee = new Sugar(coffee);
+                    break;
+                case 2:
+                    coffee = new Vanilla(coffee);
+                    break;
+                case 3:
+                    coffee = new WhippedCream(coffee);
+                    break;
+                default:
+                    coffee = new Caramel(coffee);
+                    break;
+            }
+        }
+        return coffee;
+    }
+
+    static Burger burger(int depth) {
+        Burger burger = new SimpleBurger();
+        for (int i = 0; i < depth; i++) {
+            switch (i % 8) {
+                case 0:
+                    burger = new Cheese(burger);
+                    break;
+                case 1:
+                    burger = new Bacon(burger);
+                    break;
+                case 2:
+                    burger = new Lettuce(burger);
+                    break;
+                case 3:
+                    burger = new Tomato(burger);
+                    break;
+                case 4:
+                    burger = new Pickles(burger);
+                    break;
+                case 5:
+                    burger = new Onions(burger);
+                    break;
+                case 6:
+                    burger = new SpecialSauce(burger);
+                    break;
+                default:
+                    burger = new Patty(burger);
+                    break;
+            }
+        }
+        return burger;
+    }
+
+    static Text text(String content, int depth) {
+        Text text = new PlainText(content);
+        for (int i = 0; i < depth; i++) {
+            switch (i % 5) {
+                case 0:
+                    text = new BoldDecorator(text);
+                    break;
+                case 1:
+                    text = new ItalicDecorator(text);
+                    break;
+                case 2:
+                    text = new UnderlineDecorator(text);
+                    break;
+                case 3:
+                    text = new UpperCaseDecorator(text);
+                    break;
+                default:
+                    text = new EncryptDecorator(text, 3);
+                    break;
+            }
+        }
+        return text;
+    }
+
+    static List<String> decoratorNames(String[] names, int depth) {
+        List<String> decorators = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            decorators.add(names[i % names.length]);
+        }
+        return decorators;
+    }
+
+    /**
+     * Mostly ASCII prose-like text: letters, digits, spaces and punctuation.
+     */
+    static String asciiText(int length, long seed) {
+        String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789     .,;!?-";
+        Random random = new Random(seed);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.OrderCodec;
+import com.example.decorator.api.OrderDeserializer;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.service.RecipeService;
+import com.example.decorator.text.Text;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a request body and encoding the response, with the recipe itself served from
+ * the cache: binding to a Map with casts and serializing a HashMap, as the controllers
+ * used to, against the typed {@link Order} codec and self-writing responses. Run with
+ * {@code -prof gc} for the allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<Map<String, Object>>() {
+    };
+
+    @Param({"coffee", "text"})
+    public String product;
+
+    private ObjectMapper mapper;
+    private DecoratorRegistries registries;
+    private RecipeService recipes;
+    private ObjectReader orderReader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        registries = new DecoratorRegistries();
+        Pricing pricing = new Pricing(registries, "", 0);
+        OrderJournal journal = new OrderJournal(false, "", 0, 0, 0);
+        recipes = new RecipeService(registries, new DecoratorMetrics(registries, false, 0), pricing, journal,
+            new OrderAnalytics(registries, pricing, journal, false, 60, 1, 1, 1, false), 10_000, 10_000, 16 << 20, 10_000);
+        OrderCodec codec = new OrderCodec(registries, 1000);
+        mapper = new ObjectMapper();
+        mapper.setHandlerInstantiator(new CodecInstantiator(codec));
+
+        if (product.equals("coffee")) {
+            body = "{\"decorators\":[\"milk\",\"vanilla\",\"whipped_cream\",\"caramel\"]}"
+                .getBytes(StandardCharsets.UTF_8);
+            orderReader = mapper.readerFor(new TypeReference<Order<Coffee>>() {
+            });
+        } else {
+            body = "{\"text\":\"Confidential\",\"decorators\":[\"encrypt\",\"uppercase\",\"bold\"],\"encrypt_shift\":5}"
+                .getBytes(StandardCharsets.UTF_8);
+            orderReader = mapper.readerFor(new TypeReference<Order<Text>>() {
+            });
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public byte[] mapBinding() throws IOException {
+        Map<String, Object> request = mapper.readValue(body, MAP);
+        List<String> decorators = (List<String>) request.get("decorators");
+        Map<String, String> response = new HashMap<>();
+        if (product.equals("coffee")) {
+            int[] ids = registries.coffee().resolve(decorators);
+            CoffeeResponse result = recipes.coffee(ids);
+            response.put("description", result.getDescription());
+            response.put("cost", result.getCost());
+        } else {
+            String text = (String) request.getOrDefault("text", "Hello, World!");
+            Integer shift = (Integer) request.getOrDefault("encrypt_shift", 3);
+            int[] ids = registries.text().resolve(decorators);
+            TextResponse result = recipes.text(text, ids, shift, Locale.ROOT);
+            response.put("content", result.getContent());
+            response.put("cost", result.getCost());
+        }
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] typedCodec() throws IOException {
+        Order<?> order = orderReader.readValue(body);
+        return mapper.writeValueAsBytes(recipes.evaluate(recipes.key(order)).getResponse());
+    }
+
+    /**
+     * Supplies the codec to {@link OrderDeserializer}, as Spring does in the application.
+     */
+    private static final class CodecInstantiator extends HandlerInstantiator {
+        private final OrderCodec codec;
+
+        CodecInstantiator(OrderCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public JsonDeserializer<?> deserializerInstance(DeserializationConfig config, Annotated annotated,
+                                                        Class<?> deserClass) {
+            return deserClass == OrderDeserializer.class ? new OrderDeserializer(codec) : null;
+        }
+
+        @Override
+        public KeyDeserializer keyDeserializerInstance(DeserializationConfig config, Annotated annotated,
+                                                       Class<?> keyDeserClass) {
+            return null;
+        }
+
+        @Override
+        public JsonSerializer<?> serializerInstance(SerializationConfig config, Annotated annotated,
+                                                    Class<?> serClass) {
+            return null;
+        }
+
+        @Override
+        public TypeResolverBuilder<?> typeResolverBuilderInstance(MapperConfig<?> config, Annotated annotated,
+                                                                  Class<?> builderClass) {
+            return null;
+        }
+
+        @Override
+        public TypeIdResolver typeIdResolverInstance(MapperConfig<?> config, Annotated annotated,
+                                                     Class<?> resolverClass) {
+            return null;
+        }
+    }
+}
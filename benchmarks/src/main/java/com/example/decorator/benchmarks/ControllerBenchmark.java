@@ -0,0 +1,115 @@
+package com.example.decorator.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoint throughput through the full MVC stack, with and without the recipe cache,
+ * and a 40-item order sent as one batch against 40 single-item calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+    private static final int ORDER_SIZE = 40;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private MockMvc mockMvc;
+    private String coffeeBody;
+    private String burgerBody;
+    private String textBody;
+    private List<String> singleBodies;
+    private List<String> singlePaths;
+    private String batchBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        String maxEntries = cache ? "10000" : "0";
+        mockMvc = BenchmarkContext.mockMvc(
+            "decorator.cache.max-entries=" + maxEntries,
+            "decorator.cache.text.max-entries=" + maxEntries);
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> coffee = order("coffee", Arrays.asList("milk", "vanilla", "whipped_cream", "caramel"));
+        Map<String, Object> burger = order("burger",
+            Arrays.asList("cheese", "bacon", "lettuce", "tomato", "pickles", "onions", "special_sauce"));
+        Map<String, Object> text = order("text", Arrays.asList("encrypt", "uppercase", "bold"));
+        text.put("text", "Confidential");
+        text.put("encrypt_shift", 5);
+        coffeeBody = mapper.writeValueAsString(coffee);
+        burgerBody = mapper.writeValueAsString(burger);
+        textBody = mapper.writeValueAsString(text);
+
+        // A point-of-sale order: mostly repeated recipes, a few distinct ones
+        List<Map<String, Object>> orders = new ArrayList<>();
+        singleBodies = new ArrayList<>();
+        singlePaths = new ArrayList<>();
+        for (int i = 0; i < ORDER_SIZE; i++) {
+            Map<String, Object> item = i % 3 == 0 ? burger : i % 3 == 1 ? coffee : text;
+            if (i % 10 == 9) {
+                item = order("coffee", Chains.decoratorNames(new String[] {"sugar", "milk"}, i / 10 + 1));
+            }
+            orders.add(item);
+            singleBodies.add(mapper.writeValueAsString(item));
+            singlePaths.add("/api/" + item.get("product"));
+        }
+        batchBody = mapper.writeValueAsString(orders);
+    }
+
+    private static Map<String, Object> order(String product, List<String> decorators) {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("product", product);
+        order.put("decorators", decorators);
+        return order;
+    }
+
+    private String post(String path, String body) throws Exception {
+        return mockMvc.perform(
+                MockMvcRequestBuilders.post(path)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+            .andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String coffee() throws Exception {
+        return post("/api/coffee", coffeeBody);
+    }
+
+    @Benchmark
+    public String burger() throws Exception {
+        return post("/api/burger", burgerBody);
+    }
+
+    @Benchmark
+    public String text() throws Exception {
+        return post("/api/text", textBody);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_SIZE)
+    public String orderAsBatch() throws Exception {
+        return post("/api/batch", batchBody);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_SIZE)
+    public int orderAsSingleCalls() throws Exception {
+        int length = 0;
+        for (int i = 0; i < ORDER_SIZE; i++) {
+            length += post(singlePaths.get(i), singleBodies.get(i)).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting a cost as "$x.yy": the controller's original String.format against Money.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CostFormatBenchmark {
+
+    @Param({"250", "905", "20000200"})
+    public long cents;
+
+    private double cost;
+
+    @Setup
+    public void setUp() {
+        cost = cents / 100.0;
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format("$%.2f", cost);
+    }
+
+    @Benchmark
+    public String moneyFormat() {
+        return Money.format(cents);
+    }
+}
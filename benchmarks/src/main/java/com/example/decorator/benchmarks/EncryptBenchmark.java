@@ -0,0 +1,86 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.text.CaesarCipher;
+import com.example.decorator.text.EncryptDecorator;
+import com.example.decorator.text.PlainText;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EncryptDecorator throughput on inputs from 1KB to 10MB, against the original
+ * StringBuilder implementation and the cipher engine's bulk and streaming paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptBenchmark {
+
+    @Param({"1024", "65536", "1048576", "10485760"})
+    public int size;
+
+    private String input;
+    private EncryptDecorator encrypted;
+    private CaesarCipher cipher;
+    private char[] chars;
+    private byte[] bytes;
+    private ByteArrayOutputStream sink;
+
+    @Setup
+    public void setUp() {
+        input = Chains.asciiText(size, 42);
+        encrypted = new EncryptDecorator(new PlainText(input), 3);
+        cipher = CaesarCipher.forShift(3);
+        chars = input.toCharArray();
+        bytes = input.getBytes(StandardCharsets.UTF_8);
+        sink = new ByteArrayOutputStream(bytes.length);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encrypted.getContent();
+    }
+
+    /**
+     * The implementation EncryptDecorator had before the cipher engine, as a reference.
+     */
+    @Benchmark
+    public String legacyEncrypt() {
+        StringBuilder out = new StringBuilder();
+        for (char c : input.toCharArray()) {
+            if (Character.isLetter(c)) {
+                char base = Character.isUpperCase(c) ? 'A' : 'a';
+                out.append((char) ((c - base + 3) % 26 + base));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public char[] bulkChars() {
+        cipher.apply(chars, 0, chars.length);
+        return chars;
+    }
+
+    @Benchmark
+    public byte[] bulkBytes() {
+        cipher.apply(bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    @Benchmark
+    public int streamBytes() throws IOException {
+        sink.reset();
+        cipher.encrypt(new ByteArrayInputStream(bytes), sink);
+        return sink.size();
+    }
+}
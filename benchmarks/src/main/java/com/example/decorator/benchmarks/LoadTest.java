@@ -0,0 +1,368 @@
+package com.example.decorator.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Closed-loop HTTP load test: each connection sends a request, waits for the response
+ * and sends the next, over keep-alive. Connections are multiplexed over a few selector
+ * threads, so 10k of them don't need 10k client threads. Reports throughput and
+ * latency percentiles for each connection count.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.decorator.benchmarks.LoadTest \
+ *     --url http://localhost:5000/api/coffee --body '{"decorators":["milk","sugar"]}' \
+ *     --connections 1000,5000,10000 --warmup 10 --duration 30
+ * </pre>
+ */
+public final class LoadTest {
+    // Connections opened per loop iteration, so the server's accept queue keeps up
+    private static final int CONNECT_BATCH = 100;
+
+    private final InetSocketAddress address;
+    private final byte[] request;
+    private final int threads;
+
+    private volatile boolean running;
+    private volatile boolean measuring;
+
+    private LoadTest(URI url, String body, int threads) {
+        int port = url.getPort() < 0 ? 80 : url.getPort();
+        this.address = new InetSocketAddress(url.getHost(), port);
+        this.request = request(url, port, body);
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:5000/api/coffee";
+        String body = "{\"decorators\":[\"milk\",\"sugar\"]}";
+        String connections = "1000,5000,10000";
+        int warmup = 10;
+        int duration = 30;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--body": body = args[i + 1].isEmpty() ? null : args[i + 1]; break;
+                case "--connections": connections = args[i + 1]; break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--duration": duration = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        LoadTest test = new LoadTest(URI.create(url), body, threads);
+        System.out.printf("%s %s, %ds warmup, %ds measured, %d client threads%n",
+            body == null ? "GET" : "POST", url, warmup, duration, threads);
+        System.out.printf("%11s %10s %8s %10s %9s %9s %9s%n",
+            "connections", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (String count : connections.split(",")) {
+            test.run(Integer.parseInt(count.trim()), warmup, duration);
+        }
+    }
+
+    private void run(int connections, int warmupSeconds, int durationSeconds) throws Exception {
+        running = true;
+        measuring = false;
+        List<EventLoop> loops = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int share = connections / threads + (i < connections % threads ? 1 : 0);
+            EventLoop loop = new EventLoop(share);
+            loops.add(loop);
+            loop.start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        running = false;
+
+        long errors = 0;
+        LongList latencies = new LongList();
+        for (EventLoop loop : loops) {
+            loop.join();
+            errors += loop.errors;
+            latencies.addAll(loop.latencies);
+        }
+        long[] sorted = latencies.toSortedArray();
+        System.out.printf(Locale.ROOT, "%11d %10d %8d %10.0f %9.2f %9.2f %9.2f%n",
+            connections, sorted.length, errors, sorted.length * 1e9 / elapsed,
+            percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static byte[] request(URI url, int port, String body) {
+        String path = url.getRawPath().isEmpty() ? "/" : url.getRawPath();
+        if (url.getRawQuery() != null) {
+            path += "?" + url.getRawQuery();
+        }
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder()
+            .append(body == null ? "GET " : "POST ").append(path).append(" HTTP/1.1\r\n")
+            .append("Host: ").append(url.getHost()).append(':').append(port).append("\r\n");
+        if (body != null) {
+            head.append("Content-Type: application/json\r\n")
+                .append("Content-Length: ").append(content.length).append("\r\n");
+        }
+        head.append("\r\n");
+
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] request = Arrays.copyOf(headBytes, headBytes.length + content.length);
+        System.arraycopy(content, 0, request, headBytes.length, content.length);
+        return request;
+    }
+
+    private final class EventLoop extends Thread {
+        private final int connections;
+        private final LongList latencies = new LongList();
+        private long errors;
+        private int opened;
+
+        EventLoop(int connections) {
+            super("load-test");
+            this.connections = connections;
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = Selector.open()) {
+                while (running) {
+                    try {
+                        for (int i = 0; i < CONNECT_BATCH && opened < connections; i++) {
+                            open(selector);
+                        }
+                    } catch (IOException e) {
+                        // e.g. out of file descriptors: count it and retry on the next round
+                        if (measuring) {
+                            errors++;
+                        }
+                    }
+                    selector.select(100);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            connection.handle(key);
+                        } catch (IOException e) {
+                            // Count it, then replace the connection
+                            if (measuring) {
+                                errors++;
+                            }
+                            key.cancel();
+                            connection.channel.close();
+                            opened--;
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void open(Selector selector) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            if (channel.connect(address)) {
+                connection.send(channel.register(selector, SelectionKey.OP_WRITE, connection));
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+            opened++;
+        }
+
+        private final class Connection {
+            final SocketChannel channel;
+            final ByteBuffer out = ByteBuffer.wrap(request);
+            ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+            long sentAt;
+
+            Connection(SocketChannel channel) {
+                this.channel = channel;
+            }
+
+            void handle(SelectionKey key) throws IOException {
+                if (key.isConnectable()) {
+                    channel.finishConnect();
+                    send(key);
+                } else if (key.isWritable()) {
+                    write(key);
+                } else if (key.isReadable()) {
+                    read(key);
+                }
+            }
+
+            void send(SelectionKey key) throws IOException {
+                out.rewind();
+                in.clear();
+                sentAt = System.nanoTime();
+                write(key);
+            }
+
+            void write(SelectionKey key) throws IOException {
+                channel.write(out);
+                key.interestOps(out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+
+            void read(SelectionKey key) throws IOException {
+                if (!in.hasRemaining()) {
+                    in = ByteBuffer.allocate(in.capacity() * 2).put((ByteBuffer) in.flip());
+                }
+                if (channel.read(in) < 0) {
+                    throw new IOException("Connection closed by the server");
+                }
+
+                Response response = Response.parse(in.array(), in.position());
+                if (response == null) {
+                    return;
+                }
+                if (measuring) {
+                    if (response.status >= 200 && response.status < 300) {
+                        latencies.add(System.nanoTime() - sentAt);
+                    } else {
+                        errors++;
+                    }
+                }
+                if (response.close) {
+                    // Tomcat closes a keep-alive connection after max-keep-alive-requests
+                    key.cancel();
+                    channel.close();
+                    opened--;
+                    return;
+                }
+                send(key);
+            }
+        }
+    }
+
+    /**
+     * The parts of a complete HTTP/1.1 response the load test needs.
+     */
+    private static final class Response {
+        final int status;
+        final boolean close;
+
+        private Response(int status, boolean close) {
+            this.status = status;
+            this.close = close;
+        }
+
+        /**
+         * Parses the response in {@code bytes[0, length)}, or returns null if it isn't
+         * complete yet.
+         */
+        static Response parse(byte[] bytes, int length) {
+            int headEnd = indexOf(bytes, 0, length, "\r\n\r\n");
+            if (headEnd < 0) {
+                return null;
+            }
+            String head = new String(bytes, 0, headEnd, StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+            int bodyStart = headEnd + 4;
+
+            int end;
+            if (head.contains("\r\ntransfer-encoding: chunked")) {
+                end = chunkedEnd(bytes, bodyStart, length);
+            } else {
+                int contentLength = 0;
+                int header = head.indexOf("\r\ncontent-length:");
+                if (header >= 0) {
+                    int valueEnd = head.indexOf("\r\n", header + 2);
+                    String value = head.substring(header + 17, valueEnd < 0 ? head.length() : valueEnd);
+                    contentLength = Integer.parseInt(value.trim());
+                }
+                end = bodyStart + contentLength;
+            }
+            if (end < 0 || end > length) {
+                return null;
+            }
+
+            int status = Integer.parseInt(head.substring(9, 12));
+            return new Response(status, head.contains("\r\nconnection: close"));
+        }
+
+        private static int chunkedEnd(byte[] bytes, int position, int length) {
+            while (true) {
+                int lineEnd = indexOf(bytes, position, length, "\r\n");
+                if (lineEnd < 0) {
+                    return -1;
+                }
+                String sizeLine = new String(bytes, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int extension = sizeLine.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+                if (size == 0) {
+                    // No trailers are expected, just the final CRLF
+                    return lineEnd + 4;
+                }
+                position = lineEnd + 2 + size + 2;
+                if (position > length) {
+                    return -1;
+                }
+            }
+        }
+
+        private static int indexOf(byte[] bytes, int from, int to, String pattern) {
+            outer:
+            for (int i = from; i + pattern.length() <= to; i++) {
+                for (int j = 0; j < pattern.length(); j++) {
+                    if (bytes[i + j] != pattern.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A growable list of primitive longs, so millions of samples don't get boxed.
+     */
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.decorator.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the metrics: endpoint throughput with them on and off. The recipe cache
+ * and chain interning are off, so every request compiles and evaluates its chain and
+ * the decorator metrics run too, with their usual sampled stage timing. Compare the
+ * two {@code metrics} scores for each endpoint; the difference should stay within a
+ * few percent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        mockMvc = BenchmarkContext.mockMvc(
+            "decorator.metrics.enabled=" + metrics,
+            "decorator.cache.max-entries=0",
+            "decorator.cache.text.max-entries=0",
+            "decorator.cache.max-chain-nodes=0");
+    }
+
+    @Benchmark
+    public int coffee() throws Exception {
+        return post("/api/coffee", "{\"decorators\":[\"milk\",\"vanilla\",\"whipped_cream\",\"caramel\"]}");
+    }
+
+    @Benchmark
+    public int text() throws Exception {
+        return post("/api/text",
+            "{\"text\":\"Confidential\",\"decorators\":[\"encrypt\",\"uppercase\",\"bold\"],\"encrypt_shift\":5}");
+    }
+
+    private int post(String path, String body) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andReturn().getResponse().getContentAsByteArray().length;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.decorator.benchmarks;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a class per recipe that implements the product's interface with every
+ * method returning a constant, e.g. {@code getCostCents()} as {@code return 350L;}.
+ * Each class is defined by a class loader of its own, so it is unloaded as soon as
+ * nothing refers to it or its instances.
+ */
+final class RecipeClasses {
+    private static final String PACKAGE = "com/example/decorator/benchmarks/generated/";
+
+    // The longest string a class file's constant pool holds, in modified UTF-8 bytes
+    private static final int MAX_CONSTANT_BYTES = 65535;
+
+    private static final AtomicLong NEXT = new AtomicLong();
+
+    private RecipeClasses() {
+    }
+
+    /**
+     * Whether a string fits in a constant, so a recipe using it can be specialized.
+     */
+    static boolean fits(String s) {
+        // Modified UTF-8 takes at most three bytes a char
+        if (s.length() * 3 <= MAX_CONSTANT_BYTES) {
+            return true;
+        }
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            bytes += c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        return bytes <= MAX_CONSTANT_BYTES;
+    }
+
+    /**
+     * Defines a class implementing {@code type}, whose no-argument methods named in
+     * {@code methods} return the matching {@code values}: Strings, Doubles or Longs.
+     */
+    static Class<?> define(Class<?> type, String[] methods, Object[] values) {
+        String name = PACKAGE + type.getSimpleName() + "Recipe" + NEXT.incrementAndGet();
+        byte[] bytes = generate(name, type, methods, values);
+        return new Loader(type.getClassLoader()).define(name.replace('/', '.'), bytes);
+    }
+
+    private static byte[] generate(String name, Class<?> type, String[] methods, Object[] values) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null,
+            "java/lang/Object", new String[] {type.getName().replace('.', '/')});
+
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        // The JIT won't inline a method whose signature names a class its loader hasn't
+        // resolved, so resolve String through this class's loader up front
+        MethodVisitor initializer = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        initializer.visitCode();
+        initializer.visitLdcInsn(Type.getType(String.class));
+        initializer.visitInsn(Opcodes.POP);
+        initializer.visitInsn(Opcodes.RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+
+        for (int i = 0; i < methods.length; i++) {
+            Object value = values[i];
+            String descriptor;
+            int returnOpcode;
+            if (value instanceof String) {
+                descriptor = "()Ljava/lang/String;";
+                returnOpcode = Opcodes.ARETURN;
+            } else if (value instanceof Double) {
+                descriptor = "()D";
+                returnOpcode = Opcodes.DRETURN;
+            } else if (value instanceof Long) {
+                descriptor = "()J";
+                returnOpcode = Opcodes.LRETURN;
+            } else {
+                throw new IllegalArgumentException("Can't return a constant " + value);
+            }
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, methods[i], descriptor, null, null);
+            method.visitCode();
+            method.visitLdcInsn(value);
+            method.visitInsn(returnOpcode);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Defines the one class it is made for.
+     */
+    private static final class Loader extends ClassLoader {
+        Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
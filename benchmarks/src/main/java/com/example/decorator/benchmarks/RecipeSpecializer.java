@@ -0,0 +1,186 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.CompiledBurger;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.CompiledCoffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.registry.DecoratorRegistry;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coffee or burger recipes as objects to call over and over, e.g. to show a menu.
+ * A recipe starts out as its compiled chain; once it has been asked for
+ * {@code hotThreshold} times, it is replaced by an instance of a class generated for it
+ * alone, whose methods return its description and cost as constants. A call site that
+ * only ever sees that class inlines the call down to the constant, where the generic
+ * chain walks every layer through a different decorator class. A site that sees many
+ * recipes sees as many generated classes, though, and is better served by the compiled
+ * form, one class for all of them. The application serves recipes from their compiled
+ * form, so this lives here, for {@link SpecializerBenchmark} to measure against it.
+ *
+ * <p>At most {@code maxRecipes} recipes are kept, least recently used first out. Each
+ * generated class has a class loader of its own, so an evicted recipe's class is
+ * unloaded by the next collection that finds it unused.
+ */
+public final class RecipeSpecializer<T> {
+    private static final String[] COFFEE_METHODS = {"getDescription", "getCost", "getCostCents"};
+    private static final String[] BURGER_METHODS = {"getDescription", "getCost", "getCostCents", "getSentencePart"};
+
+    private final DecoratorRegistry<T> registry;
+    private final T base;
+    private final UnaryOperator<T> compiler;
+    private final String[] methods;
+    private final Function<T, Object[]> values;
+    private final int hotThreshold;
+    private final int maxRecipes;
+
+    // Access-ordered, so iteration starts at the least recently used recipe
+    private final LinkedHashMap<RecipeKey, Recipe<T>> recipes = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Cleared by the collector once a generated class is unloaded
+    private final ReferenceQueue<Class<?>> unloadQueue = new ReferenceQueue<>();
+    private final Set<Reference<Class<?>>> loaded = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder unloaded = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private RecipeSpecializer(DecoratorRegistry<T> registry, T base, UnaryOperator<T> compiler, String[] methods,
+                              Function<T, Object[]> values, int hotThreshold, int maxRecipes) {
+        this.registry = registry;
+        this.base = base;
+        this.compiler = compiler;
+        this.methods = methods;
+        this.values = values;
+        this.hotThreshold = hotThreshold;
+        this.maxRecipes = maxRecipes;
+    }
+
+    /**
+     * @param hotThreshold how many times a recipe is asked for before its class is
+     *                     generated, or 0 to never generate one
+     */
+    public static RecipeSpecializer<Coffee> forCoffee(DecoratorRegistry<Coffee> registry, int hotThreshold,
+                                                      int maxRecipes) {
+        return new RecipeSpecializer<>(registry, new SimpleCoffee(), CompiledCoffee::compile, COFFEE_METHODS,
+            coffee -> new Object[] {coffee.getDescription(), coffee.getCost(), coffee.getCostCents()},
+            hotThreshold, maxRecipes);
+    }
+
+    /**
+     * @param hotThreshold how many times a recipe is asked for before its class is
+     *                     generated, or 0 to never generate one
+     */
+    public static RecipeSpecializer<Burger> forBurger(DecoratorRegistry<Burger> registry, int hotThreshold,
+                                                      int maxRecipes) {
+        return new RecipeSpecializer<>(registry, new SimpleBurger(), CompiledBurger::compile, BURGER_METHODS,
+            burger -> new Object[] {burger.getDescription(), burger.getCost(), burger.getCostCents(),
+                burger.getSentencePart()},
+            hotThreshold, maxRecipes);
+    }
+
+    /**
+     * The recipe of the base wrapped in the decorators, innermost first: its own
+     * generated class if it is hot, otherwise its compiled chain.
+     */
+    public T get(int[] ids) {
+        RecipeKey key = RecipeKey.of(registry.getProduct(), ids);
+        Recipe<T> recipe;
+        synchronized (recipes) {
+            recipe = recipes.get(key);
+        }
+        if (recipe == null) {
+            // Compiled outside the lock; if another thread got there first, its copy is kept
+            T compiled = compiler.apply(registry.wrapAll(ids, base, 0));
+            synchronized (recipes) {
+                recipe = recipes.get(key);
+                if (recipe == null) {
+                    recipe = new Recipe<>(compiled);
+                    recipes.put(RecipeKey.of(registry.getProduct(), ids.clone()), recipe);
+                    evictEldest();
+                }
+            }
+        }
+        if (recipe.uses.incrementAndGet() == hotThreshold) {
+            specialize(recipe);
+        }
+        return recipe.current;
+    }
+
+    private void evictEldest() {
+        Iterator<Recipe<T>> eldest = recipes.values().iterator();
+        while (recipes.size() > maxRecipes && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void specialize(Recipe<T> recipe) {
+        Object[] constants = values.apply(recipe.current);
+        for (Object constant : constants) {
+            if (constant instanceof String && !RecipeClasses.fits((String) constant)) {
+                // Too long for a class file; the compiled chain stays
+                return;
+            }
+        }
+        Class<?> type = registry.getType();
+        Class<?> recipeClass = RecipeClasses.define(type, methods, constants);
+        try {
+            recipe.current = (T) recipeClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't instantiate " + recipeClass.getName(), e);
+        }
+        generated.increment();
+        pollUnloaded();
+        loaded.add(new WeakReference<>(recipeClass, unloadQueue));
+    }
+
+    private void pollUnloaded() {
+        Reference<? extends Class<?>> cleared;
+        while ((cleared = unloadQueue.poll()) != null) {
+            loaded.remove(cleared);
+            unloaded.increment();
+        }
+    }
+
+    public Map<String, Object> describe() {
+        pollUnloaded();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (recipes) {
+            stats.put("recipes", recipes.size());
+        }
+        stats.put("maxRecipes", maxRecipes);
+        stats.put("hotThreshold", hotThreshold);
+        stats.put("classesGenerated", generated.sum());
+        stats.put("classesLoaded", loaded.size());
+        stats.put("classesUnloaded", unloaded.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private static final class Recipe<T> {
+        final AtomicInteger uses = new AtomicInteger();
+        volatile T current;
+
+        Recipe(T compiled) {
+            this.current = compiled;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.CompiledBurger;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.service.OrderSessions;
+import com.example.decorator.service.RecipeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tapping a topping on and off a burger of 10 to 1000 decorators held in an order
+ * session, at the end and at the start, against rebuilding and evaluating the whole
+ * chain for both versions as resending the list did. Edits at the end should take about
+ * the same time at every length; edits at the start redo the whole order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionEditBenchmark {
+    private static final String[] TOPPINGS = {"cheese", "lettuce", "tomato", "pickles", "onions"};
+
+    @Param({"10", "100", "1000"})
+    public int length;
+
+    private DecoratorRegistries registries;
+    private Pricing pricing;
+    private OrderSessions sessions;
+    private String session;
+    private int[] withoutBacon;
+    private int[] withBacon;
+
+    @Setup
+    public void setUp() throws IOException {
+        registries = new DecoratorRegistries();
+        pricing = new Pricing(registries, "", 0);
+        OrderJournal journal = new OrderJournal(false, "", 0, 0, 0);
+        RecipeService recipes = new RecipeService(registries, new DecoratorMetrics(registries, false, 0), pricing,
+            journal, new OrderAnalytics(registries, pricing, journal, false, 60, 1, 1, 1, false),
+            10_000, 10_000, 16 << 20, 10_000);
+        sessions = new OrderSessions(recipes, registries, 3600, 10, 10_000);
+
+        withoutBacon = new int[length];
+        for (int i = 0; i < length; i++) {
+            withoutBacon[i] = registries.burger().idOf(TOPPINGS[i % TOPPINGS.length]);
+        }
+        withBacon = Arrays.copyOf(withoutBacon, length + 1);
+        withBacon[length] = registries.burger().idOf("bacon");
+        session = sessions.open(RecipeService.BURGER, withoutBacon).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessions.destroy();
+    }
+
+    @Benchmark
+    public Object toggleLastTopping() {
+        sessions.add(session, null, "bacon");
+        return sessions.remove(session, length).getResponse();
+    }
+
+    @Benchmark
+    public Object toggleFirstTopping() {
+        sessions.add(session, 0, "bacon");
+        return sessions.remove(session, 0).getResponse();
+    }
+
+    @Benchmark
+    public long rebuildWholeOrder() {
+        return evaluate(withBacon) + evaluate(withoutBacon);
+    }
+
+    private long evaluate(int[] ids) {
+        Burger chain = registries.burger().wrapAll(ids, new SimpleBurger(), 0);
+        CompiledBurger compiled = CompiledBurger.compile(chain);
+        return compiled.getDescription().length() + compiled.getSentencePart().length()
+            + pricing.current().costCents(RecipeService.BURGER, ids);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.text.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A large document through bold, uppercase and encrypt, evaluated whole with
+ * {@code getContent()} against streamed from a Reader and from a memory-mapped file.
+ * Output goes to a writer that discards it. Run with {@code -prof gc}: the streamed
+ * allocation per operation stays flat as the size grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingTextBenchmark {
+
+    @Param({"1048576", "33554432"})
+    public int size;
+
+    private char[] input;
+    private Path file;
+    private StreamingText streaming;
+    private Writer sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = Chains.asciiText(size, 42);
+        input = text.toCharArray();
+        file = Files.createTempFile("streaming-text", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        streaming = StreamingText.of(chain(new PlainText("")));
+        sink = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static Text chain(Text base) {
+        return new EncryptDecorator(new UpperCaseDecorator(new BoldDecorator(base)), 3);
+    }
+
+    @Benchmark
+    public int whole() throws IOException {
+        String content = chain(new PlainText(new String(input))).getContent();
+        sink.write(content);
+        return content.length();
+    }
+
+    @Benchmark
+    public long streamedFromReader() throws IOException {
+        return streaming.write(new CharArrayReader(input), sink);
+    }
+
+    @Benchmark
+    public long streamedFromMappedFile() throws IOException {
+        return streaming.write(file, sink);
+    }
+}
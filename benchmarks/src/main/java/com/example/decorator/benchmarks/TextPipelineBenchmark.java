@@ -0,0 +1,61 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.text.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fused text pipeline against nested evaluation, one full String per layer, for
+ * encrypt, uppercase, bold, italic and underline. Run with {@code -prof gc} to see the
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextPipelineBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private String input;
+    private List<TextDecorator> layers;
+    private TextPipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        input = Chains.asciiText(size, 42);
+        Text plain = new PlainText(input);
+        EncryptDecorator encrypt = new EncryptDecorator(plain, 3);
+        UpperCaseDecorator upper = new UpperCaseDecorator(encrypt);
+        BoldDecorator bold = new BoldDecorator(upper);
+        ItalicDecorator italic = new ItalicDecorator(bold);
+        UnderlineDecorator underline = new UnderlineDecorator(italic);
+        layers = Arrays.asList(encrypt, upper, bold, italic, underline);
+        pipeline = TextPipeline.compile(layers);
+    }
+
+    @Benchmark
+    public String nested() {
+        String content = input;
+        for (TextDecorator layer : layers) {
+            content = layer.transform(content);
+        }
+        return content;
+    }
+
+    @Benchmark
+    public String fused() {
+        return pipeline.apply(input);
+    }
+
+    @Benchmark
+    public String compileAndFuse() {
+        return TextPipeline.compile(layers).apply(input);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.decorator.benchmarks;
+
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.wire.BinaryOrders;
+import com.example.decorator.wire.WireClient;
+import com.example.decorator.wire.WireOrder;
+import com.example.decorator.wire.WireResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A kiosk's orders sent as JSON to {@code /api/batch} against the binary protocol at
+ * {@code /api/wire}, through the full MVC stack with the recipes cached. Each side's
+ * whole share is timed: the client encoding the orders and decoding the results, and
+ * the server in between. Reported per order, for a 40-item order and a single coffee.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireBenchmark {
+    private static final String[] COFFEE = {"milk", "vanilla", "whipped_cream", "caramel"};
+    private static final String[] BURGER = {"cheese", "bacon", "lettuce", "tomato", "pickles", "onions", "special_sauce"};
+    private static final String[] TEXT = {"encrypt", "uppercase", "bold"};
+
+    private static final int ORDER_SIZE = 40;
+    private static final MediaType ORDERS = MediaType.parseMediaType(BinaryOrders.CONTENT_TYPE);
+
+    private MockMvc mockMvc;
+    private ObjectMapper mapper;
+    private WireClient client;
+    private List<Map<String, Object>> jsonOrder;
+    private List<WireOrder> wireOrder;
+    private List<Map<String, Object>> jsonCoffee;
+    private List<WireOrder> wireCoffee;
+
+    @Setup
+    public void setUp() throws Exception {
+        mockMvc = BenchmarkContext.mockMvc();
+        mapper = new ObjectMapper();
+        DecoratorRegistries registries = new DecoratorRegistries();
+        client = new WireClient(new URL("http://localhost/api/wire"));
+
+        // The same point-of-sale mix as ControllerBenchmark: mostly repeated recipes
+        jsonOrder = new ArrayList<>();
+        wireOrder = new ArrayList<>();
+        for (int i = 0; i < ORDER_SIZE; i++) {
+            Map<String, Object> order = new LinkedHashMap<>();
+            if (i % 10 == 9) {
+                String[] sugarAndMilk = Chains.decoratorNames(new String[] {"sugar", "milk"}, i / 10 + 1)
+                    .toArray(new String[0]);
+                order.put("product", "coffee");
+                order.put("decorators", Arrays.asList(sugarAndMilk));
+                wireOrder.add(WireOrder.coffee(ids(registries.coffee(), sugarAndMilk)));
+            } else if (i % 3 == 0) {
+                order.put("product", "burger");
+                order.put("decorators", Arrays.asList(BURGER));
+                wireOrder.add(WireOrder.burger(ids(registries.burger(), BURGER)));
+            } else if (i % 3 == 1) {
+                order.put("product", "coffee");
+                order.put("decorators", Arrays.asList(COFFEE));
+                wireOrder.add(WireOrder.coffee(ids(registries.coffee(), COFFEE)));
+            } else {
+                order.put("product", "text");
+                order.put("decorators", Arrays.asList(TEXT));
+                order.put("text", "Confidential");
+                order.put("encrypt_shift", 5);
+                wireOrder.add(WireOrder.text("Confidential", 5, Locale.ROOT, ids(registries.text(), TEXT)));
+            }
+            jsonOrder.add(order);
+        }
+        jsonCoffee = jsonOrder.subList(1, 2);
+        wireCoffee = wireOrder.subList(1, 2);
+        // The client learns the descriptions once, as it would on its first request
+        postBinary(wireOrder);
+    }
+
+    private static int[] ids(DecoratorRegistry<?> registry, String[] names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = registry.idOf(names[i]);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public JsonNode jsonCoffee() throws Exception {
+        return postJson(jsonCoffee);
+    }
+
+    @Benchmark
+    public List<WireResult> binaryCoffee() throws Exception {
+        return postBinary(wireCoffee);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_SIZE)
+    public JsonNode jsonOrder() throws Exception {
+        return postJson(jsonOrder);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_SIZE)
+    public List<WireResult> binaryOrder() throws Exception {
+        return postBinary(wireOrder);
+    }
+
+    private JsonNode postJson(List<Map<String, Object>> orders) throws Exception {
+        byte[] response = mockMvc.perform(
+                MockMvcRequestBuilders.post("/api/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsBytes(orders)))
+            .andReturn().getResponse().getContentAsByteArray();
+        return mapper.readTree(response);
+    }
+
+    private List<WireResult> postBinary(List<WireOrder> orders) throws Exception {
+        byte[] response = mockMvc.perform(
+                MockMvcRequestBuilders.post("/api/wire")
+                    .contentType(ORDERS)
+                    .accept(ORDERS)
+                    .content(client.encodeRequest(orders)))
+            .andReturn().getResponse().getContentAsByteArray();
+        return client.decodeResponse(response);
+    }
+}
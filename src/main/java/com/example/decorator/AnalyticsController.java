@@ -0,0 +1,28 @@
+package com.example.decorator;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class AnalyticsController {
+    private final OrderAnalytics analytics;
+
+    public AnalyticsController(OrderAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * What coffee and burger customers order: per decorator, per pair of decorators,
+     * per time window and the most ordered recipes.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(analytics.describe());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.decorator;
+
+import com.example.decorator.api.BatchResponse;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.RecipeResponse;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.money.Money;
+import com.example.decorator.service.BatchService;
+import com.example.decorator.service.RecipeResult;
+import com.example.decorator.service.RecipeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api")
+public class BatchController {
+
+    private final RecipeService recipes;
+    private final BatchService batches;
+    private final int maxOrders;
+
+    public BatchController(RecipeService recipes, BatchService batches,
+                           @Value("${decorator.batch.max-orders}") int maxOrders) {
+        this.recipes = recipes;
+        this.batches = batches;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * Evaluates a mixed list of coffee, burger and text orders. Each order has the same
+     * fields as the single-item endpoint plus a "product"; results come back in order.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResponse> createBatch(@RequestBody List<Order<?>> orders) {
+        if (orders.size() > maxOrders) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + maxOrders + " orders are allowed per batch");
+        }
+
+        List<RecipeKey> keys = new ArrayList<>(orders.size());
+        for (Order<?> order : orders) {
+            keys.add(recipes.key(order));
+        }
+
+        BatchService.BatchResult batch = batches.evaluate(keys);
+
+        List<RecipeResponse> results = new ArrayList<>(keys.size());
+        for (RecipeResult result : batch.getResults()) {
+            results.add(result.getResponse());
+        }
+        return ResponseEntity.ok(new BatchResponse(results, Money.format(batch.getTotalCents()),
+            batch.getPriceVersion()));
+    }
+}
@@ -3,384 +3,215 @@ package com.example.decorator;
 import com.example.decorator.coffee.*;
 import com.example.decorator.text.*;
 import com.example.decorator.burger.*;
+import com.example.decorator.api.BulkTextRequest;
+import com.example.decorator.api.BulkTextResponse;
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.examples.ExampleCatalogs;
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.service.BulkTextService;
+import com.example.decorator.service.RecipeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api")
 public class DecoratorController {
 
+    private final DecoratorRegistries registries;
+    private final RecipeService recipes;
+    private final BulkTextService bulkText;
+    private final ExampleCatalogs catalogs;
+    private final int maxChainLength;
+    private final int maxBulkTexts;
+
+    public DecoratorController(DecoratorRegistries registries, RecipeService recipes, BulkTextService bulkText,
+                               ExampleCatalogs catalogs,
+                               @Value("${decorator.max-chain-length}") int maxChainLength,
+                               @Value("${decorator.bulk.max-texts}") int maxBulkTexts) {
+        this.registries = registries;
+        this.recipes = recipes;
+        this.bulkText = bulkText;
+        this.catalogs = catalogs;
+        this.maxChainLength = maxChainLength;
+        this.maxBulkTexts = maxBulkTexts;
+    }
+
     @PostMapping("/coffee")
-    public ResponseEntity<Map<String, String>> createCoffee(@RequestBody Map<String, Object> request) {
-        List<String> decorators = (List<String>) request.get("decorators");
-        
-        Coffee coffee = new SimpleCoffee();
-        
-        if (decorators != null) {
-            for (String decorator : decorators) {
-                switch (decorator) {
-                    case "milk":
-                        coffee = new Milk(coffee);
-                        break;
-                    case "sugar":
-                        coffee = new Sugar(coffee);
-                        break;
-                    case "whipped_cream":
-                        coffee = new WhippedCream(coffee);
-                        break;
-                    case "vanilla":
-                        coffee = new Vanilla(coffee);
-                        break;
-                    case "caramel":
-                        coffee = new Caramel(coffee);
-                        break;
-                    default:
-                        // Ignore unknown decorators
-                        break;
-                }
-            }
-        }
-        
-        Map<String, String> response = new HashMap<>();
-        response.put("description", coffee.getDescription());
-        response.put("cost", String.format("$%.2f", coffee.getCost()));
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<CoffeeResponse> createCoffee(@RequestBody Order<Coffee> order) {
+        return ResponseEntity.ok(recipes.coffee(order.getDecoratorIds()));
     }
 
     @PostMapping("/burger")
-    public ResponseEntity<Map<String, String>> createBurger(@RequestBody Map<String, Object> request) {
-        List<String> decorators = (List<String>) request.get("decorators");
-        
-        Burger burger = new SimpleBurger();
-        
-        if (decorators != null) {
-            for (String decorator : decorators) {
-                switch (decorator) {
-                    case "cheese":
-                        burger = new Cheese(burger);
-                        break;
-                    case "lettuce":
-                        burger = new Lettuce(burger);
-                        break;
-                    case "tomato":
-                        burger = new Tomato(burger);
-                        break;
-                    case "bacon":
-                        burger = new Bacon(burger);
-                        break;
-                    case "pickles":
-                        burger = new Pickles(burger);
-                        break;
-                    case "onions":
-                        burger = new Onions(burger);
-                        break;
-                    case "special_sauce":
-                        burger = new SpecialSauce(burger);
-                        break;
-                    case "patty":
-                        burger = new Patty(burger);
-                        break;
-                    default:
-                        // Ignore unknown decorators
-                        break;
-                }
-            }
-        }
-        
-        Map<String, String> response = new HashMap<>();
-        response.put("description", burger.getDescription());
-        response.put("cost", String.format("$%.2f", burger.getCost()));
-        
-        String sentencePart = burger.getSentencePart();
-        String sentence = sentencePart.isEmpty() ? "" : "The burger has " + sentencePart + ".";
-        response.put("sentence", sentence);
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<BurgerResponse> createBurger(@RequestBody Order<Burger> order) {
+        return ResponseEntity.ok(recipes.burger(order.getDecoratorIds()));
     }
 
     @PostMapping("/text")
-    public ResponseEntity<Map<String, String>> formatText(@RequestBody Map<String, Object> request) {
-        String textContent = (String) request.getOrDefault("text", "Hello, World!");
-        List<String> decorators = (List<String>) request.get("decorators");
-        Integer encryptShift = (Integer) request.getOrDefault("encrypt_shift", 3);
-        
-        Text text = new PlainText(textContent);
-        
-        if (decorators != null) {
-            for (String decorator : decorators) {
-                switch (decorator) {
-                    case "bold":
-                        text = new BoldDecorator(text);
-                        break;
-                    case "italic":
-                        text = new ItalicDecorator(text);
-                        break;
-                    case "underline":
-                        text = new UnderlineDecorator(text);
-                        break;
-                    case "uppercase":
-                        text = new UpperCaseDecorator(text);
-                        break;
-                    case "encrypt":
-                        text = new EncryptDecorator(text, encryptShift);
-                        break;
-                    default:
-                        // Ignore unknown decorators
-                        break;
-                }
-            }
+    public ResponseEntity<TextResponse> formatText(@RequestBody Order<Text> order) {
+        return ResponseEntity.ok(recipes.text(order.getText(), order.getDecoratorIds(), order.getEncryptShift(),
+            order.getLocale()));
+    }
+
+    /**
+     * Decorates a raw text body of any size, with the decorators given as query
+     * parameters and the case rules of the optional locale, and streams the result back
+     * as it goes. The cost and the price version
+     * it came from are reported in the X-Cost and X-Price-Version headers, as the body
+     * can't carry them. Recipes with a decorator that needs the whole text at once, such
+     * as lowercase or titlecase, are rejected rather than buffered in memory; they can
+     * be sent as JSON instead.
+     */
+    @PostMapping(value = "/text", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public void streamText(@RequestParam(required = false) List<String> decorators,
+                           @RequestParam(name = "encrypt_shift", defaultValue = "3") int encryptShift,
+                           @RequestParam(required = false) String locale,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        checkChainLength(decorators);
+
+        // Unknown decorators are ignored
+        int[] decoratorIds = registries.text().resolve(decorators);
+        StreamingText text = recipes.streamingText(decoratorIds, encryptShift, caseLocale(locale));
+        if (!text.getPipeline().isStreamable()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only tag and char decorators can be streamed;"
+                + " send recipes with others, such as lowercase or titlecase, as JSON");
+        }
+
+        Charset charset = requestCharset(request.getContentType());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        PriceTable prices = recipes.getPrices();
+        long costCents = prices.costCents(RecipeService.TEXT, decoratorIds);
+        response.setHeader("X-Cost", Money.format(costCents));
+        response.setHeader("X-Price-Version", Long.toString(prices.getVersion()));
+        text.write(new InputStreamReader(request.getInputStream(), charset), response.getWriter());
+        // Only once the whole body has been read and formatted; a failed upload isn't an order
+        recipes.record(RecipeService.TEXT, decoratorIds, costCents, prices.getVersion());
+    }
+
+    /**
+     * The charset named in the request's Content-Type, UTF-8 if there is none. The
+     * character encoding of the request itself is always UTF-8, as the servlet
+     * encoding filter forces it.
+     */
+    private static Charset requestCharset(String contentType) {
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            Charset charset = MediaType.parseMediaType(contentType).getCharset();
+            return charset != null ? charset : StandardCharsets.UTF_8;
+        } catch (InvalidMediaTypeException e) {
+            // An illegal or unsupported charset name
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+        }
+    }
+
+    /**
+     * Formats many texts with one recipe, or one large text, in parallel. Takes the
+     * decorators, encrypt_shift and locale of /api/text with either "texts", a list, or "text";
+     * the formatted "contents" come back in order.
+     */
+    @PostMapping("/text/bulk")
+    public ResponseEntity<BulkTextResponse> formatBulkText(@RequestBody BulkTextRequest request) {
+        if (request.getError() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, request.getError());
+        }
+        checkChainLength(request.getDecorators());
+        if ((request.getTexts() == null) == (request.getText() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give either \"texts\" or \"text\"");
+        }
+        if (request.getTexts() != null && request.getTexts().size() > maxBulkTexts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + maxBulkTexts + " texts are allowed per request");
+        }
+        if (request.getTexts() != null && request.getTexts().contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "\"texts\" must not contain null");
+        }
+
+        Locale locale = caseLocale(request.getLocale());
+
+        // Unknown decorators are ignored
+        int[] decoratorIds = registries.text().resolve(request.getDecorators());
+        BulkTextService.BulkResult result = request.getTexts() != null
+            ? bulkText.formatAll(request.getTexts(), decoratorIds, request.getEncryptShift(), locale)
+            : bulkText.format(request.getText(), decoratorIds, request.getEncryptShift(), locale);
+        return ResponseEntity.ok(new BulkTextResponse(result.getContents(), Money.format(result.getCostCents()),
+            Money.format(result.getTotalCents()), result.getPriceVersion()));
+    }
+
+    @GetMapping("/decorators/stats")
+    public ResponseEntity<Map<String, Object>> decoratorStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (DecoratorRegistry<?> registry : Arrays.asList(registries.coffee(), registries.burger(), registries.text())) {
+            Map<String, Object> productStats = new LinkedHashMap<>();
+            productStats.put("usage", registry.getUsageCounts());
+            productStats.put("unknown", registry.getUnknownCount());
+            stats.put(registry.getProduct(), productStats);
         }
-        
-        Map<String, String> response = new HashMap<>();
-        response.put("content", text.getContent());
-        response.put("cost", String.format("$%.2f", text.getCost()));
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(recipes.getCacheStats());
     }
 
     @GetMapping("/coffee/examples")
-    public ResponseEntity<List<Map<String, Object>>> coffeeExamples() {
-        List<Map<String, Object>> examples = new ArrayList<>();
-        
-        // Example 1: Basic Coffee
-        // SimpleCoffee.getDescription() = "Simple Coffee"
-        // SimpleCoffee.getCost() = 2.00
-        Coffee coffee1 = new SimpleCoffee();
-        examples.add(createExample("Basic Coffee", 
-            Arrays.asList(), coffee1.getDescription(), String.format("$%.2f", coffee1.getCost())));
-        
-        // Example 2: Coffee with Milk
-        // Milk wraps SimpleCoffee
-        // Milk.getDescription() = coffee.getDescription() + ", Milk"
-        // Milk.getCost() = coffee.getCost() + 0.50
-        Coffee coffee2 = new Milk(new SimpleCoffee());
-        examples.add(createExample("Coffee with Milk", 
-            Arrays.asList("milk"), coffee2.getDescription(), String.format("$%.2f", coffee2.getCost())));
-        
-        // Example 3: Coffee with Milk and Sugar
-        // Sugar wraps (Milk wraps SimpleCoffee)
-        // Final: SimpleCoffee -> Milk -> Sugar
-        Coffee coffee3 = new Sugar(new Milk(new SimpleCoffee()));
-        examples.add(createExample("Coffee with Milk and Sugar", 
-            Arrays.asList("milk", "sugar"), coffee3.getDescription(), String.format("$%.2f", coffee3.getCost())));
-        
-        // Example 4: Deluxe Coffee
-        // Chain: SimpleCoffee -> Milk -> Vanilla -> WhippedCream -> Caramel
-        // Each decorator adds its cost and description
-        Coffee coffee4 = new Caramel(
-            new WhippedCream(
-                new Vanilla(
-                    new Milk(
-                        new SimpleCoffee()
-                    )
-                )
-            )
-        );
-        examples.add(createExample("Deluxe Coffee", 
-            Arrays.asList("milk", "vanilla", "whipped_cream", "caramel"), 
-            coffee4.getDescription(), String.format("$%.2f", coffee4.getCost())));
-        
-        // Example 5: Extra Sweet Coffee
-        // Demonstrates adding same decorator multiple times
-        // Chain: SimpleCoffee -> Sugar -> Sugar -> Milk
-        Coffee coffee5 = new Milk(
-            new Sugar(
-                new Sugar(
-                    new SimpleCoffee()
-                )
-            )
-        );
-        examples.add(createExample("Extra Sweet Coffee", 
-            Arrays.asList("sugar", "sugar", "milk"), 
-            coffee5.getDescription(), String.format("$%.2f", coffee5.getCost())));
-        
-        return ResponseEntity.ok(examples);
+    public ResponseEntity<byte[]> coffeeExamples(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogs.coffee().toResponse(ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/burger/examples")
-    public ResponseEntity<List<Map<String, Object>>> burgerExamples() {
-        List<Map<String, Object>> examples = new ArrayList<>();
-        
-        // Example 1: Simple Burger
-        Burger burger1 = new SimpleBurger();
-        examples.add(createExample("Simple Burger", 
-            Arrays.asList(), burger1.getDescription(), String.format("$%.2f", burger1.getCost())));
-        
-        // Example 2: Cheeseburger
-        Burger burger2 = new Cheese(new SimpleBurger());
-        examples.add(createExample("Cheeseburger", 
-            Arrays.asList("cheese"), burger2.getDescription(), String.format("$%.2f", burger2.getCost())));
-        
-        // Example 3: Classic Burger
-        // Chain: SimpleBurger -> Cheese -> Lettuce -> Tomato
-        Burger burger3 = new Tomato(
-            new Lettuce(
-                new Cheese(
-                    new SimpleBurger()
-                )
-            )
-        );
-        examples.add(createExample("Classic Burger", 
-            Arrays.asList("cheese", "lettuce", "tomato"), 
-            burger3.getDescription(), String.format("$%.2f", burger3.getCost())));
-        
-        // Example 4: Bacon Cheeseburger
-        // Chain: SimpleBurger -> Cheese -> Bacon
-        Burger burger4 = new Bacon(
-            new Cheese(
-                new SimpleBurger()
-            )
-        );
-        examples.add(createExample("Bacon Cheeseburger", 
-            Arrays.asList("cheese", "bacon"), 
-            burger4.getDescription(), String.format("$%.2f", burger4.getCost())));
-        
-        // Example 5: Deluxe Burger
-        // Chain: SimpleBurger -> Cheese -> Bacon -> Lettuce -> Tomato -> Pickles -> Onions -> Special Sauce
-        Burger burger5 = new SpecialSauce(
-            new Onions(
-                new Pickles(
-                    new Tomato(
-                        new Lettuce(
-                            new Bacon(
-                                new Cheese(
-                                    new SimpleBurger()
-                                )
-                            )
-                        )
-                    )
-                )
-            )
-        );
-        examples.add(createExample("Deluxe Burger", 
-            Arrays.asList("cheese", "bacon", "lettuce", "tomato", "pickles", "onions", "special_sauce"), 
-            burger5.getDescription(), String.format("$%.2f", burger5.getCost())));
-        
-        // Example 6: Double Cheese Burger
-        // Demonstrates adding same decorator multiple times
-        Burger burger6 = new Cheese(
-            new Cheese(
-                new SimpleBurger()
-            )
-        );
-        examples.add(createExample("Double Cheese Burger", 
-            Arrays.asList("cheese", "cheese"), 
-            burger6.getDescription(), String.format("$%.2f", burger6.getCost())));
-        
-        return ResponseEntity.ok(examples);
+    public ResponseEntity<byte[]> burgerExamples(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogs.burger().toResponse(ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/text/examples")
-    public ResponseEntity<List<Map<String, Object>>> textExamples() {
-        List<Map<String, Object>> examples = new ArrayList<>();
-        
-        // Example 1: Plain Text
-        // PlainText.getContent() = original text
-        // PlainText.getCost() = 1.00
-        Text text1 = new PlainText("Hello, World!");
-        examples.add(createTextExample("Plain Text", "Hello, World!", 
-            Arrays.asList(), text1.getContent(), String.format("$%.2f", text1.getCost()), null));
-        
-        // Example 2: Uppercase Text
-        // UpperCaseDecorator.getContent() = text.getContent().toUpperCase()
-        // UpperCaseDecorator.getCost() = text.getCost() + 0.50
-        Text text2 = new UpperCaseDecorator(new PlainText("Hello, World!"));
-        examples.add(createTextExample("Uppercase Text", "Hello, World!", 
-            Arrays.asList("uppercase"), text2.getContent(), String.format("$%.2f", text2.getCost()), null));
-        
-        // Example 3: Bold Text
-        // BoldDecorator.getContent() = "<b>" + text.getContent() + "</b>"
-        // BoldDecorator.getCost() = text.getCost() + 0.30
-        Text text3 = new BoldDecorator(new PlainText("Hello, World!"));
-        examples.add(createTextExample("Bold Text", "Hello, World!", 
-            Arrays.asList("bold"), text3.getContent(), String.format("$%.2f", text3.getCost()), null));
-        
-        // Example 4: Bold and Italic Text
-        // Chain: PlainText -> BoldDecorator -> ItalicDecorator
-        // ItalicDecorator wraps the bold text with <i> tags
-        Text text4 = new ItalicDecorator(
-            new BoldDecorator(
-                new PlainText("Hello, World!")
-            )
-        );
-        examples.add(createTextExample("Bold and Italic Text", "Hello, World!", 
-            Arrays.asList("bold", "italic"), text4.getContent(), String.format("$%.2f", text4.getCost()), null));
-        
-        // Example 5: Bold, Italic, and Underlined Text
-        // Chain: PlainText -> BoldDecorator -> ItalicDecorator -> UnderlineDecorator
-        // Each decorator wraps the previous result
-        Text text5 = new UnderlineDecorator(
-            new ItalicDecorator(
-                new BoldDecorator(
-                    new PlainText("Important Message")
-                )
-            )
-        );
-        examples.add(createTextExample("Bold, Italic, and Underlined Text", "Important Message", 
-            Arrays.asList("bold", "italic", "underline"), 
-            text5.getContent(), String.format("$%.2f", text5.getCost()), null));
-        
-        // Example 6: Uppercase and Bold Text
-        // Chain: PlainText -> UpperCaseDecorator -> BoldDecorator
-        // First converts to uppercase, then wraps with bold tags
-        Text text6 = new BoldDecorator(
-            new UpperCaseDecorator(
-                new PlainText("attention")
-            )
-        );
-        examples.add(createTextExample("Uppercase and Bold Text", "attention", 
-            Arrays.asList("uppercase", "bold"), text6.getContent(), String.format("$%.2f", text6.getCost()), null));
-        
-        // Example 7: Encrypted Text (Caesar Cipher, shift=3)
-        // EncryptDecorator.getContent() applies Caesar cipher
-        // EncryptDecorator.getCost() = text.getCost() + 1.50
-        Text text7 = new EncryptDecorator(new PlainText("Secret Message"), 3);
-        examples.add(createTextExample("Encrypted Text (Caesar Cipher, shift=3)", "Secret Message", 
-            Arrays.asList("encrypt"), text7.getContent(), String.format("$%.2f", text7.getCost()), 3));
-        
-        // Example 8: Encrypted, Uppercase, and Bold
-        // Chain: PlainText -> EncryptDecorator -> UpperCaseDecorator -> BoldDecorator
-        // Order matters: encrypts first, then uppercases encrypted text, then bolds
-        Text text8 = new BoldDecorator(
-            new UpperCaseDecorator(
-                new EncryptDecorator(
-                    new PlainText("Confidential"),
-                    5
-                )
-            )
-        );
-        examples.add(createTextExample("Encrypted, Uppercase, and Bold", "Confidential", 
-            Arrays.asList("encrypt", "uppercase", "bold"), 
-            text8.getContent(), String.format("$%.2f", text8.getCost()), 5));
-        
-        return ResponseEntity.ok(examples);
+    public ResponseEntity<byte[]> textExamples(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return catalogs.text().toResponse(ifNoneMatch, acceptEncoding);
     }
 
-    private Map<String, Object> createExample(String name, List<String> decorators, 
-                                              String description, String cost) {
-        Map<String, Object> example = new HashMap<>();
-        example.put("name", name);
-        example.put("decorators", decorators);
-        example.put("description", description);
-        example.put("cost", cost);
-        return example;
+    private void checkChainLength(List<String> decorators) {
+        if (decorators != null && decorators.size() > maxChainLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + maxChainLength + " decorators are allowed per request");
+        }
     }
 
-    private Map<String, Object> createTextExample(String name, String text, 
-                                                   List<String> decorators, String content, 
-                                                   String cost, Integer encryptShift) {
-        Map<String, Object> example = new HashMap<>();
-        example.put("name", name);
-        example.put("text", text);
-        example.put("decorators", decorators);
-        example.put("content", content);
-        example.put("cost", cost);
-        if (encryptShift != null) {
-            example.put("encrypt_shift", encryptShift);
+    private static Locale caseLocale(String languageTag) {
+        if (languageTag == null) {
+            return Locale.ROOT;
+        }
+        try {
+            return CaseMapper.parse(languageTag);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "locale must be a language tag, e.g. \"tr-TR\"");
         }
-        return example;
     }
 }
@@ -0,0 +1,37 @@
+package com.example.decorator;
+
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.metrics.RequestMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class MetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final RequestMetrics requests;
+    private final DecoratorMetrics decorators;
+
+    public MetricsController(RequestMetrics requests, DecoratorMetrics decorators) {
+        this.requests = requests;
+        this.decorators = decorators;
+    }
+
+    /**
+     * Request and decorator metrics in the Prometheus text format, at the path Spring Boot
+     * Actuator would use, so scrape configs don't need to change if it's adopted later.
+     */
+    @GetMapping("/actuator/prometheus")
+    public ResponseEntity<String> prometheus() {
+        if (!requests.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        StringBuilder out = new StringBuilder(16 * 1024);
+        requests.writeTo(out);
+        decorators.writeTo(out);
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, PROMETHEUS_TEXT).body(out.toString());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.decorator;
+
+import com.example.decorator.service.OrderStreamService;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api")
+public class OrderStreamController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final OrderStreamService orderStreams;
+
+    public OrderStreamController(OrderStreamService orderStreams) {
+        this.orderStreams = orderStreams;
+    }
+
+    /**
+     * Reads newline-delimited JSON orders, as for /api/batch, and streams back one result
+     * line per order while the request is still being read.
+     */
+    @PostMapping(value = "/orders/stream", consumes = NDJSON)
+    public void streamOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        orderStreams.process(request.getInputStream(), response.getOutputStream());
+    }
+}
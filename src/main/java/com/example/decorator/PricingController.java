@@ -0,0 +1,28 @@
+package com.example.decorator;
+
+import com.example.decorator.pricing.Pricing;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class PricingController {
+    private final Pricing pricing;
+
+    public PricingController(Pricing pricing) {
+        this.pricing = pricing;
+    }
+
+    /**
+     * The prices in effect and their version, plus the error from the last reload if
+     * the price file couldn't be loaded.
+     */
+    @GetMapping("/prices")
+    public ResponseEntity<Map<String, Object>> prices() {
+        return ResponseEntity.ok(pricing.describe());
+    }
+}
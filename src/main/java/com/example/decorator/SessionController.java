@@ -0,0 +1,121 @@
+package com.example.decorator;
+
+import com.example.decorator.api.Order;
+import com.example.decorator.api.SessionEdit;
+import com.example.decorator.api.SessionResponse;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.service.OrderSessions;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Coffee and burger orders built up on the server one edit at a time, instead of
+ * sending the whole decorator list again for every change. Every response has the
+ * session's decorators and the order's description and cost as they stand.
+ */
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionController {
+    private final DecoratorRegistries registries;
+    private final OrderSessions sessions;
+
+    public SessionController(DecoratorRegistries registries, OrderSessions sessions) {
+        this.registries = registries;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Starts a session from an order with a "product" of coffee or burger and, optionally,
+     * its first decorators.
+     */
+    @PostMapping
+    public ResponseEntity<SessionResponse> open(@RequestBody Order<?> order) {
+        OrderSessions.Snapshot snapshot = call(() -> sessions.open(order.getProduct(), order.getDecoratorIds()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(snapshot));
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(sessions.describe());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SessionResponse> get(@PathVariable String id) {
+        return ResponseEntity.ok(toResponse(sessions.get(id)));
+    }
+
+    /**
+     * Adds the "decorator" before "position", or at the end without one.
+     */
+    @PostMapping("/{id}/decorators")
+    public ResponseEntity<SessionResponse> add(@PathVariable String id, @RequestBody SessionEdit edit) {
+        return ResponseEntity.ok(toResponse(call(() -> sessions.add(id, edit.getPosition(), edit.getDecorator()))));
+    }
+
+    @DeleteMapping("/{id}/decorators/{position}")
+    public ResponseEntity<SessionResponse> remove(@PathVariable String id, @PathVariable int position) {
+        return ResponseEntity.ok(toResponse(call(() -> sessions.remove(id, position))));
+    }
+
+    /**
+     * Moves the decorator at the position so it ends up at "to".
+     */
+    @PostMapping("/{id}/decorators/{position}/move")
+    public ResponseEntity<SessionResponse> move(@PathVariable String id, @PathVariable int position,
+                                                @RequestBody SessionEdit edit) {
+        if (edit.getTo() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give the position to move to as \"to\"");
+        }
+        return ResponseEntity.ok(toResponse(call(() -> sessions.move(id, position, edit.getTo()))));
+    }
+
+    /**
+     * Places the order as it stands and ends the session.
+     */
+    @PostMapping("/{id}/checkout")
+    public ResponseEntity<SessionResponse> checkOut(@PathVariable String id) {
+        return ResponseEntity.ok(toResponse(sessions.checkOut(id)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> close(@PathVariable String id) {
+        if (!sessions.close(id)) {
+            throw notFound();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private static OrderSessions.Snapshot call(Supplier<OrderSessions.Snapshot> action) {
+        try {
+            return action.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    private SessionResponse toResponse(OrderSessions.Snapshot snapshot) {
+        if (snapshot == null) {
+            throw notFound();
+        }
+        DecoratorRegistry<?> registry = registries.forProduct(snapshot.getProduct());
+        List<String> names = new ArrayList<>(snapshot.getDecoratorIds().length);
+        for (int id : snapshot.getDecoratorIds()) {
+            names.add(registry.nameOf(id));
+        }
+        return new SessionResponse(snapshot.getId(), snapshot.getProduct(), names, snapshot.getResponse());
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No such session; it may have expired");
+    }
+}
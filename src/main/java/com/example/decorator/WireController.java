@@ -0,0 +1,49 @@
+package com.example.decorator;
+
+import com.example.decorator.api.InvalidOrderException;
+import com.example.decorator.wire.BinaryOrders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Orders in the compact binary protocol, for clients such as kiosks that send many:
+ * the same results as {@code /api/batch}, with decorators given by id and descriptions
+ * the client has had before sent as ids. See {@link com.example.decorator.wire.WireClient}.
+ */
+@RestController
+@RequestMapping("/api/wire")
+public class WireController {
+    private static final MediaType ORDERS = MediaType.parseMediaType(BinaryOrders.CONTENT_TYPE);
+
+    private final BinaryOrders orders;
+
+    public WireController(BinaryOrders orders) {
+        this.orders = orders;
+    }
+
+    @PostMapping(consumes = BinaryOrders.CONTENT_TYPE)
+    public ResponseEntity<byte[]> order(@RequestBody byte[] request) {
+        return ResponseEntity.ok().contentType(ORDERS).body(orders.handle(request));
+    }
+
+    /**
+     * Sends the reason as plain text, as the client can't take the usual JSON error.
+     */
+    @ExceptionHandler(InvalidOrderException.class)
+    public ResponseEntity<String> invalid(InvalidOrderException e) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    @GetMapping("/decorators")
+    public ResponseEntity<Map<String, Map<String, Integer>>> decorators() {
+        return ResponseEntity.ok(orders.decoratorIds());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(orders.describe());
+    }
+}
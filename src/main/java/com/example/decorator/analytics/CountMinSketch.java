@@ -0,0 +1,49 @@
+package com.example.decorator.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate counts of many keys in fixed memory. Each key is counted in one cell of
+ * every row, and its estimate is the smallest of those cells: never less than the true
+ * count, and more only by what colliding keys added. Updates are atomic increments, so
+ * any number of threads can add at once without locking.
+ */
+final class CountMinSketch {
+    private static final int DEPTH = 4;
+
+    private final AtomicLongArray cells;
+    private final int width;
+    private final int mask;
+
+    CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width) * 2 - 1);
+        this.mask = this.width - 1;
+        this.cells = new AtomicLongArray(DEPTH * this.width);
+    }
+
+    /**
+     * Counts one more of the key with this hash and returns its new estimate.
+     */
+    long add(long hash) {
+        // Row indexes from two halves of one mixed hash (Kirsch-Mitzenmacher)
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = row * width + ((h1 + row * h2) & mask);
+            estimate = Math.min(estimate, cells.incrementAndGet(cell));
+        }
+        return estimate;
+    }
+
+    private static long mix(long hash) {
+        // The finalizer of MurmurHash3, so nearby keys spread over the whole table
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.decorator.analytics;
+
+import com.example.decorator.journal.JournalReader;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable.ProductPrices;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What customers order, aggregated in memory as the orders come in: for each coffee
+ * and burger decorator how many orders include it and what it earned, how often each
+ * pair of decorators is ordered together, totals for the last few tumbling time
+ * windows, and the most ordered recipes.
+ *
+ * <p>Everything is counted in {@link LongAdder}s in arrays indexed by decorator id, or
+ * by a pair of ids, so recording an order takes no lock and a fixed amount of work for
+ * the registered decorators. The top recipes come from a {@link CountMinSketch}; the
+ * short list of leaders is only updated when its lock is free (see {@link TopRecipes}).
+ *
+ * <p>Optionally the journal's earlier segments are read into the same counters in the
+ * background at startup, so the statistics cover orders from before the restart.
+ * Revenue per decorator is always counted at the current prices.
+ */
+@Component
+public class OrderAnalytics implements DisposableBean {
+    private static final Log log = LogFactory.getLog(OrderAnalytics.class);
+
+    private final boolean enabled;
+    private final Pricing pricing;
+    private final long windowMillis;
+    private final Map<String, ProductStats> products = new LinkedHashMap<>();
+    private final Thread backfill;
+
+    private volatile boolean closing;
+    private volatile String backfillState;
+    private final LongAdder backfilled = new LongAdder();
+
+    public OrderAnalytics(DecoratorRegistries registries, Pricing pricing, OrderJournal journal,
+                          @Value("${decorator.analytics.enabled}") boolean enabled,
+                          @Value("${decorator.analytics.window-seconds}") int windowSeconds,
+                          @Value("${decorator.analytics.windows}") int windows,
+                          @Value("${decorator.analytics.top-recipes}") int topRecipes,
+                          @Value("${decorator.analytics.sketch-width}") int sketchWidth,
+                          @Value("${decorator.analytics.load-journal}") boolean loadJournal) {
+        if (windowSeconds < 1 || windows < 1) {
+            throw new IllegalArgumentException("decorator.analytics.window-seconds and windows must be positive");
+        }
+        this.enabled = enabled;
+        this.pricing = pricing;
+        this.windowMillis = windowSeconds * 1000L;
+        for (DecoratorRegistry<?> registry : Arrays.asList(registries.coffee(), registries.burger())) {
+            products.put(registry.getProduct(), new ProductStats(registry, windows, topRecipes, sketchWidth));
+        }
+
+        if (!enabled || !loadJournal) {
+            this.backfill = null;
+            this.backfillState = "off";
+            return;
+        }
+        Path directory = Paths.get(journal.getDirectory());
+        if (!Files.isDirectory(directory)) {
+            this.backfill = null;
+            this.backfillState = "no journal";
+            return;
+        }
+        // Only the segments written before this start, as the journal's own thread is
+        // already appending this run's orders, which are counted live
+        JournalReader reader = new JournalReader(directory,
+            journal.isEnabled() ? journal.getFirstSegmentIndex() : Integer.MAX_VALUE);
+        this.backfillState = "running";
+        this.backfill = new Thread(() -> loadJournal(reader), "analytics-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * Counts an order with the decorators in {@code decoratorIds[0, count)}. Orders of
+     * other products are ignored.
+     */
+    public void record(String product, int[] decoratorIds, int count, long costCents, long timestamp) {
+        if (!enabled) {
+            return;
+        }
+        ProductStats stats = products.get(product);
+        if (stats != null) {
+            stats.record(decoratorIds, count, costCents, timestamp, pricing.current().forProduct(product), windowMillis);
+        }
+    }
+
+    private void loadJournal(JournalReader reader) {
+        try {
+            long start = System.nanoTime();
+            long orders = reader.read(record -> {
+                if (closing) {
+                    throw new Cancelled();
+                }
+                record(record.getProduct(), record.getDecoratorIds(), record.getDecoratorCount(),
+                    record.getCostCents(), record.getTimestamp());
+                backfilled.increment();
+            });
+            backfillState = "done";
+            log.info(String.format("Read %d journaled orders from %d segments into the order analytics in %d ms",
+                orders, reader.getSegmentCount(), (System.nanoTime() - start) / 1_000_000));
+        } catch (Cancelled e) {
+            backfillState = "cancelled";
+        } catch (Exception e) {
+            backfillState = "failed: " + e.getMessage();
+            log.error("Could not read the order journal into the order analytics", e);
+        }
+    }
+
+    /**
+     * The statistics as of now, for {@code GET /api/stats}.
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", enabled);
+        description.put("window_seconds", windowMillis / 1000);
+        Map<String, Object> journal = new LinkedHashMap<>();
+        journal.put("state", backfillState);
+        journal.put("orders", backfilled.sum());
+        description.put("journal", journal);
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ProductStats> entry : products.entrySet()) {
+            description.put(entry.getKey(), entry.getValue().describe(now, windowMillis));
+        }
+        return description;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        closing = true;
+        if (backfill != null) {
+            backfill.join();
+        }
+    }
+
+    /**
+     * Stops reading the journal at shutdown.
+     */
+    private static final class Cancelled extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * One product's counters.
+     */
+    private static final class ProductStats {
+        private final DecoratorRegistry<?> registry;
+        private final int decorators;
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+        private final LongAdder decoratorsOrdered = new LongAdder();
+        // Indexed by decorator id
+        private final LongAdder[] ordersWith;
+        private final LongAdder[] quantity;
+        private final LongAdder[] revenueCentsBy;
+        // Indexed by first * decorators + second, for first < second; null when there
+        // are too many decorators to track the ones in an order in a single long, in
+        // which case ordersWith counts an order once per repeat of the decorator
+        private final LongAdder[] pairs;
+        // Indexed by window number modulo the number of windows kept
+        private final AtomicReferenceArray<Window> windows;
+        private final CountMinSketch sketch;
+        private final TopRecipes top;
+
+        ProductStats(DecoratorRegistry<?> registry, int windows, int topRecipes, int sketchWidth) {
+            this.registry = registry;
+            this.decorators = registry.getMaxId() + 1;
+            this.ordersWith = adders(decorators);
+            this.quantity = adders(decorators);
+            this.revenueCentsBy = adders(decorators);
+            this.pairs = decorators <= Long.SIZE ? adders(decorators * decorators) : null;
+            this.windows = new AtomicReferenceArray<>(windows);
+            this.sketch = new CountMinSketch(sketchWidth);
+            this.top = new TopRecipes(topRecipes);
+        }
+
+        private static LongAdder[] adders(int count) {
+            LongAdder[] adders = new LongAdder[count];
+            for (int i = 0; i < count; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        void record(int[] decoratorIds, int count, long costCents, long timestamp, ProductPrices prices, long windowMillis) {
+            orders.increment();
+            revenueCents.add(costCents);
+            decoratorsOrdered.add(count);
+
+            long present = 0;
+            int hash = 1;
+            for (int i = 0; i < count; i++) {
+                int id = decoratorIds[i];
+                hash = 31 * hash + id;
+                if (id < 0 || id >= decorators) {
+                    // Journaled by a build with decorators this one doesn't have
+                    continue;
+                }
+                quantity[id].increment();
+                revenueCentsBy[id].add(prices.getAddedCents(id));
+                if (pairs == null || (present & (1L << id)) == 0) {
+                    ordersWith[id].increment();
+                    present |= 1L << id;
+                }
+            }
+            if (pairs != null) {
+                for (long rest = present; rest != 0; rest &= rest - 1) {
+                    int first = Long.numberOfTrailingZeros(rest);
+                    for (long second = rest & (rest - 1); second != 0; second &= second - 1) {
+                        pairs[first * decorators + Long.numberOfTrailingZeros(second)].increment();
+                    }
+                }
+            }
+
+            window(timestamp / windowMillis).add(costCents, count);
+            top.offer(decoratorIds, count, hash, sketch.add(hash));
+        }
+
+        /**
+         * The window with this number, replacing whichever older one held its slot. A
+         * window that has already been replaced by a newer one comes back as a throwaway,
+         * so a late order still counts in the totals.
+         */
+        private Window window(long number) {
+            int slot = (int) Math.floorMod(number, (long) windows.length());
+            Window window = windows.get(slot);
+            while (window == null || window.number < number) {
+                Window next = new Window(number);
+                if (windows.compareAndSet(slot, window, next)) {
+                    return next;
+                }
+                window = windows.get(slot);
+            }
+            return window.number == number ? window : new Window(number);
+        }
+
+        Map<String, Object> describe(long now, long windowMillis) {
+            long orderCount = orders.sum();
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("orders", orderCount);
+            description.put("revenue", Money.format(revenueCents.sum()));
+            description.put("average_decorators", orderCount == 0 ? 0.0 : (double) decoratorsOrdered.sum() / orderCount);
+
+            Map<String, Object> byDecorator = new LinkedHashMap<>();
+            for (int id = 0; id < decorators; id++) {
+                if (registry.isRegistered(id)) {
+                    Map<String, Object> decorator = new LinkedHashMap<>();
+                    decorator.put("orders", ordersWith[id].sum());
+                    decorator.put("quantity", quantity[id].sum());
+                    decorator.put("revenue", Money.format(revenueCentsBy[id].sum()));
+                    byDecorator.put(registry.nameOf(id), decorator);
+                }
+            }
+            description.put("decorators", byDecorator);
+            if (pairs != null) {
+                description.put("pairs", describePairs());
+            }
+            description.put("windows", describeWindows(now / windowMillis, windowMillis));
+
+            List<Map<String, Object>> recipes = new ArrayList<>();
+            for (Map.Entry<int[], Long> entry : top.snapshot()) {
+                Map<String, Object> recipe = new LinkedHashMap<>();
+                recipe.put("decorators", names(entry.getKey()));
+                recipe.put("orders", entry.getValue());
+                recipes.add(recipe);
+            }
+            description.put("top_recipes", recipes);
+            return description;
+        }
+
+        private List<Map<String, Object>> describePairs() {
+            List<Map<String, Object>> described = new ArrayList<>();
+            List<long[]> counted = new ArrayList<>();
+            for (int first = 0; first < decorators; first++) {
+                for (int second = first + 1; second < decorators; second++) {
+                    long together = pairs[first * decorators + second].sum();
+                    if (together > 0) {
+                        counted.add(new long[] {first, second, together});
+                    }
+                }
+            }
+            counted.sort((a, b) -> Long.compare(b[2], a[2]));
+            for (long[] pair : counted) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("decorators", names(new int[] {(int) pair[0], (int) pair[1]}));
+                entry.put("orders", pair[2]);
+                described.add(entry);
+            }
+            return described;
+        }
+
+        private List<Map<String, Object>> describeWindows(long current, long windowMillis) {
+            List<Map<String, Object>> described = new ArrayList<>();
+            for (long number = current - windows.length() + 1; number <= current; number++) {
+                Window window = windows.get((int) Math.floorMod(number, (long) windows.length()));
+                if (window == null || window.number != number) {
+                    continue;
+                }
+                long windowOrders = window.orders.sum();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("start", Instant.ofEpochMilli(number * windowMillis).toString());
+                entry.put("orders", windowOrders);
+                entry.put("revenue", Money.format(window.revenueCents.sum()));
+                entry.put("average_decorators", windowOrders == 0 ? 0.0 : (double) window.decorators.sum() / windowOrders);
+                described.add(entry);
+            }
+            return described;
+        }
+
+        private List<String> names(int[] decoratorIds) {
+            List<String> names = new ArrayList<>(decoratorIds.length);
+            for (int id : decoratorIds) {
+                names.add(registry.isRegistered(id) ? registry.nameOf(id) : "#" + id);
+            }
+            return names;
+        }
+    }
+
+    /**
+     * One tumbling window's totals. Windows are numbered from the epoch.
+     */
+    private static final class Window {
+        final long number;
+        final LongAdder orders = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+        final LongAdder decorators = new LongAdder();
+
+        Window(long number) {
+            this.number = number;
+        }
+
+        void add(long costCents, int decoratorCount) {
+            orders.increment();
+            revenueCents.add(costCents);
+            decorators.add(decoratorCount);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.decorator.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most ordered recipes of one product, by their count-min estimates. Only a recipe
+ * whose estimate beats the current k-th place takes the lock, and only if it's free:
+ * an update that would wait is skipped instead, as the next order of a popular recipe
+ * will make it anyway.
+ */
+final class TopRecipes {
+    private final int k;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Recipe, Long> estimates = new HashMap<>();
+    // The estimate a recipe must beat to get in once the list is full
+    private volatile long threshold;
+
+    TopRecipes(int k) {
+        this.k = k;
+    }
+
+    void offer(int[] decoratorIds, int count, int hash, long estimate) {
+        if (estimate <= threshold || !lock.tryLock()) {
+            return;
+        }
+        try {
+            Recipe probe = new Recipe(decoratorIds, count, hash);
+            if (estimates.containsKey(probe)) {
+                estimates.put(probe, estimate);
+            } else {
+                estimates.put(probe.copy(), estimate);
+            }
+            if (estimates.size() > k) {
+                estimates.remove(lowest());
+            }
+            threshold = estimates.size() < k ? 0 : estimates.get(lowest());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Recipe lowest() {
+        Recipe lowest = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<Recipe, Long> entry : estimates.entrySet()) {
+            if (entry.getValue() < min) {
+                min = entry.getValue();
+                lowest = entry.getKey();
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * The recipes' decorator ids and estimates, most ordered first.
+     */
+    List<Map.Entry<int[], Long>> snapshot() {
+        List<Map.Entry<int[], Long>> entries = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Map.Entry<Recipe, Long> entry : estimates.entrySet()) {
+                entries.add(new java.util.AbstractMap.SimpleImmutableEntry<>(entry.getKey().decoratorIds, entry.getValue()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return entries;
+    }
+
+    /**
+     * The decorator ids of a recipe, as a map key. Probes wrap the caller's array; only
+     * recipes that enter the list are copied.
+     */
+    private static final class Recipe {
+        final int[] decoratorIds;
+        final int count;
+        final int hash;
+
+        Recipe(int[] decoratorIds, int count, int hash) {
+            this.decoratorIds = decoratorIds;
+            this.count = count;
+            this.hash = hash;
+        }
+
+        Recipe copy() {
+            return new Recipe(Arrays.copyOf(decoratorIds, count), count, hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Recipe)) {
+                return false;
+            }
+            Recipe other = (Recipe) o;
+            if (hash != other.hash || count != other.count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (decoratorIds[i] != other.decoratorIds[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
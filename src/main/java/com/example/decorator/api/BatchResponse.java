@@ -0,0 +1,56 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The response body for /api/batch: each order's result, in order, and the total. All
+ * of a batch is priced from the same price version.
+ */
+public final class BatchResponse extends JsonSerializable.Base {
+    private final List<RecipeResponse> results;
+    private final String total;
+    private final long priceVersion;
+
+    public BatchResponse(List<RecipeResponse> results, String total, long priceVersion) {
+        this.results = results;
+        this.total = total;
+        this.priceVersion = priceVersion;
+    }
+
+    public List<RecipeResponse> getResults() {
+        return results;
+    }
+
+    public String getTotal() {
+        return total;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("results");
+        for (RecipeResponse result : results) {
+            result.writeTo(generator);
+        }
+        generator.writeEndArray();
+        generator.writeStringField("total", total);
+        generator.writeNumberField("price_version", priceVersion);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The request body for /api/text/bulk: one text recipe and either many texts or one
+ * large text to format with it. The recipe's fields are checked as strictly as in an
+ * order (see {@link OrderCodec}): instead of coercing, a field of the wrong type sets
+ * {@link #getError}.
+ */
+public final class BulkTextRequest {
+    private List<String> decorators;
+
+    private int encryptShift = Order.DEFAULT_ENCRYPT_SHIFT;
+
+    @JsonProperty("locale")
+    private String locale;
+
+    @JsonProperty("texts")
+    private List<String> texts;
+
+    @JsonProperty("text")
+    private String text;
+
+    private String error;
+
+    @JsonProperty("decorators")
+    void setDecorators(JsonNode value) {
+        decorators = null;
+        if (value.isNull()) {
+            return;
+        }
+        if (!value.isArray()) {
+            error = "decorators must be an array of names";
+            return;
+        }
+        decorators = new ArrayList<>(value.size());
+        for (JsonNode name : value) {
+            if (!name.isTextual()) {
+                error = "decorators must be an array of names";
+                return;
+            }
+            decorators.add(name.textValue());
+        }
+    }
+
+    @JsonProperty("encrypt_shift")
+    void setEncryptShift(JsonNode value) {
+        if (value.isInt()) {
+            encryptShift = value.intValue();
+        } else {
+            error = "encrypt_shift must be an integer";
+        }
+    }
+
+    public List<String> getDecorators() {
+        return decorators;
+    }
+
+    public int getEncryptShift() {
+        return encryptShift;
+    }
+
+    /**
+     * The language tag whose case rules apply, or null for the root locale's.
+     */
+    public String getLocale() {
+        return locale;
+    }
+
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Why the request can't be served as sent, or null.
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The response body for /api/text/bulk: the formatted texts, in order, what each cost
+ * and the total.
+ */
+public final class BulkTextResponse extends JsonSerializable.Base {
+    private final List<String> contents;
+    private final String cost;
+    private final String total;
+    private final long priceVersion;
+
+    public BulkTextResponse(List<String> contents, String cost, String total, long priceVersion) {
+        this.contents = contents;
+        this.cost = cost;
+        this.total = total;
+        this.priceVersion = priceVersion;
+    }
+
+    public List<String> getContents() {
+        return contents;
+    }
+
+    public String getCost() {
+        return cost;
+    }
+
+    public String getTotal() {
+        return total;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("contents");
+        for (String content : contents) {
+            generator.writeString(content);
+        }
+        generator.writeEndArray();
+        generator.writeStringField("cost", cost);
+        generator.writeStringField("total", total);
+        generator.writeNumberField("price_version", priceVersion);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+}
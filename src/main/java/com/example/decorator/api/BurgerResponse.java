@@ -0,0 +1,36 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public final class BurgerResponse extends RecipeResponse {
+    private final String description;
+    private final String sentence;
+
+    public BurgerResponse(String description, String cost, long priceVersion, String sentence) {
+        super(cost, priceVersion);
+        this.description = description;
+        this.sentence = sentence;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getSentence() {
+        return sentence;
+    }
+
+    @Override
+    public BurgerResponse repriced(String cost, long priceVersion) {
+        return new BurgerResponse(description, cost, priceVersion, sentence);
+    }
+
+    @Override
+    protected void writeFields(JsonGenerator generator) throws IOException {
+        generator.writeStringField("description", description);
+        writeCost(generator);
+        generator.writeStringField("sentence", sentence);
+    }
+}
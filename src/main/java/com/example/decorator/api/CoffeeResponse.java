@@ -0,0 +1,29 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public final class CoffeeResponse extends RecipeResponse {
+    private final String description;
+
+    public CoffeeResponse(String description, String cost, long priceVersion) {
+        super(cost, priceVersion);
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public CoffeeResponse repriced(String cost, long priceVersion) {
+        return new CoffeeResponse(description, cost, priceVersion);
+    }
+
+    @Override
+    protected void writeFields(JsonGenerator generator) throws IOException {
+        generator.writeStringField("description", description);
+        writeCost(generator);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.decorator.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * An order that is well-formed JSON but can't be evaluated, e.g. a string where the
+ * encryption shift should be. Answered with 400 Bad Request.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidOrderException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public InvalidOrderException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.Locale;
+
+/**
+ * A decoded order, with its decorators already resolved to registry ids. The type
+ * parameter is the product's interface, e.g. {@code Order<Coffee>}, and tells the
+ * deserializer which registry to resolve against; an {@code Order<?>} names its
+ * product in a "product" field instead.
+ */
+@JsonDeserialize(using = OrderDeserializer.class)
+public final class Order<T> {
+    public static final String DEFAULT_TEXT = "Hello, World!";
+    public static final int DEFAULT_ENCRYPT_SHIFT = 3;
+
+    private final String product;
+    private final int[] decoratorIds;
+    private final String text;
+    private final int encryptShift;
+    private final Locale locale;
+
+    Order(String product, int[] decoratorIds, String text, int encryptShift, Locale locale) {
+        this.product = product;
+        this.decoratorIds = decoratorIds;
+        this.text = text;
+        this.encryptShift = encryptShift;
+        this.locale = locale;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    /**
+     * The ids of the known decorators, in order; unknown names are left out.
+     */
+    public int[] getDecoratorIds() {
+        return decoratorIds;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getEncryptShift() {
+        return encryptShift;
+    }
+
+    /**
+     * The locale whose case rules apply to the text, already reduced to a
+     * {@link com.example.decorator.text.CaseMapper#caseLocale case locale}; ROOT by default.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+}
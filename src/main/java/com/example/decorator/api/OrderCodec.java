@@ -0,0 +1,164 @@
+package com.example.decorator.api;
+
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.text.CaseMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Decodes orders token by token, resolving decorator names to registry ids as they
+ * are read instead of binding them to a Map and a List first.
+ */
+@Component
+public class OrderCodec {
+    private static final int[] NO_IDS = new int[0];
+
+    private final DecoratorRegistries registries;
+    private final int maxChainLength;
+
+    public OrderCodec(DecoratorRegistries registries, @Value("${decorator.max-chain-length}") int maxChainLength) {
+        this.registries = registries;
+        this.maxChainLength = maxChainLength;
+    }
+
+    public DecoratorRegistries getRegistries() {
+        return registries;
+    }
+
+    /**
+     * Reads the order object the parser is at, up to and including its end. With a
+     * registry, the product is known and any "product" field is ignored; without one,
+     * the product is read from that field, which may come after the decorators.
+     *
+     * @throws InvalidOrderException if the order can't be evaluated, once the whole
+     *                               object has been read, so the parser can carry on
+     */
+    public <T> Order<T> read(JsonParser parser, DecoratorRegistry<T> registry) throws IOException {
+        DecoratorRegistry<?> resolver = registry;
+        String product = registry == null ? null : registry.getProduct();
+        String text = Order.DEFAULT_TEXT;
+        int encryptShift = Order.DEFAULT_ENCRYPT_SHIFT;
+        Locale locale = Locale.ROOT;
+        int[] ids = NO_IDS;
+        int idCount = 0;
+        // Names read before the product is known
+        String[] names = null;
+        int nameCount = 0;
+        String error = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "product":
+                    if (registry == null) {
+                        product = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                        resolver = registries.forProduct(product);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "text":
+                    if (value == JsonToken.VALUE_STRING) {
+                        text = parser.getText();
+                    } else if (value == JsonToken.VALUE_NULL) {
+                        text = null;
+                    } else {
+                        parser.skipChildren();
+                        error = "text must be a string";
+                    }
+                    break;
+                case "encrypt_shift":
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                        encryptShift = parser.getIntValue();
+                    } else {
+                        parser.skipChildren();
+                        error = "encrypt_shift must be an integer";
+                    }
+                    break;
+                case "locale":
+                    if (value == JsonToken.VALUE_STRING) {
+                        try {
+                            locale = CaseMapper.parse(parser.getText());
+                        } catch (IllegalArgumentException e) {
+                            error = "locale must be a language tag, e.g. \"tr-TR\"";
+                        }
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        parser.skipChildren();
+                        error = "locale must be a language tag, e.g. \"tr-TR\"";
+                    }
+                    break;
+                case "decorators":
+                    ids = NO_IDS;
+                    idCount = 0;
+                    nameCount = 0;
+                    if (value == JsonToken.VALUE_NULL) {
+                        break;
+                    }
+                    if (value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        error = "decorators must be an array of names";
+                        break;
+                    }
+                    int count = 0;
+                    for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY;
+                         element = parser.nextToken()) {
+                        if (element != JsonToken.VALUE_STRING) {
+                            parser.skipChildren();
+                            error = "decorators must be an array of names";
+                        } else if (++count > maxChainLength) {
+                            error = "At most " + maxChainLength + " decorators are allowed per order";
+                        } else if (error != null) {
+                            continue;
+                        } else if (resolver != null) {
+                            // Unknown decorators are ignored
+                            int id = resolver.resolve(parser.getText());
+                            if (id >= 0) {
+                                if (idCount == ids.length) {
+                                    ids = Arrays.copyOf(ids, Math.max(8, idCount * 2));
+                                }
+                                ids[idCount++] = id;
+                            }
+                        } else {
+                            if (names == null || nameCount == names.length) {
+                                names = names == null ? new String[8] : Arrays.copyOf(names, nameCount * 2);
+                            }
+                            names[nameCount++] = parser.getText();
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        if (error != null) {
+            throw new InvalidOrderException(error);
+        }
+        if (resolver == null) {
+            throw new InvalidOrderException("Each order needs a product of coffee, burger or text");
+        }
+        if (text == null && resolver == registries.text()) {
+            // Only a text order uses it, and most text decorators can't transform null
+            throw new InvalidOrderException("text must be a string");
+        }
+        for (int i = 0; i < nameCount; i++) {
+            int id = resolver.resolve(names[i]);
+            if (id >= 0) {
+                if (idCount == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(8, idCount * 2));
+                }
+                ids[idCount++] = id;
+            }
+        }
+        return new Order<>(product, idCount == ids.length ? ids : Arrays.copyOf(ids, idCount), text, encryptShift, locale);
+    }
+}
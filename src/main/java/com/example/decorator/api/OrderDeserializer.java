@@ -0,0 +1,59 @@
+package com.example.decorator.api;
+
+import com.example.decorator.registry.DecoratorRegistry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+/**
+ * Reads an {@link Order} through the {@link OrderCodec}, picking the registry from the
+ * declared type, e.g. {@code @RequestBody Order<Coffee>}. Instantiated by Spring, which
+ * Jackson defers to for the codec.
+ */
+public class OrderDeserializer extends JsonDeserializer<Order<?>> implements ContextualDeserializer {
+    private final OrderCodec codec;
+    private final DecoratorRegistry<?> registry;
+
+    @Autowired
+    public OrderDeserializer(OrderCodec codec) {
+        this(codec, null);
+    }
+
+    private OrderDeserializer(OrderCodec codec, DecoratorRegistry<?> registry) {
+        this.codec = codec;
+        this.registry = registry;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) {
+        JavaType type = context.getContextualType();
+        if (type == null && property != null) {
+            type = property.getType();
+        }
+        JavaType productType = type == null ? null : type.containedType(0);
+        DecoratorRegistry<?> registry = productType == null
+            ? null : codec.getRegistries().forType(productType.getRawClass());
+        return registry == this.registry ? this : new OrderDeserializer(codec, registry);
+    }
+
+    @Override
+    public Order<?> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new InvalidOrderException("Each order must be a JSON object");
+        }
+        return codec.read(parser, registry);
+    }
+
+    @Override
+    public Order<?> getNullValue(DeserializationContext context) {
+        throw new InvalidOrderException("Each order must be a JSON object");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * The response body for one evaluated recipe. Writes its own fields, so Jackson
+ * serializes it without introspecting getters or building a Map. The price version
+ * says which {@link com.example.decorator.pricing.PriceTable} the cost came from.
+ */
+public abstract class RecipeResponse extends JsonSerializable.Base {
+    private final String cost;
+    private final long priceVersion;
+
+    protected RecipeResponse(String cost, long priceVersion) {
+        this.cost = cost;
+        this.priceVersion = priceVersion;
+    }
+
+    public String getCost() {
+        return cost;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * The same response at another price, e.g. after the prices changed.
+     */
+    public abstract RecipeResponse repriced(String cost, long priceVersion);
+
+    /**
+     * Writes the "cost" and "price_version" fields.
+     */
+    protected void writeCost(JsonGenerator generator) throws IOException {
+        generator.writeStringField("cost", cost);
+        generator.writeNumberField("price_version", priceVersion);
+    }
+
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeFields(generator);
+        generator.writeEndObject();
+    }
+
+    protected abstract void writeFields(JsonGenerator generator) throws IOException;
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        writeTo(generator);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        writeTo(generator);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The request body for editing an order session: the decorator to add and where, or
+ * where to move one to.
+ */
+public final class SessionEdit {
+    @JsonProperty("decorator")
+    private String decorator;
+
+    @JsonProperty("position")
+    private Integer position;
+
+    @JsonProperty("to")
+    private Integer to;
+
+    public String getDecorator() {
+        return decorator;
+    }
+
+    /**
+     * Where to insert the decorator, or null to add it at the end.
+     */
+    public Integer getPosition() {
+        return position;
+    }
+
+    public Integer getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The response body for /api/sessions: the session, its decorators in order, and the
+ * fields of /api/coffee or /api/burger's response for the order as it stands.
+ */
+public final class SessionResponse extends JsonSerializable.Base {
+    private final String session;
+    private final String product;
+    private final List<String> decorators;
+    private final RecipeResponse recipe;
+
+    public SessionResponse(String session, String product, List<String> decorators, RecipeResponse recipe) {
+        this.session = session;
+        this.product = product;
+        this.decorators = decorators;
+        this.recipe = recipe;
+    }
+
+    public String getSession() {
+        return session;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public List<String> getDecorators() {
+        return decorators;
+    }
+
+    public RecipeResponse getRecipe() {
+        return recipe;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("session", session);
+        generator.writeStringField("product", product);
+        generator.writeArrayFieldStart("decorators");
+        for (String decorator : decorators) {
+            generator.writeString(decorator);
+        }
+        generator.writeEndArray();
+        recipe.writeFields(generator);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+}
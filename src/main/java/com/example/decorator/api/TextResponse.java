@@ -0,0 +1,29 @@
+package com.example.decorator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+public final class TextResponse extends RecipeResponse {
+    private final String content;
+
+    public TextResponse(String content, String cost, long priceVersion) {
+        super(cost, priceVersion);
+        this.content = content;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public TextResponse repriced(String cost, long priceVersion) {
+        return new TextResponse(content, cost, priceVersion);
+    }
+
+    @Override
+    protected void writeFields(JsonGenerator generator) throws IOException {
+        generator.writeStringField("content", content);
+        writeCost(generator);
+    }
+}
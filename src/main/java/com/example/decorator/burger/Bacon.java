@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "bacon", id = 3)
 public class Bacon extends BurgerDecorator {
     public Bacon(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Bacon";
+    public String getAddedDescription() {
+        return ", Bacon";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 1.50;
+    public long getAddedCostCents() {
+        return 150;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "crispy bacon" : prev + ", crispy bacon";
+    public String getAddedSentencePart() {
+        return "crispy bacon";
     }
 }
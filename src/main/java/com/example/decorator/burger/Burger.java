@@ -3,5 +3,6 @@ package com.example.decorator.burger;
 public interface Burger {
     String getDescription();
     double getCost();
+    long getCostCents();
     String getSentencePart();
 }
@@ -7,12 +7,49 @@ public abstract class BurgerDecorator implements Burger {
         this.burger = burger;
     }
 
+    // Evaluated iteratively through the compiled form, so arbitrarily deep chains
+    // neither grow the stack nor copy the description once per layer
+
+    @Override
+    public String getDescription() {
+        return CompiledBurger.compile(this).getDescription();
+    }
+
     @Override
-    public abstract String getDescription();
+    public double getCost() {
+        return CompiledBurger.compile(this).getCost();
+    }
 
     @Override
-    public abstract double getCost();
+    public long getCostCents() {
+        return CompiledBurger.compile(this).getCostCents();
+    }
 
     @Override
-    public abstract String getSentencePart();
+    public String getSentencePart() {
+        return CompiledBurger.compile(this).getSentencePart();
+    }
+
+    /**
+     * The text this layer appends to the wrapped description, e.g. ", Cheese".
+     */
+    public abstract String getAddedDescription();
+
+    /**
+     * The amount this layer adds to the wrapped cost. Derived from the exact cents,
+     * which gives the same double as writing the literal, e.g. 50 / 100.0 == 0.50.
+     */
+    public double getAddedCost() {
+        return getAddedCostCents() / 100.0;
+    }
+
+    /**
+     * The amount this layer adds to the wrapped cost, in cents.
+     */
+    public abstract long getAddedCostCents();
+
+    /**
+     * The phrase this layer contributes to the sentence, e.g. "a slice of cheese".
+     */
+    public abstract String getAddedSentencePart();
 }
@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "cheese", id = 0)
 public class Cheese extends BurgerDecorator {
     public Cheese(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Cheese";
+    public String getAddedDescription() {
+        return ", Cheese";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.75;
+    public long getAddedCostCents() {
+        return 75;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "a slice of cheese" : prev + ", a slice of cheese";
+    public String getAddedSentencePart() {
+        return "a slice of cheese";
     }
 }
@@ -0,0 +1,113 @@
+package com.example.decorator.burger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flattened, immutable form of a decorator chain. The description, cost and sentence
+ * part are computed once, in single buffers, instead of on every call through each layer.
+ */
+public final class CompiledBurger implements Burger {
+    private final String description;
+    private final double cost;
+    private final long costCents;
+    private final String sentencePart;
+
+    private CompiledBurger(String description, double cost, long costCents, String sentencePart) {
+        this.description = description;
+        this.cost = cost;
+        this.costCents = costCents;
+        this.sentencePart = sentencePart;
+    }
+
+    public static CompiledBurger compile(Burger burger) {
+        if (burger instanceof CompiledBurger) {
+            return (CompiledBurger) burger;
+        }
+        return compile(burger, null, null);
+    }
+
+    /**
+     * Compiles a chain that wraps {@code prefix}, whose compiled form is already known,
+     * walking only the layers outside it.
+     */
+    public static CompiledBurger compile(Burger burger, Burger prefix, CompiledBurger compiledPrefix) {
+        if (burger == prefix) {
+            return compiledPrefix;
+        }
+
+        // Repeated layers are unwrapped into the decorator and its count
+        List<BurgerDecorator> layers = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        Burger base = burger;
+        while (base != prefix && base instanceof BurgerDecorator) {
+            BurgerDecorator layer = (BurgerDecorator) base;
+            base = layer.burger;
+            if (layer instanceof RepeatedBurger) {
+                layers.add(((RepeatedBurger) layer).getLayer());
+                counts.add(((RepeatedBurger) layer).getCount());
+            } else {
+                layers.add(layer);
+                counts.add(1);
+            }
+        }
+
+        if (base == prefix) {
+            base = compiledPrefix;
+        }
+        String baseDescription = base.getDescription();
+        String baseSentencePart = base.getSentencePart();
+        int descriptionLength = baseDescription.length();
+        int sentenceLength = baseSentencePart.length();
+        for (int i = 0; i < layers.size(); i++) {
+            BurgerDecorator layer = layers.get(i);
+            descriptionLength += layer.getAddedDescription().length() * counts.get(i);
+            sentenceLength += (layer.getAddedSentencePart().length() + 2) * counts.get(i);
+        }
+
+        // Innermost layer first, so the cost is summed in the same order as the recursive
+        // form. A repeated layer is added once per repeat so the double rounds the same way.
+        StringBuilder description = new StringBuilder(descriptionLength).append(baseDescription);
+        StringBuilder sentencePart = new StringBuilder(sentenceLength).append(baseSentencePart);
+        double cost = base.getCost();
+        long costCents = base.getCostCents();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            BurgerDecorator layer = layers.get(i);
+            int count = counts.get(i);
+            String addedDescription = layer.getAddedDescription();
+            String addedSentencePart = layer.getAddedSentencePart();
+            double addedCost = layer.getAddedCost();
+            for (int n = 0; n < count; n++) {
+                description.append(addedDescription);
+                cost += addedCost;
+                if (sentencePart.length() > 0) {
+                    sentencePart.append(", ");
+                }
+                sentencePart.append(addedSentencePart);
+            }
+            costCents += layer.getAddedCostCents() * count;
+        }
+
+        return new CompiledBurger(description.toString(), cost, costCents, sentencePart.toString());
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public long getCostCents() {
+        return costCents;
+    }
+
+    @Override
+    public String getSentencePart() {
+        return sentencePart;
+    }
+}
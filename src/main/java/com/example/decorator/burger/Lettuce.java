@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "lettuce", id = 1)
 public class Lettuce extends BurgerDecorator {
     public Lettuce(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Lettuce";
+    public String getAddedDescription() {
+        return ", Lettuce";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.30;
+    public long getAddedCostCents() {
+        return 30;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "a leaf of lettuce" : prev + ", a leaf of lettuce";
+    public String getAddedSentencePart() {
+        return "a leaf of lettuce";
     }
 }
@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "onions", id = 5)
 public class Onions extends BurgerDecorator {
     public Onions(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Onions";
+    public String getAddedDescription() {
+        return ", Onions";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.35;
+    public long getAddedCostCents() {
+        return 35;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "diced onions" : prev + ", diced onions";
+    public String getAddedSentencePart() {
+        return "diced onions";
     }
 }
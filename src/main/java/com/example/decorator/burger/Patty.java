@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "patty", id = 7)
 public class Patty extends BurgerDecorator {
     public Patty(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Patty";
+    public String getAddedDescription() {
+        return ", Patty";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 2.50;
+    public long getAddedCostCents() {
+        return 250;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "an extra patty" : prev + ", an extra patty";
+    public String getAddedSentencePart() {
+        return "an extra patty";
     }
 }
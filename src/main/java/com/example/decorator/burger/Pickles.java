@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "pickles", id = 4)
 public class Pickles extends BurgerDecorator {
     public Pickles(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Pickles";
+    public String getAddedDescription() {
+        return ", Pickles";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.25;
+    public long getAddedCostCents() {
+        return 25;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "some pickles" : prev + ", some pickles";
+    public String getAddedSentencePart() {
+        return "some pickles";
     }
 }
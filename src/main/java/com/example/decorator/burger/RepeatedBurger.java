@@ -0,0 +1,66 @@
+package com.example.decorator.burger;
+
+/**
+ * One layer standing for the same decorator applied several times in a row, e.g.
+ * cheese three times. It renders and costs exactly what the separate layers would,
+ * without allocating and walking each of them.
+ */
+public final class RepeatedBurger extends BurgerDecorator {
+    private final BurgerDecorator layer;
+    private final int count;
+
+    private RepeatedBurger(BurgerDecorator layer, int count) {
+        super(layer.burger);
+        this.layer = layer;
+        this.count = count;
+    }
+
+    /**
+     * The layer repeated {@code count} times over what it wraps.
+     */
+    public static Burger of(Burger layer, int count) {
+        return count == 1 ? layer : new RepeatedBurger((BurgerDecorator) layer, count);
+    }
+
+    /**
+     * The decorator being repeated.
+     */
+    public BurgerDecorator getLayer() {
+        return layer;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String getAddedDescription() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            description.append(layer.getAddedDescription());
+        }
+        return description.toString();
+    }
+
+    @Override
+    public long getAddedCostCents() {
+        return layer.getAddedCostCents() * count;
+    }
+
+    @Override
+    public String getAddedSentencePart() {
+        StringBuilder sentencePart = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sentencePart.append(", ");
+            }
+            sentencePart.append(layer.getAddedSentencePart());
+        }
+        return sentencePart.toString();
+    }
+
+    @Override
+    public String toString() {
+        return layer.getClass().getSimpleName() + " x" + count;
+    }
+}
@@ -11,6 +11,11 @@ public class SimpleBurger implements Burger {
         return 5.00;
     }
 
+    @Override
+    public long getCostCents() {
+        return 500;
+    }
+
     @Override
     public String getSentencePart() {
         return "";
@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "special_sauce", id = 6)
 public class SpecialSauce extends BurgerDecorator {
     public SpecialSauce(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Special Sauce";
+    public String getAddedDescription() {
+        return ", Special Sauce";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.50;
+    public long getAddedCostCents() {
+        return 50;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "special sauce" : prev + ", special sauce";
+    public String getAddedSentencePart() {
+        return "special sauce";
     }
 }
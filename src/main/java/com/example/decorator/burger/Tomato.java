@@ -1,23 +1,25 @@
 package com.example.decorator.burger;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "tomato", id = 2)
 public class Tomato extends BurgerDecorator {
     public Tomato(Burger burger) {
         super(burger);
     }
 
     @Override
-    public String getDescription() {
-        return burger.getDescription() + ", Tomato";
+    public String getAddedDescription() {
+        return ", Tomato";
     }
 
     @Override
-    public double getCost() {
-        return burger.getCost() + 0.40;
+    public long getAddedCostCents() {
+        return 40;
     }
 
     @Override
-    public String getSentencePart() {
-        String prev = burger.getSentencePart();
-        return prev.isEmpty() ? "a slice of tomato" : prev + ", a slice of tomato";
+    public String getAddedSentencePart() {
+        return "a slice of tomato";
     }
 }
@@ -0,0 +1,337 @@
+package com.example.decorator.cache;
+
+import com.example.decorator.registry.DecoratorRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hash-consed decorator chains of one product family. Every distinct prefix of the
+ * chains asked for is built once, as a {@link Node} whose decorator wraps its parent
+ * node's, so chains that start the same share their inner layers. Nodes are found by
+ * parent node, decorator id, repeat count and argument in a bounded LRU table; a
+ * prefix that has been evicted is simply built again.
+ *
+ * <p>A node is evicted along with every longer prefix built on it. Those could no longer
+ * be found, as they hang off the evicted node rather than the one built in its place,
+ * and they would keep it reachable. So every node in the table has its ancestors there
+ * too, and the table holds no more than its maximum number of nodes.
+ *
+ * <p>A node also keeps its compiled form once one is asked for. Compiling a new chain
+ * that extends a compiled prefix only walks the layers past that prefix.
+ */
+public class ChainInterner<T, C> {
+
+    @FunctionalInterface
+    public interface Compiler<T, C> {
+        /**
+         * Compiles {@code chain}, which wraps {@code prefix}, already compiled to
+         * {@code compiledPrefix}. The prefix is null for the base itself.
+         */
+        C compile(T chain, T prefix, C compiledPrefix);
+    }
+
+    /**
+     * Told how long compiling the layers past a compiled prefix took, when a compile is
+     * timed.
+     */
+    @FunctionalInterface
+    public interface StageTimer {
+        /**
+         * @param ids the decorator of each compiled layer, innermost first, one per
+         *            repeated run
+         */
+        void record(int[] ids, long nanos);
+    }
+
+    private final String name;
+    private final DecoratorRegistry<T> registry;
+    private final Compiler<T, C> compiler;
+    private final int maxEntries;
+    private final Node<T, C> root;
+
+    // Access-ordered, so iteration starts at the least recently used node. A lookup
+    // touches a chain's prefixes innermost first, so a node's descendants are mostly
+    // used more recently than it, and evicting them with it costs little.
+    private final LinkedHashMap<Edge, Node<T, C>> nodes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ChainInterner(String name, DecoratorRegistry<T> registry, T base, Compiler<T, C> compiler, int maxEntries) {
+        this.name = name;
+        this.registry = registry;
+        this.compiler = compiler;
+        this.maxEntries = maxEntries;
+        this.root = new Node<>(null, null, base);
+        root.compiled = compiler.compile(base, null, null);
+        root.interned = true;
+    }
+
+    /**
+     * The shared node for the base wrapped in the decorators, innermost first. The
+     * argument is kept only for decorators that take one.
+     */
+    public Node<T, C> intern(int[] ids, int argument) {
+        Node<T, C> node = root;
+        int i = 0;
+        int found = 0;
+        synchronized (nodes) {
+            while (i < ids.length) {
+                int run = registry.runLength(ids, i);
+                Node<T, C> child = nodes.get(edge(node, ids[i], run, argument));
+                if (child == null) {
+                    break;
+                }
+                node = child;
+                i += run;
+                found++;
+            }
+        }
+        hits.add(found);
+        if (i == ids.length) {
+            return node;
+        }
+
+        List<Node<T, C>> created = new ArrayList<>();
+        while (i < ids.length) {
+            int run = registry.runLength(ids, i);
+            Edge edge = edge(node, ids[i], run, argument);
+            node = new Node<>(node, edge, registry.wrapRun(ids[i], run, node.chain, argument));
+            created.add(node);
+            i += run;
+        }
+        misses.add(created.size());
+        if (maxEntries <= 0) {
+            return node;
+        }
+
+        synchronized (nodes) {
+            // Another thread may have built some of the same prefixes meanwhile. Its nodes
+            // are replaced, which is harmless: both render the same.
+            for (Node<T, C> each : created) {
+                put(each);
+            }
+            evictEldest();
+        }
+        return node;
+    }
+
+    /**
+     * The shared node for the parent wrapped in one more layer: the decorator applied
+     * {@code count} times in a row, as counted by {@link DecoratorRegistry#runLength}.
+     * Lets a caller that holds a chain's nodes extend any of them without walking the
+     * table from the root.
+     */
+    public Node<T, C> child(Node<T, C> parent, int id, int count, int argument) {
+        Edge edge = edge(parent, id, count, argument);
+        Node<T, C> child;
+        synchronized (nodes) {
+            child = nodes.get(edge);
+        }
+        if (child != null) {
+            hits.increment();
+            return child;
+        }
+        misses.increment();
+        child = new Node<>(parent, edge, registry.wrapRun(id, count, parent.chain, argument));
+        if (maxEntries > 0) {
+            synchronized (nodes) {
+                put(child);
+                evictEldest();
+            }
+        }
+        return child;
+    }
+
+    /**
+     * The node of the base itself, with no decorators.
+     */
+    public Node<T, C> getRoot() {
+        return root;
+    }
+
+    /**
+     * Adds the node to the table, unless its parent has been evicted meanwhile, and
+     * evicts the node it replaces with that one's descendants. Called with the table's
+     * lock held.
+     */
+    private void put(Node<T, C> node) {
+        Node<T, C> parent = node.parent;
+        if (!parent.interned) {
+            return;
+        }
+        Node<T, C> replaced = nodes.put(node.edge, node);
+        if (replaced != null) {
+            evict(replaced);
+        }
+        node.interned = true;
+        if (parent.children == null) {
+            parent.children = new HashSet<>();
+        }
+        parent.children.add(node);
+    }
+
+    private void evictEldest() {
+        while (nodes.size() > maxEntries) {
+            evict(nodes.values().iterator().next());
+        }
+    }
+
+    /**
+     * Removes the node and its descendants from the table. Called with the table's lock
+     * held.
+     */
+    private void evict(Node<T, C> node) {
+        node.parent.children.remove(node);
+        // Chains can be deep, so the descendants are walked without recursion
+        Deque<Node<T, C>> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node<T, C> each = pending.pop();
+            each.interned = false;
+            // A replaced node is no longer under its edge
+            if (nodes.remove(each.edge, each)) {
+                evictions.increment();
+            }
+            if (each.children != null) {
+                pending.addAll(each.children);
+                each.children = null;
+            }
+        }
+    }
+
+    /**
+     * The compiled form of the interned chain.
+     */
+    public C compile(int[] ids, int argument) {
+        return compile(intern(ids, argument), null);
+    }
+
+    /**
+     * The compiled form of the interned chain, timing the compile if there is one to do.
+     */
+    public C compile(int[] ids, int argument, StageTimer timer) {
+        return compile(intern(ids, argument), timer);
+    }
+
+    /**
+     * The node's compiled form, compiled from its nearest compiled ancestor the first
+     * time. Threads that race to compile the same node get equal results.
+     */
+    public C compile(Node<T, C> node) {
+        return compile(node, null);
+    }
+
+    private C compile(Node<T, C> node, StageTimer timer) {
+        C compiled = node.compiled;
+        if (compiled != null) {
+            return compiled;
+        }
+        Node<T, C> prefix = node.parent;
+        int layers = 1;
+        while (prefix.compiled == null) {
+            prefix = prefix.parent;
+            layers++;
+        }
+        if (timer == null) {
+            compiled = compiler.compile(node.chain, prefix.chain, prefix.compiled);
+        } else {
+            long start = System.nanoTime();
+            compiled = compiler.compile(node.chain, prefix.chain, prefix.compiled);
+            long nanos = System.nanoTime() - start;
+            int[] ids = new int[layers];
+            Node<T, C> layer = node;
+            for (int i = layers - 1; i >= 0; i--) {
+                ids[i] = layer.edge.id;
+                layer = layer.parent;
+            }
+            timer.record(ids, nanos);
+        }
+        node.compiled = compiled;
+        return compiled;
+    }
+
+    private Edge edge(Node<T, C> parent, int id, int count, int argument) {
+        return new Edge(parent, id, count, registry.takesArgument(id) ? argument : 0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (nodes) {
+            stats.put("size", nodes.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * One interned prefix: its chain, whose decorator wraps the parent node's chain, and
+     * its compiled form once there is one.
+     */
+    public static final class Node<T, C> {
+        private final Node<T, C> parent;
+        private final Edge edge;
+        private final T chain;
+        private volatile C compiled;
+        // Whether the node is in the table, and its children that are; guarded by the table
+        private boolean interned;
+        private HashSet<Node<T, C>> children;
+
+        private Node(Node<T, C> parent, Edge edge, T chain) {
+            this.parent = parent;
+            this.edge = edge;
+            this.chain = chain;
+        }
+
+        public T getChain() {
+            return chain;
+        }
+    }
+
+    /**
+     * A layer over a particular parent node. Parents are compared by identity.
+     */
+    private static final class Edge {
+        private final Node<?, ?> parent;
+        private final int id;
+        private final int count;
+        private final int argument;
+        private final int hash;
+
+        Edge(Node<?, ?> parent, int id, int count, int argument) {
+            this.parent = parent;
+            this.id = id;
+            this.count = count;
+            this.argument = argument;
+            this.hash = ((System.identityHashCode(parent) * 31 + id) * 31 + count) * 31 + argument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Edge other = (Edge) o;
+            return parent == other.parent && id == other.id && count == other.count && argument == other.argument;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
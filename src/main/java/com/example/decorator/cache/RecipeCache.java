@@ -0,0 +1,114 @@
+package com.example.decorator.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of computed recipe responses. Entries are evicted once the cache
+ * holds more than {@code maxEntries} entries or, when a weigher is given, more than
+ * {@code maxWeight} in total. A value heavier than the whole budget is never cached.
+ */
+public class RecipeCache<V> {
+
+    @FunctionalInterface
+    public interface Weigher<V> {
+        long weigh(RecipeKey key, V value);
+    }
+
+    private final String name;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Weigher<V> weigher;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<RecipeKey, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RecipeCache(String name, int maxEntries) {
+        this(name, maxEntries, Long.MAX_VALUE, (key, value) -> 0);
+    }
+
+    public RecipeCache(String name, int maxEntries, long maxWeight, Weigher<V> weigher) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public V get(RecipeKey key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(RecipeKey key, V value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long entryWeight = weigher.weigh(key, value);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+
+        synchronized (entries) {
+            V previous = entries.put(key, value);
+            if (previous != null) {
+                weight -= weigher.weigh(key, previous);
+            }
+            weight += entryWeight;
+
+            Iterator<Map.Entry<RecipeKey, V>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries || weight > maxWeight) {
+                Map.Entry<RecipeKey, V> entry = eldest.next();
+                weight -= weigher.weigh(entry.getKey(), entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value, or computes and caches it. The loader runs outside the
+     * lock, so two threads missing on the same key may both compute it.
+     */
+    public V get(RecipeKey key, Function<RecipeKey, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            if (maxWeight != Long.MAX_VALUE) {
+                stats.put("weight", weight);
+            }
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
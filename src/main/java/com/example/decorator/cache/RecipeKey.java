@@ -0,0 +1,82 @@
+package com.example.decorator.cache;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Canonical identity of a recipe: the product, its resolved decorator ids in order,
+ * and for text the input, encryption shift and case locale.
+ */
+public final class RecipeKey {
+    private final String product;
+    private final int[] decoratorIds;
+    private final String text;
+    private final int shift;
+    private final Locale locale;
+    private final int hash;
+
+    private RecipeKey(String product, int[] decoratorIds, String text, int shift, Locale locale) {
+        this.product = product;
+        this.decoratorIds = decoratorIds;
+        this.text = text;
+        this.shift = shift;
+        this.locale = locale;
+
+        int h = product.hashCode();
+        h = 31 * h + Arrays.hashCode(decoratorIds);
+        h = 31 * h + (text == null ? 0 : text.hashCode());
+        h = 31 * h + shift;
+        h = 31 * h + locale.hashCode();
+        this.hash = h;
+    }
+
+    public static RecipeKey of(String product, int[] decoratorIds) {
+        return new RecipeKey(product, decoratorIds, null, 0, Locale.ROOT);
+    }
+
+    public static RecipeKey of(String product, int[] decoratorIds, String text, int shift, Locale locale) {
+        return new RecipeKey(product, decoratorIds, text, shift, locale);
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public int[] getDecoratorIds() {
+        return decoratorIds;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getShift() {
+        return shift;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecipeKey)) {
+            return false;
+        }
+        RecipeKey other = (RecipeKey) o;
+        return hash == other.hash
+            && shift == other.shift
+            && locale.equals(other.locale)
+            && product.equals(other.product)
+            && Arrays.equals(decoratorIds, other.decoratorIds)
+            && (text == null ? other.text == null : text.equals(other.text));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
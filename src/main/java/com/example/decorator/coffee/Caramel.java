@@ -1,17 +1,20 @@
 package com.example.decorator.coffee;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "caramel", id = 4)
 public class Caramel extends CoffeeDecorator {
     public Caramel(Coffee coffee) {
         super(coffee);
     }
 
     @Override
-    public String getDescription() {
-        return coffee.getDescription() + ", Caramel";
+    public String getAddedDescription() {
+        return ", Caramel";
     }
 
     @Override
-    public double getCost() {
-        return coffee.getCost() + 0.60;
+    public long getAddedCostCents() {
+        return 60;
     }
 }
@@ -3,4 +3,5 @@ package com.example.decorator.coffee;
 public interface Coffee {
     String getDescription();
     double getCost();
+    long getCostCents();
 }
@@ -7,9 +7,39 @@ public abstract class CoffeeDecorator implements Coffee {
         this.coffee = coffee;
     }
 
+    // Evaluated iteratively through the compiled form, so arbitrarily deep chains
+    // neither grow the stack nor copy the description once per layer
+
     @Override
-    public abstract String getDescription();
+    public String getDescription() {
+        return CompiledCoffee.compile(this).getDescription();
+    }
+
+    @Override
+    public double getCost() {
+        return CompiledCoffee.compile(this).getCost();
+    }
 
     @Override
-    public abstract double getCost();
+    public long getCostCents() {
+        return CompiledCoffee.compile(this).getCostCents();
+    }
+
+    /**
+     * The text this layer appends to the wrapped description, e.g. ", Milk".
+     */
+    public abstract String getAddedDescription();
+
+    /**
+     * The amount this layer adds to the wrapped cost. Derived from the exact cents,
+     * which gives the same double as writing the literal, e.g. 50 / 100.0 == 0.50.
+     */
+    public double getAddedCost() {
+        return getAddedCostCents() / 100.0;
+    }
+
+    /**
+     * The amount this layer adds to the wrapped cost, in cents.
+     */
+    public abstract long getAddedCostCents();
 }
@@ -0,0 +1,96 @@
+package com.example.decorator.coffee;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flattened, immutable form of a decorator chain. The description and cost are
+ * computed once, in a single buffer, instead of on every call through each layer.
+ */
+public final class CompiledCoffee implements Coffee {
+    private final String description;
+    private final double cost;
+    private final long costCents;
+
+    private CompiledCoffee(String description, double cost, long costCents) {
+        this.description = description;
+        this.cost = cost;
+        this.costCents = costCents;
+    }
+
+    public static CompiledCoffee compile(Coffee coffee) {
+        if (coffee instanceof CompiledCoffee) {
+            return (CompiledCoffee) coffee;
+        }
+        return compile(coffee, null, null);
+    }
+
+    /**
+     * Compiles a chain that wraps {@code prefix}, whose compiled form is already known,
+     * walking only the layers outside it.
+     */
+    public static CompiledCoffee compile(Coffee coffee, Coffee prefix, CompiledCoffee compiledPrefix) {
+        if (coffee == prefix) {
+            return compiledPrefix;
+        }
+
+        // Repeated layers are unwrapped into the decorator and its count
+        List<CoffeeDecorator> layers = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        Coffee base = coffee;
+        while (base != prefix && base instanceof CoffeeDecorator) {
+            CoffeeDecorator layer = (CoffeeDecorator) base;
+            base = layer.coffee;
+            if (layer instanceof RepeatedCoffee) {
+                layers.add(((RepeatedCoffee) layer).getLayer());
+                counts.add(((RepeatedCoffee) layer).getCount());
+            } else {
+                layers.add(layer);
+                counts.add(1);
+            }
+        }
+
+        if (base == prefix) {
+            base = compiledPrefix;
+        }
+        String baseDescription = base.getDescription();
+        int length = baseDescription.length();
+        for (int i = 0; i < layers.size(); i++) {
+            length += layers.get(i).getAddedDescription().length() * counts.get(i);
+        }
+
+        // Innermost layer first, so the cost is summed in the same order as the recursive
+        // form. A repeated layer is added once per repeat so the double rounds the same way.
+        StringBuilder description = new StringBuilder(length).append(baseDescription);
+        double cost = base.getCost();
+        long costCents = base.getCostCents();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            CoffeeDecorator layer = layers.get(i);
+            int count = counts.get(i);
+            String addedDescription = layer.getAddedDescription();
+            double addedCost = layer.getAddedCost();
+            for (int n = 0; n < count; n++) {
+                description.append(addedDescription);
+                cost += addedCost;
+            }
+            costCents += layer.getAddedCostCents() * count;
+        }
+
+        return new CompiledCoffee(description.toString(), cost, costCents);
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public long getCostCents() {
+        return costCents;
+    }
+}
@@ -1,17 +1,20 @@
 package com.example.decorator.coffee;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "milk", id = 0)
 public class Milk extends CoffeeDecorator {
     public Milk(Coffee coffee) {
         super(coffee);
     }
 
     @Override
-    public String getDescription() {
-        return coffee.getDescription() + ", Milk";
+    public String getAddedDescription() {
+        return ", Milk";
     }
 
     @Override
-    public double getCost() {
-        return coffee.getCost() + 0.50;
+    public long getAddedCostCents() {
+        return 50;
     }
 }
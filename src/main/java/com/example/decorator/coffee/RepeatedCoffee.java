@@ -0,0 +1,54 @@
+package com.example.decorator.coffee;
+
+/**
+ * One layer standing for the same decorator applied several times in a row, e.g.
+ * sugar three times. It renders and costs exactly what the separate layers would,
+ * without allocating and walking each of them.
+ */
+public final class RepeatedCoffee extends CoffeeDecorator {
+    private final CoffeeDecorator layer;
+    private final int count;
+
+    private RepeatedCoffee(CoffeeDecorator layer, int count) {
+        super(layer.coffee);
+        this.layer = layer;
+        this.count = count;
+    }
+
+    /**
+     * The layer repeated {@code count} times over what it wraps.
+     */
+    public static Coffee of(Coffee layer, int count) {
+        return count == 1 ? layer : new RepeatedCoffee((CoffeeDecorator) layer, count);
+    }
+
+    /**
+     * The decorator being repeated.
+     */
+    public CoffeeDecorator getLayer() {
+        return layer;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String getAddedDescription() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            description.append(layer.getAddedDescription());
+        }
+        return description.toString();
+    }
+
+    @Override
+    public long getAddedCostCents() {
+        return layer.getAddedCostCents() * count;
+    }
+
+    @Override
+    public String toString() {
+        return layer.getClass().getSimpleName() + " x" + count;
+    }
+}
@@ -10,4 +10,9 @@ public class SimpleCoffee implements Coffee {
     public double getCost() {
         return 2.00;
     }
+
+    @Override
+    public long getCostCents() {
+        return 200;
+    }
 }
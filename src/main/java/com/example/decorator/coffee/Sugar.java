@@ -1,17 +1,20 @@
 package com.example.decorator.coffee;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "sugar", id = 1)
 public class Sugar extends CoffeeDecorator {
     public Sugar(Coffee coffee) {
         super(coffee);
     }
 
     @Override
-    public String getDescription() {
-        return coffee.getDescription() + ", Sugar";
+    public String getAddedDescription() {
+        return ", Sugar";
     }
 
     @Override
-    public double getCost() {
-        return coffee.getCost() + 0.20;
+    public long getAddedCostCents() {
+        return 20;
     }
 }
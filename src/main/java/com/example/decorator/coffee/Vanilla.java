@@ -1,17 +1,20 @@
 package com.example.decorator.coffee;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "vanilla", id = 3)
 public class Vanilla extends CoffeeDecorator {
     public Vanilla(Coffee coffee) {
         super(coffee);
     }
 
     @Override
-    public String getDescription() {
-        return coffee.getDescription() + ", Vanilla";
+    public String getAddedDescription() {
+        return ", Vanilla";
     }
 
     @Override
-    public double getCost() {
-        return coffee.getCost() + 0.60;
+    public long getAddedCostCents() {
+        return 60;
     }
 }
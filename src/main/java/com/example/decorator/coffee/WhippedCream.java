@@ -1,17 +1,20 @@
 package com.example.decorator.coffee;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "whipped_cream", id = 2)
 public class WhippedCream extends CoffeeDecorator {
     public WhippedCream(Coffee coffee) {
         super(coffee);
     }
 
     @Override
-    public String getDescription() {
-        return coffee.getDescription() + ", Whipped Cream";
+    public String getAddedDescription() {
+        return ", Whipped Cream";
     }
 
     @Override
-    public double getCost() {
-        return coffee.getCost() + 0.70;
+    public long getAddedCostCents() {
+        return 70;
     }
 }
@@ -0,0 +1,123 @@
+package com.example.decorator.journal;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * The on-disk layout of the order journal. A journal is a directory of segment files,
+ * {@code orders-000001.journal}, {@code orders-000002.journal} and so on, each a fixed
+ * size and written front to back. A segment starts with a magic number and format
+ * version, followed by records:
+ * <pre>
+ * int    body length (0 marks the end of the written part)
+ * int    CRC-32 of the body
+ * byte   product: 0 coffee, 1 burger, 2 text
+ * long   timestamp, epoch milliseconds
+ * long   price version
+ * long   cost in cents
+ * varint number of decorators
+ * varint decorator id, innermost first, for each decorator
+ * </pre>
+ * A record whose length runs past the segment or whose checksum doesn't match was torn
+ * by a crash while it was written, and ends the segment.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x4F524A31; // "ORJ1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 8;
+
+    static final String[] PRODUCTS = {"coffee", "burger", "text"};
+
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", PREFIX, index, SUFFIX);
+    }
+
+    /**
+     * The segment's index, or -1 if the file isn't a journal segment.
+     */
+    static int segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static int productCode(String product) {
+        for (int code = 0; code < PRODUCTS.length; code++) {
+            if (PRODUCTS[code].equals(product)) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Unknown product " + product);
+    }
+
+    /**
+     * The most bytes a record with this many decorators can take, header included.
+     */
+    static int maxRecordBytes(int decorators) {
+        return RECORD_HEADER_BYTES + 1 + 3 * 8 + 5 + 5 * decorators;
+    }
+
+    /**
+     * Writes a record at the buffer's position, which must leave room for
+     * {@link #maxRecordBytes}, and moves the position past it.
+     */
+    static void writeRecord(ByteBuffer buffer, CRC32 crc, int product, long timestamp, long priceVersion,
+                            long costCents, int[] decoratorIds) {
+        int start = buffer.position();
+        // Through Buffer, as ByteBuffer's covariant overrides don't exist on Java 8
+        ((Buffer) buffer).position(start + RECORD_HEADER_BYTES);
+        buffer.put((byte) product);
+        buffer.putLong(timestamp);
+        buffer.putLong(priceVersion);
+        buffer.putLong(costCents);
+        putVarint(buffer, decoratorIds.length);
+        for (int id : decoratorIds) {
+            putVarint(buffer, id);
+        }
+        int end = buffer.position();
+
+        // Checksum the body in place rather than through a duplicate
+        int limit = buffer.limit();
+        ((Buffer) buffer).position(start + RECORD_HEADER_BYTES).limit(end);
+        crc.reset();
+        crc.update(buffer);
+        ((Buffer) buffer).limit(limit);
+        buffer.putInt(start, end - start - RECORD_HEADER_BYTES);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
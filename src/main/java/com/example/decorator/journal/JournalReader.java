@@ -0,0 +1,201 @@
+package com.example.decorator.journal;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads an order journal's segments in order, memory-mapped, and hands each record to
+ * a handler. One {@link Record} is reused for every record, so reading allocates
+ * nothing per order.
+ */
+public final class JournalReader {
+    private final Path directory;
+    private final int endSegment;
+    private final CRC32 crc = new CRC32();
+    private final Record record = new Record();
+    private int segments;
+    private long bytes;
+
+    public JournalReader(Path directory) {
+        this(directory, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads only the segments numbered below {@code endSegment}, e.g. leaving out those
+     * a running journal is still writing.
+     */
+    public JournalReader(Path directory, int endSegment) {
+        this.directory = directory;
+        this.endSegment = endSegment;
+    }
+
+    /**
+     * Reads every record and returns how many there were.
+     */
+    public long read(Handler handler) throws IOException {
+        long records = 0;
+        for (Path segment : segments()) {
+            records += readSegment(segment, handler);
+        }
+        return records;
+    }
+
+    public int getSegmentCount() {
+        return segments;
+    }
+
+    /**
+     * The bytes of records read so far, headers included.
+     */
+    public long getBytesRead() {
+        return bytes;
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                int index = JournalFormat.segmentIndex(file);
+                if (index >= 0 && index < endSegment) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort((a, b) -> Integer.compare(JournalFormat.segmentIndex(a), JournalFormat.segmentIndex(b)));
+        return segments;
+    }
+
+    private long readSegment(Path segment, Handler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segments++;
+        if (buffer.remaining() < JournalFormat.HEADER_BYTES
+                || buffer.getInt() != JournalFormat.MAGIC || buffer.getInt() != JournalFormat.VERSION) {
+            throw new IOException(segment + " is not an order journal segment");
+        }
+
+        record.segment = segment;
+        long records = 0;
+        while (buffer.remaining() >= JournalFormat.RECORD_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                break;
+            }
+            int checksum = buffer.getInt();
+            int bodyStart = buffer.position();
+            if (length < 0 || length > buffer.remaining() || !matches(buffer, bodyStart, length, checksum)) {
+                handler.torn(segment, start);
+                break;
+            }
+
+            record.offset = start;
+            decode(buffer);
+            if (buffer.position() != bodyStart + length) {
+                handler.torn(segment, start);
+                break;
+            }
+            handler.record(record);
+            records++;
+            bytes += JournalFormat.RECORD_HEADER_BYTES + length;
+        }
+        return records;
+    }
+
+    private boolean matches(MappedByteBuffer buffer, int bodyStart, int length, int checksum) {
+        // Checksum the body in place, through Buffer for Java 8 compatibility
+        crc.reset();
+        ((Buffer) buffer).limit(bodyStart + length);
+        crc.update(buffer);
+        ((Buffer) buffer).limit(buffer.capacity()).position(bodyStart);
+        return (int) crc.getValue() == checksum;
+    }
+
+    private void decode(MappedByteBuffer buffer) {
+        record.product = JournalFormat.PRODUCTS[buffer.get()];
+        record.timestamp = buffer.getLong();
+        record.priceVersion = buffer.getLong();
+        record.costCents = buffer.getLong();
+        int count = JournalFormat.getVarint(buffer);
+        if (record.decoratorIds.length < count) {
+            record.decoratorIds = Arrays.copyOf(record.decoratorIds, Math.max(count, record.decoratorIds.length * 2));
+        }
+        for (int i = 0; i < count; i++) {
+            record.decoratorIds[i] = JournalFormat.getVarint(buffer);
+        }
+        record.decoratorCount = count;
+    }
+
+    public interface Handler {
+        void record(Record record);
+
+        /**
+         * Called when a record fails its checksum, because it was damaged or only partly
+         * written, as after a crash. Nothing after it in that segment is read.
+         */
+        default void torn(Path segment, long offset) {
+        }
+    }
+
+    /**
+     * One journaled order. Only valid until the handler returns.
+     */
+    public static final class Record {
+        private Path segment;
+        private long offset;
+        private String product;
+        private long timestamp;
+        private long priceVersion;
+        private long costCents;
+        private int[] decoratorIds = new int[16];
+        private int decoratorCount;
+
+        public Path getSegment() {
+            return segment;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getPriceVersion() {
+            return priceVersion;
+        }
+
+        public long getCostCents() {
+            return costCents;
+        }
+
+        /**
+         * The decorator ids, innermost first, in {@code [0, getDecoratorCount())}; the array
+         * is reused for the next record.
+         */
+        public int[] getDecoratorIds() {
+            return decoratorIds;
+        }
+
+        public int getDecoratorCount() {
+            return decoratorCount;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.decorator.journal;
+
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Re-prices every order in a journal with the decorator classes on the classpath, or
+ * with a price file, and reports the orders whose cost comes out different. Exits with
+ * status 1 if there are any.
+ *
+ * <pre>
+ * java -cp target/decorator-pattern-example-1.0.0.jar \
+ *     -Dloader.main=com.example.decorator.journal.JournalReplay \
+ *     org.springframework.boot.loader.PropertiesLauncher journal [--prices prices.properties] [--show 20]
+ * </pre>
+ */
+public final class JournalReplay implements JournalReader.Handler {
+    private final DecoratorRegistries registries;
+    private final PriceTable prices;
+    private final int show;
+    private long mismatches;
+
+    private JournalReplay(DecoratorRegistries registries, PriceTable prices, int show) {
+        this.registries = registries;
+        this.prices = prices;
+        this.show = show;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalReplay <journal directory> [--prices <price file>] [--show <n>]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        String priceFile = "";
+        int show = 20;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--prices": priceFile = args[i + 1]; break;
+                case "--show": show = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        DecoratorRegistries registries = new DecoratorRegistries();
+        Pricing pricing = new Pricing(registries, priceFile, 0);
+        PriceTable prices = pricing.current();
+        JournalReplay replay = new JournalReplay(registries, prices, show);
+        JournalReader reader = new JournalReader(directory);
+
+        long start = System.nanoTime();
+        long records = reader.read(replay);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Replayed %d orders from %d segments (%.1f MB) in %.2f s: %.0f orders/s, %.0f MB/s%n",
+            records, reader.getSegmentCount(), reader.getBytesRead() / 1e6, seconds,
+            records / seconds, reader.getBytesRead() / 1e6 / seconds);
+        System.out.printf("Priced with price version %d (%s)%n", prices.getVersion(), prices.getSource());
+        System.out.printf("Mismatches: %d%n", replay.mismatches);
+        System.exit(replay.mismatches == 0 ? 0 : 1);
+    }
+
+    @Override
+    public void record(JournalReader.Record record) {
+        DecoratorRegistry<?> registry = registries.forProduct(record.getProduct());
+        int[] ids = record.getDecoratorIds();
+        for (int i = 0; i < record.getDecoratorCount(); i++) {
+            if (!registry.isRegistered(ids[i])) {
+                mismatch(record, "unknown decorator id " + ids[i]);
+                return;
+            }
+        }
+
+        long cents = prices.costCents(record.getProduct(), ids, record.getDecoratorCount());
+        if (cents != record.getCostCents()) {
+            mismatch(record, "now " + Money.format(cents));
+        }
+    }
+
+    @Override
+    public void torn(Path segment, long offset) {
+        System.out.printf("%s: stops at a damaged or partly written record at offset %d%n", segment.getFileName(), offset);
+    }
+
+    private void mismatch(JournalReader.Record record, String detail) {
+        mismatches++;
+        if (mismatches > show) {
+            return;
+        }
+        DecoratorRegistry<?> registry = registries.forProduct(record.getProduct());
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < record.getDecoratorCount(); i++) {
+            int id = record.getDecoratorIds()[i];
+            names.append(i == 0 ? "" : ", ").append(registry.isRegistered(id) ? registry.nameOf(id) : "#" + id);
+        }
+        System.out.printf("%s@%d %s %s [%s]: journaled %s at price version %d, %s%n",
+            record.getSegment().getFileName(), record.getOffset(), Instant.ofEpochMilli(record.getTimestamp()),
+            record.getProduct(), names, Money.format(record.getCostCents()), record.getPriceVersion(), detail);
+    }
+}
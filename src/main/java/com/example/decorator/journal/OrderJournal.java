@@ -0,0 +1,281 @@
+package com.example.decorator.journal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only audit trail of every order: product, decorator ids, cost, price version
+ * and time, in the compact binary form described by {@link JournalFormat}.
+ *
+ * <p>Request threads don't touch the disk. {@link #append} claims a slot in a ring
+ * buffer with one atomic increment, fills it in and publishes it; a single writer
+ * thread drains the ring into a memory-mapped segment file and forces it to disk at
+ * most every sync interval, so one fsync covers a whole group of orders. When the ring
+ * is full, appends wait for the writer rather than drop orders. If writing fails, the
+ * error is logged and later orders are counted as lost instead of blocking requests.
+ *
+ * <p>Each start begins a new segment. {@link JournalReplay} reads them back.
+ */
+@Component
+public class OrderJournal implements DisposableBean {
+    private static final Log log = LogFactory.getLog(OrderJournal.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Swapped into claimed once the writer has stopped; any sequence above it was claimed too late
+    private static final long CLOSED = Long.MAX_VALUE / 2;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int firstSegmentIndex;
+    private final long syncIntervalNanos;
+
+    private final Slot[] slots;
+    private final int mask;
+    // The last sequence claimed by a producer and the last one written
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong written = new AtomicLong(-1);
+    private final LongAdder lost = new LongAdder();
+    private final Thread writer;
+
+    private volatile boolean closing;
+    private volatile boolean failed;
+
+    // Owned by the writer thread
+    private final CRC32 crc = new CRC32();
+    private int segmentIndex;
+    private MappedByteBuffer segment;
+    private boolean unsynced;
+    private long lastSync;
+
+    public OrderJournal(@Value("${decorator.journal.enabled}") boolean enabled,
+                        @Value("${decorator.journal.directory}") String directory,
+                        @Value("${decorator.journal.segment-bytes}") int segmentBytes,
+                        @Value("${decorator.journal.ring-size}") int ringSize,
+                        @Value("${decorator.journal.sync-interval-ms}") long syncIntervalMs) throws IOException {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMs);
+
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize) * 2 - 1);
+        this.slots = new Slot[enabled ? capacity : 0];
+        this.mask = capacity - 1;
+        if (!enabled) {
+            this.firstSegmentIndex = 0;
+            this.writer = null;
+            return;
+        }
+        if (segmentBytes < JournalFormat.HEADER_BYTES + JournalFormat.maxRecordBytes(0)) {
+            throw new IllegalArgumentException("decorator.journal.segment-bytes is too small: " + segmentBytes);
+        }
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i - capacity);
+        }
+
+        Files.createDirectories(this.directory);
+        this.segmentIndex = lastSegmentIndex(this.directory);
+        openSegment(JournalFormat.maxRecordBytes(0));
+        this.firstSegmentIndex = segmentIndex;
+
+        this.writer = new Thread(this::run, "order-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getDirectory() {
+        return directory.toString();
+    }
+
+    /**
+     * The index of the segment this run started, the earlier ones being complete.
+     */
+    public int getFirstSegmentIndex() {
+        return firstSegmentIndex;
+    }
+
+    /**
+     * Records an order. The ids are read later by the writer thread, so the array must
+     * not be changed afterwards.
+     */
+    public void append(String product, int[] decoratorIds, long costCents, long priceVersion) {
+        if (!enabled) {
+            return;
+        }
+        if (failed || closing) {
+            lost.increment();
+            return;
+        }
+
+        long sequence = claimed.incrementAndGet();
+        if (sequence > CLOSED) {
+            // Saw the journal open, but claimed after the writer stopped
+            lost.increment();
+            return;
+        }
+        while (sequence - written.get() > slots.length) {
+            if (failed || claimed.get() >= CLOSED) {
+                // The slot will never be freed, and the writer no longer reads the ring.
+                // The sequence is past those close() counts as lost.
+                lost.increment();
+                return;
+            }
+            LockSupport.parkNanos(1000);
+        }
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.product = JournalFormat.productCode(product);
+        slot.timestamp = System.currentTimeMillis();
+        slot.priceVersion = priceVersion;
+        slot.costCents = costCents;
+        slot.decoratorIds = decoratorIds;
+        slot.published = sequence;
+    }
+
+    /**
+     * Orders that couldn't be journaled because writing failed or the journal was closing.
+     */
+    public long getLostCount() {
+        return lost.sum();
+    }
+
+    private void run() {
+        long next = 0;
+        try {
+            while (true) {
+                int drained = 0;
+                for (Slot slot = slots[(int) next & mask]; slot.published == next; slot = slots[(int) next & mask]) {
+                    write(slot);
+                    slot.decoratorIds = null;
+                    written.lazySet(next);
+                    next++;
+                    drained++;
+                }
+
+                long now = System.nanoTime();
+                if (unsynced && (drained == 0 || now - lastSync >= syncIntervalNanos)) {
+                    segment.force();
+                    unsynced = false;
+                    lastSync = now;
+                }
+                if (drained == 0) {
+                    if (closing && claimed.get() < next) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            log.error("Order journal stopped; orders from now on are not journaled", e);
+            close();
+        }
+    }
+
+    /**
+     * Once the writer has stopped, closes the sequence and counts the orders in the ring
+     * that it never wrote as lost: those claimed and published, or about to be, in the
+     * slots after the last one written, including the one whose write failed. Producers
+     * waiting for a slot beyond those, and any claiming a sequence from now on, count
+     * their own orders as lost, so each is counted exactly once.
+     */
+    private void close() {
+        long last = claimed.getAndSet(CLOSED);
+        long end = written.get();
+        lost.add(Math.min(last, end + slots.length) - end);
+    }
+
+    private void write(Slot slot) throws IOException {
+        int maxBytes = JournalFormat.maxRecordBytes(slot.decoratorIds.length);
+        if (segment.remaining() < maxBytes) {
+            segment.force();
+            openSegment(maxBytes);
+        }
+        JournalFormat.writeRecord(segment, crc, slot.product, slot.timestamp, slot.priceVersion,
+            slot.costCents, slot.decoratorIds);
+        unsynced = true;
+    }
+
+    /**
+     * Maps the next segment, larger than the configured size if one record needs it.
+     * The file is sized up front and read as zeros past the last record.
+     */
+    private void openSegment(int minRecordBytes) throws IOException {
+        segmentIndex++;
+        Path file = directory.resolve(JournalFormat.segmentName(segmentIndex));
+        long size = Math.max(segmentBytes, JournalFormat.HEADER_BYTES + minRecordBytes);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+            // The mapping stays valid after the channel is closed
+            segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segment.putInt(JournalFormat.MAGIC);
+        segment.putInt(JournalFormat.VERSION);
+        unsynced = true;
+    }
+
+    private static int lastSegmentIndex(Path directory) throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                last = Math.max(last, JournalFormat.segmentIndex(file));
+            }
+        }
+        return last;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        closing = true;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (!writer.isAlive() && !failed) {
+            // The writer stopped once it had written every claimed sequence, but a producer
+            // that saw closing unset may have claimed one since. A failed writer has
+            // closed the sequence already.
+            close();
+        }
+        if (lost.sum() > 0) {
+            log.warn(lost.sum() + " orders could not be journaled");
+        }
+    }
+
+    /**
+     * One entry of the ring. The producer writes the fields, then publishes the slot by
+     * setting its sequence, which the writer waits for before reading them.
+     */
+    private static final class Slot {
+        volatile long published;
+        int product;
+        long timestamp;
+        long priceVersion;
+        long costCents;
+        int[] decoratorIds;
+
+        Slot(long published) {
+            this.published = published;
+        }
+    }
+}
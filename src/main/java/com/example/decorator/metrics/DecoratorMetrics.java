@@ -0,0 +1,186 @@
+package com.example.decorator.metrics;
+
+import com.example.decorator.cache.ChainInterner;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.text.TextDecorator;
+import com.example.decorator.text.TextPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chain depths per product, how often each decorator is evaluated, how long each
+ * uncached recipe takes to compile and evaluate, and how that time splits by decorator
+ * class. Layers don't run one at a time, so the split is by stage: a text pipeline's
+ * fused runs and opaque layers, and the layers a coffee or burger compile walks past
+ * its compiled prefix. Each stage is labelled with the decorator classes it runs.
+ * Timing every stage would cost about as much as a small one takes, so only one
+ * evaluation in {@code sampleRate} is timed that way.
+ */
+@Component
+public class DecoratorMetrics {
+    private static final long[] DEPTH_BOUNDS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+    private static final long[] EVALUATION_BOUNDS_NANOS = {
+        1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+        1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000, 100_000_000};
+    private static final long[] STAGE_BOUNDS_NANOS = {
+        100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+        1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000, 100_000_000};
+
+    private final boolean enabled;
+    private final int sampleRate;
+    private final Map<String, ProductMetrics> products = new LinkedHashMap<>();
+    private final ProductMetrics text;
+
+    public DecoratorMetrics(DecoratorRegistries registries,
+                            @Value("${decorator.metrics.enabled}") boolean enabled,
+                            @Value("${decorator.metrics.sample-rate}") int sampleRate) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        for (DecoratorRegistry<?> registry : new DecoratorRegistry<?>[] {
+                registries.coffee(), registries.burger(), registries.text()}) {
+            products.put(registry.getProduct(), new ProductMetrics(registry));
+        }
+        this.text = products.get(registries.text().getProduct());
+    }
+
+    public void recordDepth(String product, int depth) {
+        if (enabled) {
+            products.get(product).depth.record(depth);
+        }
+    }
+
+    /**
+     * Counts the decorators of a recipe that was just evaluated, and records how long
+     * compiling and evaluating it took.
+     */
+    public void recordEvaluation(RecipeKey key, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        ProductMetrics metrics = products.get(key.getProduct());
+        for (int id : key.getDecoratorIds()) {
+            metrics.invocations[id].increment();
+        }
+        metrics.evaluation.record(nanos);
+    }
+
+    /**
+     * A timer for the stages of a text evaluation about to run, or null if this one
+     * isn't sampled.
+     */
+    public TextPipeline.StageTimer textStageTimer() {
+        if (!sampled()) {
+            return null;
+        }
+        return (layers, nanos) -> {
+            List<Class<?>> classes = new ArrayList<>(layers.size());
+            for (TextDecorator layer : layers) {
+                classes.add(layer.getClass());
+            }
+            text.recordStage(classes, nanos);
+        };
+    }
+
+    /**
+     * A timer for compiling a coffee or burger chain about to be evaluated, or null if
+     * this one isn't sampled.
+     */
+    public ChainInterner.StageTimer chainStageTimer(String product) {
+        if (!sampled()) {
+            return null;
+        }
+        ProductMetrics metrics = products.get(product);
+        return (ids, nanos) -> {
+            List<Class<?>> classes = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                classes.add(metrics.registry.classOf(id));
+            }
+            metrics.recordStage(classes, nanos);
+        };
+    }
+
+    private boolean sampled() {
+        return enabled && sampleRate > 0 && ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    public void writeTo(StringBuilder out) {
+        PrometheusText.header(out, "decorator_chain_depth", "histogram", "Decorators per order");
+        for (ProductMetrics metrics : products.values()) {
+            metrics.depth.writeTo(out, "decorator_chain_depth", metrics.labels, 1);
+        }
+
+        PrometheusText.header(out, "decorator_invocations_total", "counter",
+            "Decorators applied while evaluating recipes that weren't cached");
+        for (ProductMetrics metrics : products.values()) {
+            for (int id = 0; id < metrics.invocations.length; id++) {
+                if (metrics.invocations[id] != null) {
+                    PrometheusText.sample(out, "decorator_invocations_total", metrics.labels(id),
+                        Long.toString(metrics.invocations[id].sum()));
+                }
+            }
+        }
+
+        PrometheusText.header(out, "decorator_recipe_evaluation_seconds", "histogram",
+            "Time to compile and evaluate recipes that weren't cached");
+        for (ProductMetrics metrics : products.values()) {
+            metrics.evaluation.writeTo(out, "decorator_recipe_evaluation_seconds", metrics.labels, 1e9);
+        }
+
+        PrometheusText.header(out, "decorator_evaluation_seconds", "histogram",
+            "Time spent in each stage of sampled evaluations, by the decorator classes it runs");
+        for (ProductMetrics metrics : products.values()) {
+            for (Map.Entry<String, Histogram> stage : new TreeMap<>(metrics.stages).entrySet()) {
+                stage.getValue().writeTo(out, "decorator_evaluation_seconds",
+                    metrics.labels + "," + PrometheusText.label("decorators", stage.getKey()), 1e9);
+            }
+        }
+    }
+
+    private static final class ProductMetrics {
+        final DecoratorRegistry<?> registry;
+        final String labels;
+        final Histogram depth = new Histogram(DEPTH_BOUNDS);
+        final Histogram evaluation = new Histogram(EVALUATION_BOUNDS_NANOS);
+        // By the decorator class names of a stage, sorted and joined with "+". There are
+        // few decorator classes, so few combinations.
+        final Map<String, Histogram> stages = new ConcurrentHashMap<>();
+        // Indexed by decorator id; null where no decorator is registered
+        final LongAdder[] invocations;
+
+        ProductMetrics(DecoratorRegistry<?> registry) {
+            this.registry = registry;
+            this.labels = PrometheusText.label("product", registry.getProduct());
+            int size = registry.getMaxId() + 1;
+            invocations = new LongAdder[size];
+            for (int id = 0; id < size; id++) {
+                if (registry.isRegistered(id)) {
+                    invocations[id] = new LongAdder();
+                }
+            }
+        }
+
+        String labels(int id) {
+            return labels + "," + PrometheusText.label("decorator", registry.nameOf(id));
+        }
+
+        void recordStage(List<Class<?>> classes, long nanos) {
+            TreeSet<String> names = new TreeSet<>();
+            for (Class<?> decoratorClass : classes) {
+                names.add(decoratorClass.getSimpleName());
+            }
+            stages.computeIfAbsent(String.join("+", names), name -> new Histogram(STAGE_BOUNDS_NANOS)).record(nanos);
+        }
+    }
+}
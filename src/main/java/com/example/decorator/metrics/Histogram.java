@@ -0,0 +1,59 @@
+package com.example.decorator.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-bucket histogram on striped counters, so concurrent recording doesn't
+ * contend. Written out in the Prometheus text format, with cumulative buckets.
+ */
+public final class Histogram {
+    private final long[] bounds;
+    // One more than the bounds, for values above the last one
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param bounds the inclusive upper bound of each bucket, ascending
+     */
+    public Histogram(long... bounds) {
+        this.bounds = bounds;
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Appends the _bucket, _sum and _count samples. Values are divided by the unit,
+     * e.g. 1e9 to report nanoseconds as seconds.
+     */
+    void writeTo(StringBuilder out, String name, String labels, double unit) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            String le = i < bounds.length ? PrometheusText.number(bounds[i] / unit) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        PrometheusText.sample(out, name + "_sum", labels, PrometheusText.number(sum.sum() / unit));
+        PrometheusText.sample(out, name + "_count", labels, Long.toString(cumulative));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.decorator.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency and response size per endpoint, method and status, recorded by the
+ * {@link MetricsFilter}.
+ */
+@Component
+public class RequestMetrics {
+    private static final long[] LATENCY_BOUNDS_NANOS = {
+        50_000, 100_000, 250_000, 500_000,
+        1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000,
+        100_000_000, 250_000_000, 500_000_000,
+        1_000_000_000, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L};
+    private static final long[] SIZE_BOUNDS_BYTES = {
+        64, 256, 1 << 10, 4 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20, 4 << 20, 16 << 20, 64 << 20};
+
+    private final boolean enabled;
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    public RequestMetrics(@Value("${decorator.metrics.enabled}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param uri the matched route, e.g. /api/coffee, so the number of series stays bounded
+     */
+    public void record(String method, String uri, int status, long nanos, long bytes) {
+        SeriesKey key = new SeriesKey(method, uri, status);
+        Series requests = series.get(key);
+        if (requests == null) {
+            requests = series.computeIfAbsent(key, Series::new);
+        }
+        requests.latency.record(nanos);
+        requests.size.record(bytes);
+    }
+
+    public void writeTo(StringBuilder out) {
+        Map<String, Series> sorted = new TreeMap<>();
+        for (Series requests : series.values()) {
+            sorted.put(requests.labels, requests);
+        }
+        PrometheusText.header(out, "http_server_requests_seconds", "histogram",
+            "Time from receiving a request to finishing its response");
+        for (Series requests : sorted.values()) {
+            requests.latency.writeTo(out, "http_server_requests_seconds", requests.labels, 1e9);
+        }
+        PrometheusText.header(out, "http_server_response_bytes", "histogram", "Response body size");
+        for (Series requests : sorted.values()) {
+            requests.size.writeTo(out, "http_server_response_bytes", requests.labels, 1);
+        }
+    }
+
+    private static final class SeriesKey {
+        final String method;
+        final String uri;
+        final int status;
+
+        SeriesKey(String method, String uri, int status) {
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey other = (SeriesKey) o;
+            return status == other.status && method.equals(other.method) && uri.equals(other.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + uri.hashCode()) * 31 + status;
+        }
+    }
+
+    private static final class Series {
+        final String labels;
+        final Histogram latency = new Histogram(LATENCY_BOUNDS_NANOS);
+        final Histogram size = new Histogram(SIZE_BOUNDS_BYTES);
+
+        Series(SeriesKey key) {
+            this.labels = PrometheusText.label("method", key.method) + "," + PrometheusText.label("uri", key.uri)
+                + "," + PrometheusText.label("status", Integer.toString(key.status));
+        }
+    }
+}
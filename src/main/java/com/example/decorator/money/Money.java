@@ -0,0 +1,34 @@
+package com.example.decorator.money;
+
+/**
+ * Formats whole cents as "$x.yy", matching {@code String.format("$%.2f", cents / 100.0)}
+ * without going through {@link java.util.Formatter} or the double.
+ */
+public final class Money {
+    /**
+     * Longest possible output: "$-92233720368547758.08".
+     */
+    private static final int MAX_LENGTH = 22;
+
+    private Money() {
+    }
+
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(MAX_LENGTH), cents).toString();
+    }
+
+    private static StringBuilder appendTo(StringBuilder out, long cents) {
+        // cents / 100 is never Long.MIN_VALUE, so its absolute value can't overflow
+        long dollars = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+
+        out.append('$');
+        if (cents < 0) {
+            out.append('-');
+        }
+        return out.append(dollars)
+            .append('.')
+            .append((char) ('0' + fraction / 10))
+            .append((char) ('0' + fraction % 10));
+    }
+}
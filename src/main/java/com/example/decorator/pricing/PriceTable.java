@@ -0,0 +1,98 @@
+package com.example.decorator.pricing;
+
+import java.util.Map;
+
+/**
+ * An immutable snapshot of every price, in cents: each product's base price and, in an
+ * array indexed by decorator id, what each decorator adds. A new version is published
+ * as a whole new table, so a request that holds one sees consistent prices throughout.
+ */
+public final class PriceTable {
+    private final long version;
+    private final String source;
+    private final Map<String, ProductPrices> products;
+
+    PriceTable(long version, String source, Map<String, ProductPrices> products) {
+        this.version = version;
+        this.source = source;
+        this.products = products;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Where the prices came from: the price file, or "built-in" for the decorators' own.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public ProductPrices forProduct(String product) {
+        ProductPrices prices = products.get(product);
+        if (prices == null) {
+            throw new IllegalArgumentException("Unknown product " + product);
+        }
+        return prices;
+    }
+
+    /**
+     * The price of a product with the given decorators, in cents.
+     */
+    public long costCents(String product, int[] decoratorIds) {
+        return forProduct(product).costCents(decoratorIds);
+    }
+
+    /**
+     * The price of a product with the decorators in {@code decoratorIds[0, count)}.
+     */
+    public long costCents(String product, int[] decoratorIds, int count) {
+        return forProduct(product).costCents(decoratorIds, count);
+    }
+
+    /**
+     * One product family's prices.
+     */
+    public static final class ProductPrices {
+        private final long baseCents;
+        // Indexed by decorator id; 0 where no decorator is registered
+        private final long[] addedCents;
+
+        ProductPrices(long baseCents, long[] addedCents) {
+            this.baseCents = baseCents;
+            this.addedCents = addedCents;
+        }
+
+        public long getBaseCents() {
+            return baseCents;
+        }
+
+        public long getAddedCents(int decoratorId) {
+            return addedCents[decoratorId];
+        }
+
+        public long costCents(int[] decoratorIds) {
+            return costCents(decoratorIds, decoratorIds.length);
+        }
+
+        /**
+         * The price with the decorators in {@code decoratorIds[0, count)}.
+         */
+        public long costCents(int[] decoratorIds, int count) {
+            long[] added = addedCents;
+            long cents = baseCents;
+            for (int i = 0; i < count; i++) {
+                cents += added[decoratorIds[i]];
+            }
+            return cents;
+        }
+
+        /**
+         * A copy of the decorator prices, for building the next version from this one.
+         */
+        long[] copyAddedCents() {
+            return addedCents.clone();
+        }
+    }
+}
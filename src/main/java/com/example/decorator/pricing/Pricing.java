@@ -0,0 +1,274 @@
+package com.example.decorator.pricing;
+
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable.ProductPrices;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.text.PlainText;
+import com.example.decorator.text.Text;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * The current prices. They start as the decorators' own (version 0) and can be
+ * overridden by a price file, which is polled and, when it changes, loaded into a new
+ * {@link PriceTable} and published through a volatile field. Readers never lock: they
+ * take the current table once and price a whole request from it.
+ *
+ * <p>The price file is a properties file with a version, which must increase with
+ * every change, and prices in dollars for any product or decorator:
+ * <pre>
+ * version=2
+ * coffee=2.10
+ * coffee.milk=0.60
+ * burger.bacon=1.75
+ * </pre>
+ * Anything left out keeps its built-in price. A file that can't be loaded at startup
+ * stops the application; one that can't be reloaded is reported and the previous
+ * prices stay in effect.
+ */
+@Component
+public class Pricing implements DisposableBean {
+    public static final String BUILT_IN = "built-in";
+
+    private static final Log log = LogFactory.getLog(Pricing.class);
+
+    private final DecoratorRegistries registries;
+    private final PriceTable builtIn;
+    private final Path file;
+    private final ScheduledExecutorService watcher;
+
+    private volatile PriceTable current;
+    private volatile String lastError;
+    // The file as last read, so an unchanged file isn't parsed again
+    private long lastModified;
+    private long lastSize;
+
+    public Pricing(DecoratorRegistries registries,
+                   @Value("${decorator.pricing.file}") String file,
+                   @Value("${decorator.pricing.reload-interval-ms}") long reloadIntervalMs) {
+        this.registries = registries;
+        this.builtIn = builtInPrices(registries);
+        this.current = builtIn;
+
+        if (file.isEmpty()) {
+            this.file = null;
+            this.watcher = null;
+            return;
+        }
+        this.file = Paths.get(file);
+        if (!reload()) {
+            throw new IllegalStateException("Could not load prices from " + file + ": " + lastError);
+        }
+        if (reloadIntervalMs > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "price-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reload, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            watcher = null;
+        }
+    }
+
+    /**
+     * The prices in effect now. Hold on to the result to price a whole request.
+     */
+    public PriceTable current() {
+        return current;
+    }
+
+    /**
+     * Loads the price file again if it changed since it was last read, and returns
+     * whether the prices in effect are now the file's.
+     */
+    public synchronized boolean reload() {
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            long size = Files.size(file);
+            if (modified == lastModified && size == lastSize) {
+                return lastError == null;
+            }
+            lastModified = modified;
+            lastSize = size;
+
+            PriceTable table = load(file);
+            if (table.getVersion() <= current.getVersion()) {
+                throw new IllegalArgumentException("version " + table.getVersion()
+                    + " must be greater than the current version " + current.getVersion());
+            }
+            current = table;
+            lastError = null;
+            log.info("Loaded price version " + table.getVersion() + " from " + file);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // File system messages are often just the path, so keep the exception type
+            lastError = e instanceof IOException ? e.toString() : e.getMessage();
+            log.warn("Kept price version " + current.getVersion() + ", could not load " + file + ": " + lastError);
+            return false;
+        }
+    }
+
+    private PriceTable load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        String versionProperty = properties.getProperty("version");
+        if (versionProperty == null) {
+            throw new IllegalArgumentException("version is missing");
+        }
+        long version = parseVersion(versionProperty);
+
+        // Copy on write: start from the built-in prices and change the copies
+        Map<String, Long> baseCents = new LinkedHashMap<>();
+        Map<String, long[]> addedCents = new LinkedHashMap<>();
+        for (DecoratorRegistry<?> registry : registries.all()) {
+            ProductPrices prices = builtIn.forProduct(registry.getProduct());
+            baseCents.put(registry.getProduct(), prices.getBaseCents());
+            addedCents.put(registry.getProduct(), prices.copyAddedCents());
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.equals("version")) {
+                continue;
+            }
+            long cents = parseCents(key, properties.getProperty(key));
+            int dot = key.indexOf('.');
+            String product = dot < 0 ? key : key.substring(0, dot);
+            DecoratorRegistry<?> registry = registries.forProduct(product);
+            if (registry == null) {
+                throw new IllegalArgumentException("Unknown product in " + key);
+            }
+            if (dot < 0) {
+                baseCents.put(product, cents);
+                continue;
+            }
+            int id = registry.idOf(key.substring(dot + 1));
+            if (id < 0) {
+                throw new IllegalArgumentException("Unknown " + product + " decorator in " + key);
+            }
+            addedCents.get(product)[id] = cents;
+        }
+
+        Map<String, ProductPrices> products = new LinkedHashMap<>();
+        for (String product : baseCents.keySet()) {
+            products.put(product, new ProductPrices(baseCents.get(product), addedCents.get(product)));
+        }
+        return new PriceTable(version, file.toString(), products);
+    }
+
+    private static long parseVersion(String version) {
+        try {
+            long parsed = Long.parseLong(version.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("version must be a positive whole number, not " + version);
+    }
+
+    private static long parseCents(String key, String amount) {
+        String digits = amount.trim();
+        if (digits.startsWith("$")) {
+            digits = digits.substring(1);
+        }
+        try {
+            BigDecimal dollars = new BigDecimal(digits);
+            if (dollars.signum() >= 0) {
+                return dollars.movePointRight(2).longValueExact();
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(key + " must be an amount in dollars and cents, not " + amount);
+    }
+
+    private static PriceTable builtInPrices(DecoratorRegistries registries) {
+        Map<String, ProductPrices> products = new LinkedHashMap<>();
+        products.put(registries.coffee().getProduct(),
+            builtInPrices(registries.coffee(), new SimpleCoffee(), Coffee::getCostCents));
+        products.put(registries.burger().getProduct(),
+            builtInPrices(registries.burger(), new SimpleBurger(), Burger::getCostCents));
+        products.put(registries.text().getProduct(),
+            builtInPrices(registries.text(), new PlainText(""), Text::getCostCents));
+        return new PriceTable(0, BUILT_IN, products);
+    }
+
+    /**
+     * Reads each decorator's price off the decorator itself: the cost of the base with
+     * that one decorator, less the cost of the base.
+     */
+    private static <T> ProductPrices builtInPrices(DecoratorRegistry<T> registry, T base, ToLongFunction<T> costCents) {
+        long baseCents = costCents.applyAsLong(base);
+        long[] addedCents = new long[registry.getMaxId() + 1];
+        for (int id = 0; id < addedCents.length; id++) {
+            if (registry.isRegistered(id)) {
+                addedCents[id] = costCents.applyAsLong(registry.wrap(id, base, 0)) - baseCents;
+            }
+        }
+        return new ProductPrices(baseCents, addedCents);
+    }
+
+    /**
+     * The prices in effect, formatted, and the last reload error if the file couldn't
+     * be loaded.
+     */
+    public Map<String, Object> describe() {
+        PriceTable table = current;
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("version", table.getVersion());
+        description.put("source", table.getSource());
+        for (DecoratorRegistry<?> registry : registries.all()) {
+            ProductPrices prices = table.forProduct(registry.getProduct());
+            Map<String, String> decorators = new LinkedHashMap<>();
+            for (int id = 0; id <= registry.getMaxId(); id++) {
+                if (registry.isRegistered(id)) {
+                    decorators.put(registry.nameOf(id), Money.format(prices.getAddedCents(id)));
+                }
+            }
+            Map<String, Object> product = new LinkedHashMap<>();
+            product.put("base", Money.format(prices.getBaseCents()));
+            product.put("decorators", decorators);
+            description.put(registry.getProduct(), product);
+        }
+        String error = lastError;
+        if (error != null) {
+            description.put("last_error", error);
+        }
+        return description;
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+}
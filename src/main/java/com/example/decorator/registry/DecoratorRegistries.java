@@ -0,0 +1,68 @@
+package com.example.decorator.registry;
+
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.RepeatedBurger;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.RepeatedCoffee;
+import com.example.decorator.text.Text;
+import org.springframework.stereotype.Component;
+
+/**
+ * The decorator registries for each product family, built once at startup. Repeated
+ * coffee and burger toppings are wrapped as one counted layer; text chains are
+ * simplified later, by {@link com.example.decorator.text.TextPipeline}.
+ */
+@Component
+public class DecoratorRegistries {
+    private final DecoratorRegistry<Coffee> coffee =
+        new DecoratorRegistry<>("coffee", Coffee.class, "com.example.decorator.coffee", RepeatedCoffee::of);
+    private final DecoratorRegistry<Burger> burger =
+        new DecoratorRegistry<>("burger", Burger.class, "com.example.decorator.burger", RepeatedBurger::of);
+    private final DecoratorRegistry<Text> text =
+        new DecoratorRegistry<>("text", Text.class, "com.example.decorator.text");
+
+    public DecoratorRegistry<Coffee> coffee() {
+        return coffee;
+    }
+
+    public DecoratorRegistry<Burger> burger() {
+        return burger;
+    }
+
+    public DecoratorRegistry<Text> text() {
+        return text;
+    }
+
+    /**
+     * The registry for a product name, or null if there is no such product.
+     */
+    public DecoratorRegistry<?> forProduct(String product) {
+        for (DecoratorRegistry<?> registry : all()) {
+            if (registry.getProduct().equals(product)) {
+                return registry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The registry for a product's interface, e.g. {@code Coffee.class}, or null if
+     * there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DecoratorRegistry<T> forType(Class<T> type) {
+        for (DecoratorRegistry<?> registry : all()) {
+            if (registry.getType() == type) {
+                return (DecoratorRegistry<T>) registry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Every product family's registry.
+     */
+    public DecoratorRegistry<?>[] all() {
+        return new DecoratorRegistry<?>[] {coffee, burger, text};
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.decorator.registry;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maps decorator names to factories for one product family. Decorators are discovered
+ * by scanning a package for {@link RegisteredDecorator} classes, and their constructors
+ * are resolved to method handles once, up front. Names are looked up in a perfect-hash
+ * table, and everything else is indexed by the decorator's id. A family may supply a
+ * {@link Repeater}, which lets {@link #wrapAll} turn a run of the same decorator into
+ * one counted layer.
+ */
+public class DecoratorRegistry<T> {
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object.class, int.class);
+
+    private final String product;
+    private final Class<T> type;
+    private final String[] names;
+    private final Class<?>[] classes;
+    private final MethodHandle[] factories;
+    private final boolean[] takesArgument;
+    private final LongAdder[] usage;
+    private final LongAdder unknown = new LongAdder();
+    private final Repeater<T> repeater;
+
+    // Perfect-hash table: every name lands in its own slot
+    private final String[] slotNames;
+    private final int[] slotIds;
+    private final int mask;
+
+    public DecoratorRegistry(String product, Class<T> type, String basePackage) {
+        this(product, type, basePackage, null);
+    }
+
+    public DecoratorRegistry(String product, Class<T> type, String basePackage, Repeater<T> repeater) {
+        this.product = product;
+        this.type = type;
+        this.repeater = repeater;
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(RegisteredDecorator.class));
+
+        Map<Integer, Class<?>> byId = new LinkedHashMap<>();
+        int maxId = -1;
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            Class<?> decoratorClass = ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader());
+            if (!type.isAssignableFrom(decoratorClass)) {
+                throw new IllegalStateException(decoratorClass.getName() + " is not a " + type.getSimpleName());
+            }
+            int id = decoratorClass.getAnnotation(RegisteredDecorator.class).id();
+            if (id < 0 || byId.put(id, decoratorClass) != null) {
+                throw new IllegalStateException("Invalid or duplicate " + product + " decorator id " + id);
+            }
+            maxId = Math.max(maxId, id);
+        }
+
+        this.names = new String[maxId + 1];
+        this.classes = new Class<?>[maxId + 1];
+        this.factories = new MethodHandle[maxId + 1];
+        this.takesArgument = new boolean[maxId + 1];
+        this.usage = new LongAdder[maxId + 1];
+        for (Map.Entry<Integer, Class<?>> entry : byId.entrySet()) {
+            int id = entry.getKey();
+            names[id] = entry.getValue().getAnnotation(RegisteredDecorator.class).name().intern();
+            classes[id] = entry.getValue();
+            factories[id] = resolveFactory(id, entry.getValue());
+            usage[id] = new LongAdder();
+        }
+
+        int size = Integer.highestOneBit(Math.max(1, byId.size()) * 2 - 1) << 1;
+        while (!fitsWithoutCollisions(size)) {
+            size <<= 1;
+            if (size > MAX_TABLE_SIZE) {
+                throw new IllegalStateException("No perfect hash table for " + product + " decorator names");
+            }
+        }
+        this.mask = size - 1;
+        this.slotNames = new String[size];
+        this.slotIds = new int[size];
+        for (int id = 0; id < names.length; id++) {
+            if (names[id] != null) {
+                int slot = slot(names[id]);
+                slotNames[slot] = names[id];
+                slotIds[slot] = id;
+            }
+        }
+    }
+
+    private MethodHandle resolveFactory(int id, Class<?> decoratorClass) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            MethodHandle constructor = lookup.findConstructor(decoratorClass,
+                MethodType.methodType(void.class, type, int.class));
+            takesArgument[id] = true;
+            return constructor.asType(FACTORY_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Most decorators only take the object they wrap
+        }
+        try {
+            MethodHandle constructor = lookup.findConstructor(decoratorClass,
+                MethodType.methodType(void.class, type));
+            return MethodHandles.dropArguments(constructor, 1, int.class).asType(FACTORY_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(decoratorClass.getName() + " needs a public constructor taking a "
+                + type.getSimpleName(), e);
+        }
+    }
+
+    private boolean fitsWithoutCollisions(int size) {
+        boolean[] used = new boolean[size];
+        for (String name : names) {
+            if (name != null) {
+                int h = name.hashCode();
+                int slot = (h ^ (h >>> 16)) & (size - 1);
+                if (used[slot]) {
+                    return false;
+                }
+                used[slot] = true;
+            }
+        }
+        return true;
+    }
+
+    private int slot(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * The highest registered id, for sizing arrays indexed by id.
+     */
+    public int getMaxId() {
+        return names.length - 1;
+    }
+
+    /**
+     * Returns the id registered for the name, or -1 if there is none.
+     */
+    public int idOf(String name) {
+        int slot = slot(name);
+        String candidate = slotNames[slot];
+        return candidate != null && candidate.equals(name) ? slotIds[slot] : -1;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public Class<?> classOf(int id) {
+        return classes[id];
+    }
+
+    public boolean isRegistered(int id) {
+        return id >= 0 && id < names.length && names[id] != null;
+    }
+
+    /**
+     * Whether the decorator's constructor takes the extra argument passed to {@link #wrap}.
+     */
+    public boolean takesArgument(int id) {
+        return takesArgument[id];
+    }
+
+    /**
+     * Whether any of the decorators takes the extra argument passed to {@link #wrap}.
+     */
+    public boolean takesArgument(int[] ids) {
+        for (int id : ids) {
+            if (takesArgument[id]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves a request's decorator names to ids, in order, and records their usage.
+     * Unknown names are counted and left out.
+     */
+    public int[] resolve(List<String> decoratorNames) {
+        if (decoratorNames == null) {
+            return new int[0];
+        }
+
+        int[] ids = new int[decoratorNames.size()];
+        int count = 0;
+        for (String name : decoratorNames) {
+            int id = resolve(name);
+            if (id >= 0) {
+                ids[count++] = id;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Resolves one decorator name to its id and records its usage, or returns -1 and
+     * counts it as unknown.
+     */
+    public int resolve(String name) {
+        int id = idOf(name);
+        if (id < 0) {
+            unknown.increment();
+        } else {
+            usage[id].increment();
+        }
+        return id;
+    }
+
+    /**
+     * Wraps the object in the decorator with the given id. The argument is passed to
+     * decorators whose constructor takes one (e.g. the encryption shift) and ignored by the rest.
+     */
+    public T wrap(int id, T inner, int argument) {
+        try {
+            return type.cast((Object) factories[id].invokeExact((Object) inner, argument));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create " + product + " decorator " + names[id], e);
+        }
+    }
+
+    /**
+     * Wraps the object in each decorator in turn, innermost first. With a repeater, each
+     * run of the same id becomes a single counted layer.
+     */
+    public T wrapAll(int[] ids, T inner, int argument) {
+        T result = inner;
+        for (int i = 0; i < ids.length; ) {
+            int run = runLength(ids, i);
+            result = wrapRun(ids[i], run, result, argument);
+            i += run;
+        }
+        return result;
+    }
+
+    /**
+     * How many of the ids from {@code from} on {@link #wrapAll} turns into one layer: the
+     * run of the same id with a repeater, otherwise 1.
+     */
+    public int runLength(int[] ids, int from) {
+        return runLength(ids, from, ids.length);
+    }
+
+    /**
+     * {@link #runLength(int[], int)} within {@code ids[0, to)}.
+     */
+    public int runLength(int[] ids, int from, int to) {
+        int runEnd = from + 1;
+        if (repeater != null) {
+            while (runEnd < to && ids[runEnd] == ids[from]) {
+                runEnd++;
+            }
+        }
+        return runEnd - from;
+    }
+
+    /**
+     * Wraps the object in one layer standing for the decorator applied {@code count}
+     * times in a row, as returned by {@link #runLength}.
+     */
+    public T wrapRun(int id, int count, T inner, int argument) {
+        T layer = wrap(id, inner, argument);
+        return count > 1 ? repeater.repeat(layer, count) : layer;
+    }
+
+    public Map<String, Long> getUsageCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int id = 0; id < names.length; id++) {
+            if (names[id] != null) {
+                counts.put(names[id], usage[id].sum());
+            }
+        }
+        return counts;
+    }
+
+    public long getUnknownCount() {
+        return unknown.sum();
+    }
+
+    /**
+     * Makes a layer that stands for a decorator applied {@code count} times in a row, and
+     * renders and costs exactly the same.
+     */
+    public interface Repeater<T> {
+        T repeat(T layer, int count);
+    }
+}
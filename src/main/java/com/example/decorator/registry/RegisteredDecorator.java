@@ -0,0 +1,21 @@
+package com.example.decorator.registry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a concrete decorator so it is picked up by its product's {@link DecoratorRegistry}
+ * at startup. The id is the decorator's stable index in the registry's tables.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RegisteredDecorator {
+    /**
+     * The name clients use in a request's {@code decorators} list, e.g. "whipped_cream".
+     */
+    String name();
+
+    int id();
+}
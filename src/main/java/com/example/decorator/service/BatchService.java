@@ -0,0 +1,84 @@
+package com.example.decorator.service;
+
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.pricing.PriceTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates a whole order at once. Identical recipes in the order are evaluated once,
+ * and orders with many distinct recipes are evaluated in parallel. The whole order is
+ * priced from one price version, even if the prices change while it is evaluated.
+ */
+@Service
+public class BatchService {
+    private final RecipeService recipes;
+    private final int parallelThreshold;
+
+    public BatchService(RecipeService recipes,
+                        @Value("${decorator.batch.parallel-threshold}") int parallelThreshold) {
+        this.recipes = recipes;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public BatchResult evaluate(List<RecipeKey> keys) {
+        PriceTable prices = recipes.getPrices();
+        List<RecipeKey> unique = new ArrayList<>(new LinkedHashSet<>(keys));
+
+        List<RecipeResult> uniqueResults;
+        if (unique.size() >= parallelThreshold) {
+            uniqueResults = unique.parallelStream().map(key -> recipes.evaluate(key, prices)).collect(Collectors.toList());
+        } else {
+            uniqueResults = new ArrayList<>(unique.size());
+            for (RecipeKey key : unique) {
+                uniqueResults.add(recipes.evaluate(key, prices));
+            }
+        }
+
+        Map<RecipeKey, RecipeResult> byKey = new HashMap<>(unique.size() * 2);
+        for (int i = 0; i < unique.size(); i++) {
+            byKey.put(unique.get(i), uniqueResults.get(i));
+        }
+
+        List<RecipeResult> results = new ArrayList<>(keys.size());
+        long totalCents = 0;
+        for (RecipeKey key : keys) {
+            RecipeResult result = byKey.get(key);
+            results.add(result);
+            totalCents += result.getCostCents();
+            recipes.record(key.getProduct(), key.getDecoratorIds(), result.getCostCents(), result.getPriceVersion());
+        }
+        return new BatchResult(results, totalCents, prices.getVersion());
+    }
+
+    public static final class BatchResult {
+        private final List<RecipeResult> results;
+        private final long totalCents;
+        private final long priceVersion;
+
+        BatchResult(List<RecipeResult> results, long totalCents, long priceVersion) {
+            this.results = results;
+            this.totalCents = totalCents;
+            this.priceVersion = priceVersion;
+        }
+
+        public List<RecipeResult> getResults() {
+            return results;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+
+        public long getPriceVersion() {
+            return priceVersion;
+        }
+    }
+}
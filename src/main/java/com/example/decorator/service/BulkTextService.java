@@ -0,0 +1,206 @@
+package com.example.decorator.service;
+
+import com.example.decorator.pricing.PriceTable;
+import com.example.decorator.text.StreamingText;
+import com.example.decorator.text.TextPipeline;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Formats many texts with one recipe, or one very large text, in parallel on a
+ * fork/join pool of its own. Either way the work is a list of units, texts or chunks,
+ * which is split in halves until each task has about {@code chunk-chars} of content;
+ * idle workers steal halves from busy ones, and each unit's result goes back in its
+ * place, so the results come out in order.
+ *
+ * <p>A large text is only cut at {@link TextPipeline#splitPoint}s, between whole
+ * characters, and only when every layer transforms it char by char. Its tags are
+ * written once around the joined parts, so the result is exactly what formatting it
+ * in one piece gives. Other recipes format it in one piece.
+ */
+@Service
+public class BulkTextService implements DisposableBean {
+    private final RecipeService recipes;
+    private final ForkJoinPool pool;
+    private final int chunkChars;
+
+    public BulkTextService(RecipeService recipes,
+                           @Value("${decorator.bulk.parallelism}") int parallelism,
+                           @Value("${decorator.bulk.chunk-chars}") int chunkChars) {
+        if (chunkChars < 1) {
+            throw new IllegalArgumentException("decorator.bulk.chunk-chars must be positive");
+        }
+        this.recipes = recipes;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkChars = chunkChars;
+    }
+
+    /**
+     * Formats each text with the recipe and records each as an order. All of them are
+     * priced from the same price version.
+     */
+    public BulkResult formatAll(List<String> texts, int[] decoratorIds, int encryptShift, Locale locale) {
+        StreamingText recipe = recipes.streamingText(decoratorIds, encryptShift, locale);
+        String[] contents = new String[texts.size()];
+        long[] ends = new long[texts.size() + 1];
+        for (int i = 0; i < texts.size(); i++) {
+            ends[i + 1] = ends[i] + texts.get(i).length();
+        }
+        pool.invoke(new FormatTask(i -> contents[i] = recipe.apply(texts.get(i)), ends, 0, contents.length, chunkChars));
+        return priced(Arrays.asList(contents), decoratorIds);
+    }
+
+    /**
+     * Formats one text, in parallel chunks if it is large and the recipe allows, and
+     * records it as one order.
+     */
+    public BulkResult format(String text, int[] decoratorIds, int encryptShift, Locale locale) {
+        StreamingText recipe = recipes.streamingText(decoratorIds, encryptShift, locale);
+        TextPipeline pipeline = recipe.getPipeline();
+        if (text.length() <= chunkChars || !pipeline.isStreamable()) {
+            return priced(Arrays.asList(recipe.apply(text)), decoratorIds);
+        }
+
+        int[] cuts = cuts(text);
+        String[] parts = new String[cuts.length - 1];
+        long[] ends = new long[cuts.length];
+        for (int i = 0; i < cuts.length; i++) {
+            ends[i] = cuts[i];
+        }
+        pool.invoke(new FormatTask(i -> parts[i] = pipeline.transformPart(text, cuts[i], cuts[i + 1]),
+            ends, 0, parts.length, chunkChars));
+
+        String prefix = pipeline.getPrefix();
+        String suffix = pipeline.getSuffix();
+        int length = prefix.length() + suffix.length();
+        for (String part : parts) {
+            length += part.length();
+        }
+        StringBuilder content = new StringBuilder(length).append(prefix);
+        for (String part : parts) {
+            content.append(part);
+        }
+        return priced(Arrays.asList(content.append(suffix).toString()), decoratorIds);
+    }
+
+    /**
+     * Where to cut the text into chunks of about {@code chunkChars}: its start, every cut
+     * and its end. A stretch with no split point stays in the chunk before it.
+     */
+    int[] cuts(String text) {
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int from = 0;
+        while (text.length() - from > chunkChars) {
+            int end = from + chunkChars;
+            int cut = TextPipeline.splitPoint(text, from, end);
+            while (cut == end && end < text.length()) {
+                // No split point yet: the chunk takes in the next window too, from its first char
+                int next = Math.min(text.length(), end + chunkChars);
+                cut = TextPipeline.splitPoint(text, end - 1, next);
+                end = next;
+            }
+            if (cut == text.length()) {
+                break;
+            }
+            cuts.add(cut);
+            from = cut;
+        }
+        cuts.add(text.length());
+
+        int[] points = new int[cuts.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = cuts.get(i);
+        }
+        return points;
+    }
+
+    private BulkResult priced(List<String> contents, int[] decoratorIds) {
+        PriceTable prices = recipes.getPrices();
+        long costCents = prices.costCents(RecipeService.TEXT, decoratorIds);
+        for (int i = 0; i < contents.size(); i++) {
+            recipes.record(RecipeService.TEXT, decoratorIds, costCents, prices.getVersion());
+        }
+        return new BulkResult(contents, costCents, prices.getVersion());
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    /**
+     * Formats units {@code [from, to)}, halving the range until it holds about
+     * {@code leafChars} of content or a single unit.
+     */
+    private static final class FormatTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer format;
+        // ends[i] is where unit i ends in the content as a whole, and ends[0] is 0
+        private final long[] ends;
+        private final int from;
+        private final int to;
+        private final long leafChars;
+
+        FormatTask(IntConsumer format, long[] ends, int from, int to, long leafChars) {
+            this.format = format;
+            this.ends = ends;
+            this.from = from;
+            this.to = to;
+            this.leafChars = leafChars;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || ends[to] - ends[from] <= leafChars) {
+                for (int i = from; i < to; i++) {
+                    format.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FormatTask(format, ends, from, mid, leafChars), new FormatTask(format, ends, mid, to, leafChars));
+        }
+    }
+
+    public static final class BulkResult {
+        private final List<String> contents;
+        private final long costCents;
+        private final long priceVersion;
+
+        BulkResult(List<String> contents, long costCents, long priceVersion) {
+            this.contents = contents;
+            this.costCents = costCents;
+            this.priceVersion = priceVersion;
+        }
+
+        public List<String> getContents() {
+            return contents;
+        }
+
+        /**
+         * The cost of each text.
+         */
+        public long getCostCents() {
+            return costCents;
+        }
+
+        public long getTotalCents() {
+            return costCents * contents.size();
+        }
+
+        public long getPriceVersion() {
+            return priceVersion;
+        }
+    }
+}
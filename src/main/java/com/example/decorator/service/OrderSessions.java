@@ -0,0 +1,459 @@
+package com.example.decorator.service;
+
+import com.example.decorator.api.RecipeResponse;
+import com.example.decorator.cache.ChainInterner;
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coffee and burger orders held on the server while a customer builds them up one edit
+ * at a time. A session keeps the interned chain node and the running price after each
+ * run of its decorators, so an edit at position k keeps everything before k and only
+ * wraps, compiles and prices the decorators from k on: adding a topping at the end costs
+ * the same however long the order already is. Edits aren't orders; a session is recorded
+ * as one when it is checked out. Sessions left idle for longer than the TTL are dropped.
+ */
+@Service
+public class OrderSessions implements DisposableBean {
+    // Every this many runs a session's node is compiled, so an edit anywhere finds a
+    // compiled prefix within this many layers before it
+    private static final int CHECKPOINT_RUNS = 32;
+
+    private final RecipeService recipes;
+    private final Menu<?, ?> coffee;
+    private final Menu<?, ?> burger;
+    private final long ttlNanos;
+    private final int maxSessions;
+    private final int maxChainLength;
+    private final Map<String, Session<?, ?>> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService expiry;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder edits = new LongAdder();
+    private final LongAdder checkedOut = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public OrderSessions(RecipeService recipes, DecoratorRegistries registries,
+                         @Value("${decorator.sessions.ttl-seconds}") long ttlSeconds,
+                         @Value("${decorator.sessions.max-sessions}") int maxSessions,
+                         @Value("${decorator.max-chain-length}") int maxChainLength) {
+        if (ttlSeconds < 1) {
+            throw new IllegalArgumentException("decorator.sessions.ttl-seconds must be positive");
+        }
+        this.recipes = recipes;
+        this.coffee = new Menu<>(registries.coffee(), recipes.getCoffeeChains(), RecipeService::coffeeResponse);
+        this.burger = new Menu<>(registries.burger(), recipes.getBurgerChains(), RecipeService::burgerResponse);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxSessions = maxSessions;
+        this.maxChainLength = maxChainLength;
+
+        long sweepMs = Math.min(TimeUnit.SECONDS.toMillis(ttlSeconds) / 4 + 1, 60_000);
+        this.expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(this::expire, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a coffee or burger with the given decorators.
+     *
+     * @throws IllegalArgumentException if the product is neither
+     * @throws IllegalStateException    if there are already max-sessions open
+     */
+    public Snapshot open(String product, int[] decoratorIds) {
+        Menu<?, ?> menu = menu(product);
+        if (menu == null) {
+            throw new IllegalArgumentException("Sessions are for coffee and burger orders");
+        }
+        if (sessions.size() >= maxSessions) {
+            expire();
+            if (sessions.size() >= maxSessions) {
+                throw new IllegalStateException("Too many open sessions");
+            }
+        }
+
+        Session<?, ?> session = new Session<>(UUID.randomUUID().toString(), menu);
+        synchronized (session) {
+            session.replace(decoratorIds, recipes.getPrices());
+            sessions.put(session.id, session);
+            opened.increment();
+            return session.snapshot();
+        }
+    }
+
+    /**
+     * The session's order as it stands, repriced if the prices changed, or null if there
+     * is no such session or it expired.
+     */
+    public Snapshot get(String id) {
+        Session<?, ?> session = find(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            session.update(session.size, recipes.getPrices());
+            return session.snapshot();
+        }
+    }
+
+    /**
+     * Inserts the named decorator before {@code position}, or adds it at the end if the
+     * position is null.
+     *
+     * @throws IllegalArgumentException if there is no such decorator, the position is
+     *                                  out of range, or the order would be longer than
+     *                                  max-chain-length
+     */
+    public Snapshot add(String id, Integer position, String decorator) {
+        Session<?, ?> session = find(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            DecoratorRegistry<?> registry = session.menu.registry;
+            int decoratorId = decorator == null ? -1 : registry.resolve(decorator);
+            if (decoratorId < 0) {
+                throw new IllegalArgumentException("\"decorator\" must name a " + registry.getProduct() + " decorator");
+            }
+            int at = position != null ? position : session.size;
+            checkPosition(at, session.size + 1);
+            if (session.size >= maxChainLength) {
+                throw new IllegalArgumentException("At most " + maxChainLength + " decorators are allowed per order");
+            }
+            session.add(at, decoratorId);
+            return edited(session, at);
+        }
+    }
+
+    /**
+     * Removes the decorator at {@code position}.
+     */
+    public Snapshot remove(String id, int position) {
+        Session<?, ?> session = find(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            checkPosition(position, session.size);
+            session.remove(position);
+            return edited(session, position);
+        }
+    }
+
+    /**
+     * Moves the decorator at {@code from} so it ends up at {@code to}.
+     */
+    public Snapshot move(String id, int from, int to) {
+        Session<?, ?> session = find(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            checkPosition(from, session.size);
+            checkPosition(to, session.size);
+            session.move(from, to);
+            return edited(session, Math.min(from, to));
+        }
+    }
+
+    /**
+     * Ends the session and records its order, at the current prices.
+     */
+    public Snapshot checkOut(String id) {
+        Session<?, ?> session = find(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            // Whoever removes it checks it out, so an order is recorded once
+            if (!sessions.remove(id, session)) {
+                return null;
+            }
+            session.update(session.size, recipes.getPrices());
+            Snapshot snapshot = session.snapshot();
+            recipes.record(snapshot.getProduct(), snapshot.getDecoratorIds(), snapshot.getCostCents(),
+                snapshot.getPriceVersion());
+            checkedOut.increment();
+            return snapshot;
+        }
+    }
+
+    /**
+     * Ends the session without ordering. Returns whether there was one.
+     */
+    public boolean close(String id) {
+        return sessions.remove(id) != null;
+    }
+
+    private Snapshot edited(Session<?, ?> session, int from) {
+        session.update(from, recipes.getPrices());
+        edits.increment();
+        return session.snapshot();
+    }
+
+    private Session<?, ?> find(String id) {
+        Session<?, ?> session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.lastUsed > ttlNanos) {
+            if (sessions.remove(id, session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.lastUsed = now;
+        return session;
+    }
+
+    private Menu<?, ?> menu(String product) {
+        if (RecipeService.COFFEE.equals(product)) {
+            return coffee;
+        }
+        if (RecipeService.BURGER.equals(product)) {
+            return burger;
+        }
+        return null;
+    }
+
+    private static void checkPosition(int position, int bound) {
+        if (position < 0 || position >= bound) {
+            throw new IllegalArgumentException("Position " + position + " is out of range; the order has "
+                + (bound > 0 ? "positions 0 to " + (bound - 1) : "no decorators"));
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        Iterator<Session<?, ?>> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUsed > ttlNanos) {
+                iterator.remove();
+                expired.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("open", sessions.size());
+        description.put("opened", opened.sum());
+        description.put("edits", edits.sum());
+        description.put("checked_out", checkedOut.sum());
+        description.put("expired", expired.sum());
+        description.put("ttl_seconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        description.put("max_sessions", maxSessions);
+        return description;
+    }
+
+    @Override
+    public void destroy() {
+        expiry.shutdownNow();
+    }
+
+    /**
+     * What a session needs of its product: the registry, the shared chain interner and
+     * how to turn a compiled chain into a response.
+     */
+    private static final class Menu<T, C> {
+        final DecoratorRegistry<T> registry;
+        final ChainInterner<T, C> chains;
+        final Responder<C> responder;
+
+        Menu(DecoratorRegistry<T> registry, ChainInterner<T, C> chains, Responder<C> responder) {
+            this.registry = registry;
+            this.chains = chains;
+            this.responder = responder;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Responder<C> {
+        RecipeResponse respond(C compiled, String cost, long priceVersion);
+    }
+
+    /**
+     * One order being built. Guarded by its own lock.
+     */
+    private static final class Session<T, C> {
+        final String id;
+        final Menu<T, C> menu;
+        volatile long lastUsed = System.nanoTime();
+
+        int[] decoratorIds = new int[8];
+        int size;
+        // The chain of the decorators up to the end of each run, innermost first
+        final List<Run<T, C>> runs = new ArrayList<>();
+        // cents[i] is the price with the first i decorators, in the prices of priceVersion
+        long[] cents = new long[decoratorIds.length + 1];
+        long priceVersion = -1;
+        RecipeResponse response;
+
+        Session(String id, Menu<T, C> menu) {
+            this.id = id;
+            this.menu = menu;
+        }
+
+        void replace(int[] ids, PriceTable prices) {
+            size = 0;
+            ensureCapacity(ids.length);
+            System.arraycopy(ids, 0, decoratorIds, 0, ids.length);
+            size = ids.length;
+            update(0, prices);
+        }
+
+        void add(int position, int decoratorId) {
+            ensureCapacity(size + 1);
+            System.arraycopy(decoratorIds, position, decoratorIds, position + 1, size - position);
+            decoratorIds[position] = decoratorId;
+            size++;
+        }
+
+        void remove(int position) {
+            System.arraycopy(decoratorIds, position + 1, decoratorIds, position, size - position - 1);
+            size--;
+        }
+
+        void move(int from, int to) {
+            int moved = decoratorIds[from];
+            if (from < to) {
+                System.arraycopy(decoratorIds, from + 1, decoratorIds, from, to - from);
+            } else {
+                System.arraycopy(decoratorIds, to, decoratorIds, to + 1, from - to);
+            }
+            decoratorIds[to] = moved;
+        }
+
+        /**
+         * Brings the chain, price and response up to date after the decorators from
+         * {@code from} on changed, reusing what was built for the ones before it.
+         */
+        void update(int from, PriceTable prices) {
+            // Runs that end by the first change stay, unless the last of them now goes on
+            int kept = runs.size();
+            while (kept > 0 && runs.get(kept - 1).end > from) {
+                kept--;
+            }
+            if (kept > 0 && from < size && runs.get(kept - 1).end == from
+                    && decoratorIds[from] == decoratorIds[from - 1]) {
+                kept--;
+            }
+            runs.subList(kept, runs.size()).clear();
+
+            ChainInterner.Node<T, C> node = kept > 0 ? runs.get(kept - 1).node : menu.chains.getRoot();
+            int i = kept > 0 ? runs.get(kept - 1).end : 0;
+            while (i < size) {
+                int run = menu.registry.runLength(decoratorIds, i, size);
+                node = menu.chains.child(node, decoratorIds[i], run, 0);
+                i += run;
+                runs.add(new Run<>(node, i));
+                if (runs.size() % CHECKPOINT_RUNS == 0) {
+                    menu.chains.compile(node);
+                }
+            }
+
+            PriceTable.ProductPrices table = prices.forProduct(menu.registry.getProduct());
+            int priced = from;
+            if (prices.getVersion() != priceVersion) {
+                cents[0] = table.getBaseCents();
+                priced = 0;
+            }
+            for (int d = priced; d < size; d++) {
+                cents[d + 1] = cents[d] + table.getAddedCents(decoratorIds[d]);
+            }
+            priceVersion = prices.getVersion();
+            response = menu.responder.respond(menu.chains.compile(node), Money.format(cents[size]), priceVersion);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > decoratorIds.length) {
+                int length = Math.max(capacity, decoratorIds.length * 2);
+                decoratorIds = Arrays.copyOf(decoratorIds, length);
+                cents = Arrays.copyOf(cents, length + 1);
+            }
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(id, menu.registry.getProduct(), Arrays.copyOf(decoratorIds, size), cents[size],
+                priceVersion, response);
+        }
+    }
+
+    private static final class Run<T, C> {
+        final ChainInterner.Node<T, C> node;
+        // Where the run ends in the session's decorators
+        final int end;
+
+        Run(ChainInterner.Node<T, C> node, int end) {
+            this.node = node;
+            this.end = end;
+        }
+    }
+
+    /**
+     * A session's order at one point: its decorators, price and response.
+     */
+    public static final class Snapshot {
+        private final String id;
+        private final String product;
+        private final int[] decoratorIds;
+        private final long costCents;
+        private final long priceVersion;
+        private final RecipeResponse response;
+
+        Snapshot(String id, String product, int[] decoratorIds, long costCents, long priceVersion,
+                 RecipeResponse response) {
+            this.id = id;
+            this.product = product;
+            this.decoratorIds = decoratorIds;
+            this.costCents = costCents;
+            this.priceVersion = priceVersion;
+            this.response = response;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public int[] getDecoratorIds() {
+            return decoratorIds;
+        }
+
+        public long getCostCents() {
+            return costCents;
+        }
+
+        public long getPriceVersion() {
+            return priceVersion;
+        }
+
+        public RecipeResponse getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.decorator.service;
+
+import com.example.decorator.api.InvalidOrderException;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.OrderCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Evaluates newline-delimited JSON orders as they are read and writes one result line
+ * per order. Orders are parsed token by token, straight to decorator ids, and nothing
+ * is retained between orders, so memory use doesn't depend on the input size. Writes
+ * block when the client reads slowly, which in turn stops the reading.
+ */
+@Service
+public class OrderStreamService {
+    // Flush often enough that interactive clients see results, rarely enough to batch writes
+    private static final int FLUSH_EVERY = 1000;
+
+    private final JsonFactory jsonFactory;
+    private final OrderCodec codec;
+    private final RecipeService recipes;
+
+    public OrderStreamService(ObjectMapper objectMapper, OrderCodec codec, RecipeService recipes) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.codec = codec;
+        this.recipes = recipes;
+    }
+
+    /**
+     * Processes every order in the input and returns how many were read. An order that
+     * can't be evaluated gets an {"error": ...} line in its place; malformed JSON ends the stream.
+     */
+    public long process(InputStream in, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonParser parser = jsonFactory.createParser(in);
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            try {
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    count++;
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        writeError(generator, "Each order must be a JSON object");
+                    } else {
+                        writeOrder(parser, generator);
+                    }
+                    if (count % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                writeError(generator, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            generator.writeRaw('\n');
+        }
+        return count;
+    }
+
+    private void writeOrder(JsonParser parser, JsonGenerator generator) throws IOException {
+        Order<?> order;
+        try {
+            order = codec.read(parser, null);
+        } catch (InvalidOrderException e) {
+            writeError(generator, e.getMessage());
+            return;
+        }
+        recipes.order(recipes.key(order)).getResponse().writeTo(generator);
+    }
+
+    private static void writeError(JsonGenerator generator, String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+    }
+}
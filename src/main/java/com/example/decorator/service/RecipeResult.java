@@ -0,0 +1,28 @@
+package com.example.decorator.service;
+
+import com.example.decorator.api.RecipeResponse;
+
+/**
+ * An evaluated recipe: the immutable response body plus its exact cost in cents.
+ */
+public final class RecipeResult {
+    private final RecipeResponse response;
+    private final long costCents;
+
+    public RecipeResult(RecipeResponse response, long costCents) {
+        this.response = response;
+        this.costCents = costCents;
+    }
+
+    public RecipeResponse getResponse() {
+        return response;
+    }
+
+    public long getCostCents() {
+        return costCents;
+    }
+
+    public long getPriceVersion() {
+        return response.getPriceVersion();
+    }
+}
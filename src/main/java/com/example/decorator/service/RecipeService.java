@@ -0,0 +1,285 @@
+package com.example.decorator.service;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.RecipeResponse;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.CompiledBurger;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.cache.ChainInterner;
+import com.example.decorator.cache.RecipeCache;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.CompiledCoffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.money.Money;
+import com.example.decorator.pricing.PriceTable;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.text.CaseMapper;
+import com.example.decorator.text.PlainText;
+import com.example.decorator.text.StreamingText;
+import com.example.decorator.text.Text;
+import com.example.decorator.text.TextPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds and evaluates recipes from resolved decorator ids, serving repeated recipes
+ * from a bounded cache keyed by the canonical decorator sequence. Costs come from the
+ * current {@link PriceTable}; a cached recipe from an older price version is repriced
+ * without evaluating its chain again. Chains themselves are interned, so a recipe that
+ * isn't cached but extends one that was only evaluates its extra layers.
+ */
+@Service
+public class RecipeService {
+    public static final String COFFEE = "coffee";
+    public static final String BURGER = "burger";
+    public static final String TEXT = "text";
+
+    // Rough per-entry overhead of the key, response and strings
+    private static final long TEXT_ENTRY_OVERHEAD = 256;
+
+    private final DecoratorRegistries registries;
+    private final DecoratorMetrics metrics;
+    private final Pricing pricing;
+    private final OrderJournal journal;
+    private final OrderAnalytics analytics;
+    private final RecipeCache<RecipeResult> coffeeCache;
+    private final RecipeCache<RecipeResult> burgerCache;
+    private final RecipeCache<RecipeResult> textCache;
+    private final ChainInterner<Coffee, CompiledCoffee> coffeeChains;
+    private final ChainInterner<Burger, CompiledBurger> burgerChains;
+    // By case locale, as a text chain's base carries the locale its case layers follow
+    private final Map<Locale, ChainInterner<Text, StreamingText>> textChains = new ConcurrentHashMap<>();
+    private final int maxChainNodes;
+
+    public RecipeService(DecoratorRegistries registries, DecoratorMetrics metrics, Pricing pricing,
+                         OrderJournal journal, OrderAnalytics analytics,
+                         @Value("${decorator.cache.max-entries}") int maxEntries,
+                         @Value("${decorator.cache.text.max-entries}") int maxTextEntries,
+                         @Value("${decorator.cache.text.max-bytes}") long maxTextBytes,
+                         @Value("${decorator.cache.max-chain-nodes}") int maxChainNodes) {
+        this.registries = registries;
+        this.metrics = metrics;
+        this.pricing = pricing;
+        this.journal = journal;
+        this.analytics = analytics;
+        this.coffeeCache = new RecipeCache<>(COFFEE, maxEntries);
+        this.burgerCache = new RecipeCache<>(BURGER, maxEntries);
+        this.textCache = new RecipeCache<>(TEXT, maxTextEntries, maxTextBytes,
+            (key, result) -> TEXT_ENTRY_OVERHEAD
+                + 2L * (length(key.getText()) + length(((TextResponse) result.getResponse()).getContent())));
+        this.coffeeChains = new ChainInterner<>(COFFEE + "-chains", registries.coffee(), new SimpleCoffee(),
+            CompiledCoffee::compile, maxChainNodes);
+        this.burgerChains = new ChainInterner<>(BURGER + "-chains", registries.burger(), new SimpleBurger(),
+            CompiledBurger::compile, maxChainNodes);
+        this.maxChainNodes = maxChainNodes;
+    }
+
+    private ChainInterner<Text, StreamingText> textChains(Locale locale) {
+        // A text chain's content doesn't depend on the base's, so one pipeline serves any
+        // content. There are only a few case locales, so a few interners at most.
+        return textChains.computeIfAbsent(CaseMapper.caseLocale(locale), caseLocale -> new ChainInterner<>(
+            caseLocale.equals(Locale.ROOT) ? TEXT + "-chains" : TEXT + "-chains-" + caseLocale.getLanguage(),
+            registries.text(), new PlainText("", caseLocale),
+            (chain, prefix, compiledPrefix) -> StreamingText.of(chain), maxChainNodes));
+    }
+
+    public RecipeKey coffeeKey(int[] decoratorIds) {
+        metrics.recordDepth(COFFEE, decoratorIds.length);
+        return RecipeKey.of(COFFEE, decoratorIds);
+    }
+
+    public RecipeKey burgerKey(int[] decoratorIds) {
+        metrics.recordDepth(BURGER, decoratorIds.length);
+        return RecipeKey.of(BURGER, decoratorIds);
+    }
+
+    public RecipeKey textKey(String textContent, int[] decoratorIds, int encryptShift, Locale locale) {
+        metrics.recordDepth(TEXT, decoratorIds.length);
+        // The shift only matters to recipes that use it, so leave it out of the key otherwise
+        int shift = registries.text().takesArgument(decoratorIds) ? encryptShift : 0;
+        return RecipeKey.of(TEXT, decoratorIds, textContent, shift, CaseMapper.caseLocale(locale));
+    }
+
+    /**
+     * The cache key for a decoded order of any product.
+     */
+    public RecipeKey key(Order<?> order) {
+        switch (order.getProduct()) {
+            case COFFEE:
+                return coffeeKey(order.getDecoratorIds());
+            case BURGER:
+                return burgerKey(order.getDecoratorIds());
+            case TEXT:
+                return textKey(order.getText(), order.getDecoratorIds(), order.getEncryptShift(), order.getLocale());
+            default:
+                throw new IllegalArgumentException("Unknown product " + order.getProduct());
+        }
+    }
+
+    public CoffeeResponse coffee(int[] decoratorIds) {
+        return (CoffeeResponse) order(coffeeKey(decoratorIds)).getResponse();
+    }
+
+    public BurgerResponse burger(int[] decoratorIds) {
+        return (BurgerResponse) order(burgerKey(decoratorIds)).getResponse();
+    }
+
+    public TextResponse text(String textContent, int[] decoratorIds, int encryptShift, Locale locale) {
+        return (TextResponse) order(textKey(textContent, decoratorIds, encryptShift, locale)).getResponse();
+    }
+
+    /**
+     * Evaluates a customer's order and records it in the order journal and analytics.
+     */
+    public RecipeResult order(RecipeKey key) {
+        RecipeResult result = evaluate(key);
+        record(key.getProduct(), key.getDecoratorIds(), result.getCostCents(), result.getPriceVersion());
+        return result;
+    }
+
+    /**
+     * Records an order evaluated some other way, e.g. as part of a batch, in the order
+     * journal and analytics.
+     */
+    public void record(String product, int[] decoratorIds, long costCents, long priceVersion) {
+        journal.append(product, decoratorIds, costCents, priceVersion);
+        analytics.record(product, decoratorIds, decoratorIds.length, costCents, System.currentTimeMillis());
+    }
+
+    /**
+     * A text recipe to apply to streamed content, which is never cached.
+     */
+    public StreamingText streamingText(int[] decoratorIds, int encryptShift, Locale locale) {
+        metrics.recordDepth(TEXT, decoratorIds.length);
+        return textChains(locale).compile(decoratorIds, encryptShift);
+    }
+
+    /**
+     * The prices in effect now. A request that evaluates several recipes should price
+     * them all from one table.
+     */
+    public PriceTable getPrices() {
+        return pricing.current();
+    }
+
+    public RecipeResult evaluate(RecipeKey key) {
+        return evaluate(key, pricing.current());
+    }
+
+    public RecipeResult evaluate(RecipeKey key, PriceTable prices) {
+        RecipeCache<RecipeResult> cache = cacheFor(key.getProduct());
+        RecipeResult result = cache.get(key);
+        if (result != null && result.getPriceVersion() == prices.getVersion()) {
+            return result;
+        }
+
+        long costCents = prices.costCents(key.getProduct(), key.getDecoratorIds());
+        String cost = Money.format(costCents);
+        RecipeResponse response = result != null
+            ? result.getResponse().repriced(cost, prices.getVersion())
+            : evaluate(key, cost, prices.getVersion());
+        result = new RecipeResult(response, costCents);
+        cache.put(key, result);
+        return result;
+    }
+
+    private RecipeCache<RecipeResult> cacheFor(String product) {
+        switch (product) {
+            case COFFEE:
+                return coffeeCache;
+            case BURGER:
+                return burgerCache;
+            case TEXT:
+                return textCache;
+            default:
+                throw new IllegalArgumentException("Unknown product " + product);
+        }
+    }
+
+    private RecipeResponse evaluate(RecipeKey key, String cost, long priceVersion) {
+        long start = System.nanoTime();
+        RecipeResponse response;
+        switch (key.getProduct()) {
+            case COFFEE:
+                response = evaluateCoffee(key, cost, priceVersion);
+                break;
+            case BURGER:
+                response = evaluateBurger(key, cost, priceVersion);
+                break;
+            default:
+                response = evaluateText(key, cost, priceVersion);
+                break;
+        }
+        metrics.recordEvaluation(key, System.nanoTime() - start);
+        return response;
+    }
+
+    private CoffeeResponse evaluateCoffee(RecipeKey key, String cost, long priceVersion) {
+        return coffeeResponse(coffeeChains.compile(key.getDecoratorIds(), 0, metrics.chainStageTimer(COFFEE)),
+            cost, priceVersion);
+    }
+
+    private BurgerResponse evaluateBurger(RecipeKey key, String cost, long priceVersion) {
+        return burgerResponse(burgerChains.compile(key.getDecoratorIds(), 0, metrics.chainStageTimer(BURGER)),
+            cost, priceVersion);
+    }
+
+    static CoffeeResponse coffeeResponse(CompiledCoffee compiled, String cost, long priceVersion) {
+        return new CoffeeResponse(compiled.getDescription(), cost, priceVersion);
+    }
+
+    static BurgerResponse burgerResponse(CompiledBurger compiled, String cost, long priceVersion) {
+        String sentencePart = compiled.getSentencePart();
+        String sentence = sentencePart.isEmpty() ? "" : "The burger has " + sentencePart + ".";
+        return new BurgerResponse(compiled.getDescription(), cost, priceVersion, sentence);
+    }
+
+    ChainInterner<Coffee, CompiledCoffee> getCoffeeChains() {
+        return coffeeChains;
+    }
+
+    ChainInterner<Burger, CompiledBurger> getBurgerChains() {
+        return burgerChains;
+    }
+
+    private TextResponse evaluateText(RecipeKey key, String cost, long priceVersion) {
+        StreamingText text = textChains(key.getLocale()).compile(key.getDecoratorIds(), key.getShift());
+        TextPipeline.StageTimer timer = metrics.textStageTimer();
+        String content = timer == null ? text.apply(key.getText()) : text.apply(key.getText(), timer);
+        return new TextResponse(content, cost, priceVersion);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (RecipeCache<?> cache : new RecipeCache<?>[] {coffeeCache, burgerCache, textCache}) {
+            stats.put(cache.getName(), cache.getStats());
+        }
+        List<ChainInterner<?, ?>> interners = new ArrayList<>();
+        interners.add(coffeeChains);
+        interners.add(burgerChains);
+        interners.addAll(textChains.values());
+        for (ChainInterner<?, ?> chains : interners) {
+            stats.put(chains.getName(), chains.getStats());
+        }
+        return stats;
+    }
+}
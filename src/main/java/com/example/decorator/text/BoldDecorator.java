@@ -1,20 +1,28 @@
 package com.example.decorator.text;
 
+import com.example.decorator.registry.RegisteredDecorator;
+
 /**
  * Concrete Decorator - Wraps text with HTML bold tags
  */
-public class BoldDecorator extends TextDecorator {
+@RegisteredDecorator(name = "bold", id = 0)
+public class BoldDecorator extends TagDecorator {
     public BoldDecorator(Text text) {
         super(text);
     }
 
     @Override
-    public String getContent() {
-        return "<b>" + text.getContent() + "</b>";
+    public String getOpeningTag() {
+        return "<b>";
+    }
+
+    @Override
+    public String getClosingTag() {
+        return "</b>";
     }
 
     @Override
-    public double getCost() {
-        return text.getCost() + 0.3;
+    public long getAddedCostCents() {
+        return 30;
     }
 }
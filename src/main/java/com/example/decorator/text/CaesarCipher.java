@@ -0,0 +1,144 @@
+package com.example.decorator.text;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Table-driven Caesar cipher over the ASCII letters A-Z and a-z. Every other character,
+ * including non-ASCII letters, passes through unchanged, so UTF-8 bytes can be
+ * transformed in place as well as chars. Shifts may be negative or larger than 26.
+ */
+public final class CaesarCipher {
+    private static final int BUFFER_SIZE = 8192;
+    private static final CaesarCipher[] CIPHERS = new CaesarCipher[26];
+
+    static {
+        for (int shift = 0; shift < 26; shift++) {
+            CIPHERS[shift] = new CaesarCipher(shift);
+        }
+    }
+
+    private final int shift;
+    private final char[] chars = new char[128];
+    private final byte[] bytes = new byte[128];
+    private final int[] asciiTable = new int[128];
+
+    private CaesarCipher(int shift) {
+        this.shift = shift;
+        for (int c = 0; c < 128; c++) {
+            int mapped = c;
+            if (c >= 'A' && c <= 'Z') {
+                mapped = 'A' + (c - 'A' + shift) % 26;
+            } else if (c >= 'a' && c <= 'z') {
+                mapped = 'a' + (c - 'a' + shift) % 26;
+            }
+            chars[c] = (char) mapped;
+            bytes[c] = (byte) mapped;
+            asciiTable[c] = mapped;
+        }
+    }
+
+    public static CaesarCipher forShift(int shift) {
+        return CIPHERS[Math.floorMod(shift, 26)];
+    }
+
+    /**
+     * The shift normalized to 0-25.
+     */
+    public int getShift() {
+        return shift;
+    }
+
+    public CaesarCipher inverse() {
+        return forShift(-shift);
+    }
+
+    public boolean isIdentity() {
+        return shift == 0;
+    }
+
+    /**
+     * The cipher as a table from each ASCII char to its encrypted char. The array is
+     * shared and must not be modified.
+     */
+    public int[] getAsciiTable() {
+        return asciiTable;
+    }
+
+    public char apply(char c) {
+        return c < 128 ? chars[c] : c;
+    }
+
+    public String encrypt(String text) {
+        if (shift == 0) {
+            return text;
+        }
+        char[] buffer = text.toCharArray();
+        apply(buffer, 0, buffer.length);
+        return new String(buffer);
+    }
+
+    public String decrypt(String text) {
+        return inverse().encrypt(text);
+    }
+
+    /**
+     * Encrypts {@code buffer[from, to)} in place.
+     */
+    public void apply(char[] buffer, int from, int to) {
+        char[] table = chars;
+        for (int i = from; i < to; i++) {
+            char c = buffer[i];
+            if (c < 128) {
+                buffer[i] = table[c];
+            }
+        }
+    }
+
+    /**
+     * Encrypts {@code buffer[from, to)} in place. Bytes of multi-byte UTF-8 sequences are
+     * all above 0x7F, so they are never touched.
+     */
+    public void apply(byte[] buffer, int from, int to) {
+        byte[] table = bytes;
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b >= 0) {
+                buffer[i] = table[b];
+            }
+        }
+    }
+
+    /**
+     * Encrypts everything from the reader to the writer a chunk at a time, and returns
+     * the number of chars written.
+     */
+    public long encrypt(Reader in, Writer out) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        long total = 0;
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            apply(buffer, 0, read);
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Encrypts UTF-8 or ASCII bytes from the input to the output a chunk at a time, and
+     * returns the number of bytes written.
+     */
+    public long encrypt(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            apply(buffer, 0, read);
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+}
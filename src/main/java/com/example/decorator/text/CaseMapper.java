@@ -0,0 +1,281 @@
+package com.example.decorator.text;
+
+import java.util.IllformedLocaleException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upper-, lower- and title-cases text by one locale's rules. The same results as
+ * {@link String#toUpperCase(Locale)} and {@link String#toLowerCase(Locale)}, but ASCII is
+ * mapped in place four chars at a time and the rest of Latin-1 a char at a time, and
+ * only the runs of other chars, each with the char before it, go through the general
+ * Unicode path.
+ *
+ * <p>Only Turkish, Azerbaijani and Lithuanian have case rules of their own; any other
+ * locale maps like {@link Locale#ROOT}, so there is one mapper per those four.
+ */
+public final class CaseMapper {
+    private static final Map<Locale, CaseMapper> MAPPERS = new ConcurrentHashMap<>();
+
+    // Four 16-bit chars per long; a lane with any of these bits set is not ASCII
+    private static final long NON_ASCII = 0xFF80FF80FF80FF80L;
+    private static final long HIGH_BITS = 0x0080008000800080L;
+    private static final long LANE = 0x0001000100010001L;
+
+    private static final char CAPITAL_SIGMA = '\u03A3';
+
+    private final Locale locale;
+    // What each Latin-1 char maps to, or -1 if it doesn't map to a single Latin-1 char
+    private final int[] upperTable;
+    private final int[] lowerTable;
+    private final int[] asciiUpperTable;
+    // Whether the tables flip the case of ASCII letters and leave the rest of ASCII, as the
+    // word-at-a-time path assumes
+    private final boolean swarUpper;
+    private final boolean swarLower;
+
+    private CaseMapper(Locale locale) {
+        this.locale = locale;
+        this.upperTable = new int[256];
+        this.lowerTable = new int[256];
+        for (char c = 0; c < 256; c++) {
+            upperTable[c] = single(String.valueOf(c).toUpperCase(locale));
+            lowerTable[c] = single(String.valueOf(c).toLowerCase(locale));
+        }
+        this.asciiUpperTable = new int[128];
+        boolean swarUpper = true;
+        boolean swarLower = true;
+        for (char c = 0; c < 128; c++) {
+            asciiUpperTable[c] = upperTable[c] < 128 ? upperTable[c] : -1;
+            swarUpper &= upperTable[c] == (c >= 'a' && c <= 'z' ? c ^ 0x20 : c);
+            swarLower &= lowerTable[c] == (c >= 'A' && c <= 'Z' ? c ^ 0x20 : c);
+        }
+        this.swarUpper = swarUpper;
+        this.swarLower = swarLower;
+    }
+
+    public static CaseMapper forLocale(Locale locale) {
+        return MAPPERS.computeIfAbsent(caseLocale(locale), CaseMapper::new);
+    }
+
+    /**
+     * The locale whose case rules apply to text in the given one: its language if that
+     * has rules of its own, otherwise {@link Locale#ROOT}.
+     */
+    public static Locale caseLocale(Locale locale) {
+        switch (locale.getLanguage()) {
+            case "tr":
+            case "az":
+            case "lt":
+                return new Locale(locale.getLanguage());
+            default:
+                return Locale.ROOT;
+        }
+    }
+
+    /**
+     * The case locale of a BCP 47 language tag, e.g. "tr-TR".
+     *
+     * @throws IllegalArgumentException if the tag is ill-formed
+     */
+    public static Locale parse(String languageTag) {
+        try {
+            return caseLocale(new Locale.Builder().setLanguageTag(languageTag).build());
+        } catch (IllformedLocaleException e) {
+            throw new IllegalArgumentException("Not a language tag: " + languageTag, e);
+        }
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * What upper-casing turns each ASCII char into, as for
+     * {@link CharDecorator#getAsciiTable()}. Shared; must not be modified.
+     */
+    public int[] getAsciiUpperTable() {
+        return asciiUpperTable;
+    }
+
+    public String toUpperCase(String s) {
+        return map(s, true);
+    }
+
+    public String toLowerCase(String s) {
+        // A capital sigma lower-cases by whether a letter comes before it, past any
+        // punctuation, so it can't be mapped a run at a time
+        if (s.indexOf(CAPITAL_SIGMA) >= 0) {
+            return s.toLowerCase(locale);
+        }
+        return map(s, false);
+    }
+
+    private String map(String s, boolean upper) {
+        int[] table = upper ? upperTable : lowerTable;
+        boolean swar = upper ? swarUpper : swarLower;
+        char first = upper ? 'a' : 'A';
+        char last = upper ? 'z' : 'Z';
+        char[] chars = s.toCharArray();
+        StringBuilder out = null;
+        // Chars before this are in out
+        int flushed = 0;
+        int i = 0;
+        while (i < chars.length) {
+            // Words up to a block with other chars, then that block a char at a time
+            int end = chars.length;
+            if (swar) {
+                i = flipWords(chars, i, first, last);
+                end = Math.min(i + 4, chars.length);
+            }
+            i = mapChars(chars, i, end, table);
+            if (i == end) {
+                continue;
+            }
+
+            // Hand the char before a slow run to the general path too, as some rules look
+            // at it (e.g. Lithuanian drops a combining dot above an "i")
+            int slowStart = i > flushed ? i - 1 : i;
+            i++;
+            while (i < chars.length && (chars[i] >= 256 || table[chars[i]] < 0)) {
+                i++;
+            }
+            String slow = s.substring(slowStart, i);
+            if (out == null) {
+                out = new StringBuilder(chars.length + 16);
+            }
+            out.append(chars, flushed, slowStart - flushed).append(upper ? slow.toUpperCase(locale) : slow.toLowerCase(locale));
+            flushed = i;
+        }
+        if (out == null) {
+            return new String(chars);
+        }
+        return out.append(chars, flushed, chars.length - flushed).toString();
+    }
+
+    /**
+     * Title-cases each word: its first letter or digit, with any combining marks on it,
+     * to title case and the rest of the word to lower case. A word is a run of letters,
+     * digits and combining marks, and apostrophes within them, e.g. "don't"; anything
+     * else is left as it is.
+     */
+    public String toTitleCase(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            int start = i;
+            while (i < length && !Character.isLetterOrDigit(s.codePointAt(i))) {
+                i += Character.charCount(s.codePointAt(i));
+            }
+            out.append(s, start, i);
+            if (i == length) {
+                break;
+            }
+
+            int first = s.codePointAt(i);
+            int firstEnd = skipMarks(s, i + Character.charCount(first));
+            int end = firstEnd;
+            while (end < length) {
+                int c = s.codePointAt(end);
+                if (Character.isLetterOrDigit(c) || isCombiningMark(c)) {
+                    end += Character.charCount(c);
+                } else if (isApostrophe(c) && end + 1 < length && Character.isLetterOrDigit(s.codePointAt(end + 1))) {
+                    end++;
+                } else {
+                    break;
+                }
+            }
+
+            // The rest of the word is lower-cased along with its first letter, then that
+            // letter's part dropped, as a letter's lower case can depend on the ones before
+            // it (e.g. a capital sigma ending a word is a final sigma)
+            String lower = s.substring(i, end).toLowerCase(locale);
+            int title = Character.toTitleCase(first);
+            if (title != Character.toUpperCase(first)) {
+                // A digraph such as "dz" with a caron, whose title case isn't its upper case
+                int firstLength = String.valueOf(Character.toChars(first)).toLowerCase(locale).length();
+                out.appendCodePoint(title).append(lower, firstLength, lower.length());
+            } else {
+                // Upper-case the first letter with its marks, in case the locale's rules
+                // need them, and keep only the first char of an expansion like sharp s to "SS"
+                String upper = s.substring(i, firstEnd).toUpperCase(locale);
+                int head = Character.charCount(upper.codePointAt(0));
+                int firstLength = s.substring(i, firstEnd).toLowerCase(locale).length();
+                out.append(upper, 0, head)
+                    .append(upper.substring(head).toLowerCase(locale))
+                    .append(lower, firstLength, lower.length());
+            }
+            i = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Flips the case of the ASCII letters in {@code [first, last]}, four chars at a time,
+     * from {@code from} up to the first block that holds a non-ASCII char. Returns how
+     * far it got.
+     */
+    private static int flipWords(char[] chars, int from, char first, char last) {
+        // Adding these sets a lane's high bit exactly when its char is at least first, or
+        // above last; an ASCII lane never carries into the next
+        long atLeastFirst = LANE * (0x80 - first);
+        long aboveLast = LANE * (0x80 - last - 1);
+        int i = from;
+        for (; i + 4 <= chars.length; i += 4) {
+            long word = chars[i] | (long) chars[i + 1] << 16 | (long) chars[i + 2] << 32 | (long) chars[i + 3] << 48;
+            if ((word & NON_ASCII) != 0) {
+                break;
+            }
+            long letters = ((word + atLeastFirst) ^ (word + aboveLast)) & HIGH_BITS;
+            if (letters != 0) {
+                // The high bit shifted down to 0x20, the case bit
+                word ^= letters >>> 2;
+                chars[i] = (char) word;
+                chars[i + 1] = (char) (word >>> 16);
+                chars[i + 2] = (char) (word >>> 32);
+                chars[i + 3] = (char) (word >>> 48);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Maps chars in {@code [from, to)} through the Latin-1 table until one that it can't
+     * map. Returns that char's index, or {@code to}.
+     */
+    private static int mapChars(char[] chars, int from, int to, int[] table) {
+        int i = from;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c >= 256 || table[c] < 0) {
+                break;
+            }
+            chars[i] = (char) table[c];
+        }
+        return i;
+    }
+
+    private static int single(String mapped) {
+        return mapped.length() == 1 && mapped.charAt(0) < 256 ? mapped.charAt(0) : -1;
+    }
+
+    private static int skipMarks(String s, int i) {
+        while (i < s.length() && isCombiningMark(s.codePointAt(i))) {
+            i += Character.charCount(s.codePointAt(i));
+        }
+        return i;
+    }
+
+    private static boolean isCombiningMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK
+            || type == Character.ENCLOSING_MARK
+            || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static boolean isApostrophe(int codePoint) {
+        return codePoint == '\'' || codePoint == '\u2019';
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.decorator.text;
+
+/**
+ * Decorator whose transform works character by character, so it gives the same result
+ * on the content as a whole or on any split of it between characters (a locale's
+ * case rules may also look at the one character before). Such layers, and the tags
+ * around them, can be fused into a single pass by {@link TextPipeline}.
+ */
+public abstract class CharDecorator extends TextDecorator {
+    public CharDecorator(Text text) {
+        super(text);
+    }
+
+    /**
+     * What this layer turns each ASCII char into: the resulting ASCII char, or -1 if it
+     * becomes a non-ASCII char or more than one char. The array is shared and must not
+     * be modified.
+     */
+    public abstract int[] getAsciiTable();
+}
@@ -0,0 +1,63 @@
+package com.example.decorator.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flattened, immutable form of a decorator chain. The content and cost are
+ * computed once, the content through a fused {@link TextPipeline}, instead of on
+ * every call through each layer.
+ */
+public final class CompiledText implements Text {
+    private final String content;
+    private final double cost;
+    private final long costCents;
+
+    private CompiledText(String content, double cost, long costCents) {
+        this.content = content;
+        this.cost = cost;
+        this.costCents = costCents;
+    }
+
+    public static CompiledText compile(Text text) {
+        if (text instanceof CompiledText) {
+            return (CompiledText) text;
+        }
+
+        List<TextDecorator> layers = new ArrayList<>();
+        Text base = text;
+        while (base instanceof TextDecorator) {
+            TextDecorator layer = (TextDecorator) base;
+            layers.add(layer);
+            base = layer.text;
+        }
+
+        // Innermost layer first, so the cost is summed in the same order as the recursive form
+        Collections.reverse(layers);
+        double cost = base.getCost();
+        long costCents = base.getCostCents();
+        for (TextDecorator layer : layers) {
+            cost += layer.getAddedCost();
+            costCents += layer.getAddedCostCents();
+        }
+        String content = TextPipeline.compile(layers).apply(base.getContent());
+
+        return new CompiledText(content, cost, costCents);
+    }
+
+    @Override
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public long getCostCents() {
+        return costCents;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.decorator.text;
 
-public class EncryptDecorator extends TextDecorator {
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "encrypt", id = 4)
+public class EncryptDecorator extends CharDecorator {
     private int shift;
 
     public EncryptDecorator(Text text, int shift) {
@@ -8,26 +11,41 @@ public class EncryptDecorator extends TextDecorator {
         this.shift = shift;
     }
 
+    public int getShift() {
+        return shift;
+    }
+
+    public CaesarCipher getCipher() {
+        return CaesarCipher.forShift(shift);
+    }
+
     @Override
-    public String getContent() {
-        String original = text.getContent();
-        StringBuilder encrypted = new StringBuilder();
-
-        for (char c : original.toCharArray()) {
-            if (Character.isLetter(c)) {
-                char base = Character.isUpperCase(c) ? 'A' : 'a';
-                char encryptedChar = (char) ((c - base + shift) % 26 + base);
-                encrypted.append(encryptedChar);
-            } else {
-                encrypted.append(c);
-            }
+    public int[] getAsciiTable() {
+        return getCipher().getAsciiTable();
+    }
+
+    @Override
+    public String transform(String original) {
+        return getCipher().encrypt(original);
+    }
+
+    @Override
+    public TextDecorator mergeWith(TextDecorator inner) {
+        if (!(inner instanceof EncryptDecorator)) {
+            return null;
         }
+        // Shifts compose by addition mod 26; normalize first so the sum can't overflow
+        int combined = getCipher().getShift() + ((EncryptDecorator) inner).getCipher().getShift();
+        return new EncryptDecorator(inner.text, combined);
+    }
 
-        return encrypted.toString();
+    @Override
+    public boolean isIdentity() {
+        return getCipher().isIdentity();
     }
 
     @Override
-    public double getCost() {
-        return text.getCost() + 1.5;
+    public long getAddedCostCents() {
+        return 150;
     }
 }
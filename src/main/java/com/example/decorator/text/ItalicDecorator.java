@@ -1,17 +1,25 @@
 package com.example.decorator.text;
 
-public class ItalicDecorator extends TextDecorator {
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "italic", id = 1)
+public class ItalicDecorator extends TagDecorator {
     public ItalicDecorator(Text text) {
         super(text);
     }
 
     @Override
-    public String getContent() {
-        return "<i>" + text.getContent() + "</i>";
+    public String getOpeningTag() {
+        return "<i>";
+    }
+
+    @Override
+    public String getClosingTag() {
+        return "</i>";
     }
 
     @Override
-    public double getCost() {
-        return text.getCost() + 0.3;
+    public long getAddedCostCents() {
+        return 30;
     }
 }
@@ -0,0 +1,34 @@
+package com.example.decorator.text;
+
+import com.example.decorator.registry.RegisteredDecorator;
+
+/**
+ * Not a {@link CharDecorator}: a capital sigma lower-cases to its final form by the
+ * letters before it, which may be any number of chars back past punctuation, so the
+ * content can't be split between chars.
+ */
+@RegisteredDecorator(name = "lowercase", id = 5)
+public class LowerCaseDecorator extends TextDecorator {
+    private final CaseMapper mapper;
+
+    public LowerCaseDecorator(Text text) {
+        super(text);
+        this.mapper = CaseMapper.forLocale(getLocale());
+    }
+
+    @Override
+    public String transform(String content) {
+        return mapper.toLowerCase(content);
+    }
+
+    @Override
+    public TextDecorator mergeWith(TextDecorator inner) {
+        // Lower-casing is idempotent, so twice in a row is the same as once
+        return inner instanceof LowerCaseDecorator ? inner : null;
+    }
+
+    @Override
+    public long getAddedCostCents() {
+        return 50;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.decorator.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file by decoding straight out of memory-mapped windows of it, so the
+ * bytes are never copied onto the heap. Malformed input is replaced, as by
+ * {@link java.io.InputStreamReader}.
+ */
+final class MappedTextReader extends Reader {
+    private static final long WINDOW = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean flushed;
+    // Second half of a surrogate pair decoded for a one-char read
+    private final CharBuffer pair = CharBuffer.allocate(2);
+    private boolean pending;
+
+    MappedTextReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (pending) {
+            chars[offset] = pair.get(1);
+            pending = false;
+            return 1;
+        }
+        if (length == 1) {
+            pair.clear();
+            int read = decode(pair);
+            if (read == 2) {
+                pending = true;
+            }
+            if (read > 0) {
+                chars[offset] = pair.get(0);
+                return 1;
+            }
+            return read;
+        }
+        return decode(CharBuffer.wrap(chars, offset, length));
+    }
+
+    private int decode(CharBuffer out) throws IOException {
+        if (flushed) {
+            return -1;
+        }
+
+        int offset = out.position();
+        while (true) {
+            if (window == null) {
+                map(0);
+            }
+            boolean last = windowStart + window.limit() == size;
+            CoderResult result = decoder.decode(window, out, last);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (!last) {
+                // Continue from the first byte not decoded, which may start a split sequence
+                map(windowStart + window.position());
+                continue;
+            }
+            decoder.flush(out);
+            flushed = true;
+            if (out.position() == offset) {
+                return -1;
+            }
+            break;
+        }
+        return out.position() - offset;
+    }
+
+    private void map(long position) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        windowStart = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
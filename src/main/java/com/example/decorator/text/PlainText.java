@@ -1,10 +1,18 @@
 package com.example.decorator.text;
 
+import java.util.Locale;
+
 public class PlainText implements Text {
     private String content;
+    private final Locale locale;
 
     public PlainText(String content) {
+        this(content, Locale.ROOT);
+    }
+
+    public PlainText(String content, Locale locale) {
         this.content = content;
+        this.locale = locale;
     }
 
     @Override
@@ -16,4 +24,14 @@ public class PlainText implements Text {
     public double getCost() {
         return 1.0;
     }
+
+    @Override
+    public long getCostCents() {
+        return 100;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
 }
@@ -0,0 +1,140 @@
+package com.example.decorator.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The streaming counterpart of {@link Text}: a decorator chain applied to content read
+ * from a source and written straight to a sink, so documents of any size are
+ * transformed in constant memory. Tags are written once around the body and the char
+ * transforms applied to it chunk by chunk, through a fused {@link TextPipeline}.
+ * The content of the chain's base is ignored; its cost still counts.
+ */
+public final class StreamingText {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final TextPipeline pipeline;
+    private final long costCents;
+
+    private StreamingText(TextPipeline pipeline, long costCents) {
+        this.pipeline = pipeline;
+        this.costCents = costCents;
+    }
+
+    public static StreamingText of(Text chain) {
+        List<TextDecorator> layers = new ArrayList<>();
+        Text base = chain;
+        while (base instanceof TextDecorator) {
+            TextDecorator layer = (TextDecorator) base;
+            layers.add(layer);
+            base = layer.text;
+        }
+
+        Collections.reverse(layers);
+        long costCents = base.getCostCents();
+        for (TextDecorator layer : layers) {
+            costCents += layer.getAddedCostCents();
+        }
+        return new StreamingText(TextPipeline.compile(layers), costCents);
+    }
+
+    public long getCostCents() {
+        return costCents;
+    }
+
+    public TextPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * The decorated content, as the chain would render it over a base with this content.
+     */
+    public String apply(String content) {
+        return pipeline.apply(content);
+    }
+
+    /**
+     * Like {@link #apply(String)}, and times each stage of the pipeline.
+     */
+    public String apply(String content, TextPipeline.StageTimer timer) {
+        return pipeline.apply(content, timer);
+    }
+
+    /**
+     * Writes the decorated content of the source and returns the number of chars
+     * written. Chains with decorators that need the whole content at once are still
+     * supported, but buffer it.
+     */
+    public long write(Reader source, Writer out) throws IOException {
+        if (pipeline.isStreamable()) {
+            return pipeline.write(source, out);
+        }
+
+        StringWriter content = new StringWriter();
+        char[] buffer = new char[BUFFER_SIZE];
+        for (int read = source.read(buffer); read >= 0; read = source.read(buffer)) {
+            content.write(buffer, 0, read);
+        }
+        String result = pipeline.apply(content.toString());
+        out.write(result);
+        return result.length();
+    }
+
+    /**
+     * Writes the decorated content of the source to any {@link Appendable}, e.g. a
+     * {@link StringBuilder}.
+     */
+    public long write(Reader source, Appendable out) throws IOException {
+        if (out instanceof Writer) {
+            return write(source, (Writer) out);
+        }
+        return write(source, new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                out.append(CharBuffer.wrap(chars, offset, length));
+            }
+
+            @Override
+            public void write(String s) throws IOException {
+                out.append(s);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    /**
+     * Writes the decorated content of the source to the channel as UTF-8.
+     */
+    public long write(Reader source, WritableByteChannel out) throws IOException {
+        Writer writer = Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+        long written = write(source, writer);
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * Writes the decorated content of a UTF-8 file, read through a memory mapping.
+     */
+    public long write(Path file, Writer out) throws IOException {
+        try (Reader source = new MappedTextReader(file)) {
+            return write(source, out);
+        }
+    }
+}
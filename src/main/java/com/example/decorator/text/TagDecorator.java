@@ -0,0 +1,20 @@
+package com.example.decorator.text;
+
+/**
+ * Decorator that wraps the content in a fixed opening and closing tag. Runs of tag
+ * layers are written once around the content rather than re-copying it per layer.
+ */
+public abstract class TagDecorator extends TextDecorator {
+    public TagDecorator(Text text) {
+        super(text);
+    }
+
+    @Override
+    public String transform(String content) {
+        return getOpeningTag() + content + getClosingTag();
+    }
+
+    public abstract String getOpeningTag();
+
+    public abstract String getClosingTag();
+}
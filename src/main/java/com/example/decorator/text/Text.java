@@ -1,6 +1,17 @@
 package com.example.decorator.text;
 
+import java.util.Locale;
+
 public interface Text {
     String getContent();
     double getCost();
+    long getCostCents();
+
+    /**
+     * The locale of the content, whose rules locale-sensitive layers such as case
+     * mapping follow.
+     */
+    default Locale getLocale() {
+        return Locale.ROOT;
+    }
 }
@@ -1,15 +1,72 @@
 package com.example.decorator.text;
 
+import java.util.Locale;
+
 public abstract class TextDecorator implements Text {
     protected Text text;
+    // Taken from the wrapped text once, so asking a deep chain doesn't recurse
+    private final Locale locale;
 
     public TextDecorator(Text text) {
         this.text = text;
+        this.locale = text.getLocale();
+    }
+
+    // Evaluated iteratively through the compiled form, so arbitrarily deep chains
+    // don't grow the stack
+
+    @Override
+    public String getContent() {
+        return CompiledText.compile(this).getContent();
     }
 
     @Override
-    public abstract String getContent();
+    public double getCost() {
+        return CompiledText.compile(this).getCost();
+    }
+
+    @Override
+    public long getCostCents() {
+        return CompiledText.compile(this).getCostCents();
+    }
 
     @Override
-    public abstract double getCost();
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Applies this layer to the content produced by the wrapped text.
+     */
+    public abstract String transform(String content);
+
+    /**
+     * A single layer whose transform equals this one applied over {@code inner}'s, when
+     * there is one, or null. Lets {@link TextPipeline} simplify a chain, e.g. two
+     * encryptions into one. Costs are unaffected: every layer of a chain still counts.
+     */
+    public TextDecorator mergeWith(TextDecorator inner) {
+        return null;
+    }
+
+    /**
+     * Whether the transform returns any content unchanged, so the layer can be left out
+     * of the pipeline.
+     */
+    public boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * The amount this layer adds to the wrapped cost. Derived from the exact cents,
+     * which gives the same double as writing the literal, e.g. 50 / 100.0 == 0.50.
+     */
+    public double getAddedCost() {
+        return getAddedCostCents() / 100.0;
+    }
+
+    /**
+     * The amount this layer adds to the wrapped cost, in cents.
+     */
+    public abstract long getAddedCostCents();
 }
@@ -0,0 +1,460 @@
+package com.example.decorator.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A text decorator chain analyzed into stages that each run in a single pass. Runs of
+ * {@link CharDecorator} and {@link TagDecorator} layers are fused: the char transforms
+ * are composed into one ASCII lookup table applied to the body, and the tags become a
+ * prefix and suffix, already transformed by the layers outside them, written once
+ * around it. Any other decorator is applied on its own, between fused stages.
+ * Before that, the chain is simplified: adjacent layers that merge into one are
+ * merged and layers that change nothing dropped (see {@link TextDecorator#mergeWith}).
+ * The output is identical to evaluating the nested chain.
+ */
+public final class TextPipeline {
+    private static final int[] IDENTITY = new int[128];
+    private static final int STREAM_CHUNK = 8192;
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            IDENTITY[c] = c;
+        }
+    }
+
+    /**
+     * Told how long each stage took, when an evaluation is timed.
+     */
+    @FunctionalInterface
+    public interface StageTimer {
+        /**
+         * @param layers the layers the stage runs, innermost first, after simplifying
+         */
+        void record(List<TextDecorator> layers, long nanos);
+    }
+
+    private final List<TextDecorator> layers;
+    private final List<Stage> stages;
+
+    private TextPipeline(List<TextDecorator> layers, List<Stage> stages) {
+        this.layers = layers;
+        this.stages = stages;
+    }
+
+    /**
+     * Compiles the layers of a chain, given innermost first.
+     */
+    public static TextPipeline compile(List<TextDecorator> layers) {
+        List<TextDecorator> simplified = simplify(layers);
+        List<Stage> stages = new ArrayList<>();
+        int runStart = 0;
+        for (int i = 0; i <= simplified.size(); i++) {
+            if (i < simplified.size() && isFusable(simplified.get(i))) {
+                continue;
+            }
+            if (i > runStart) {
+                stages.add(new FusedStage(simplified.subList(runStart, i)));
+            }
+            if (i < simplified.size()) {
+                stages.add(new OpaqueStage(simplified.get(i)));
+            }
+            runStart = i + 1;
+        }
+        return new TextPipeline(new ArrayList<>(layers), stages);
+    }
+
+    /**
+     * The layers, innermost first, with adjacent mergeable layers merged and identity
+     * layers dropped. Used as a stack, so a merged layer can merge again with the one
+     * below it, e.g. three encryptions become one.
+     */
+    private static List<TextDecorator> simplify(List<TextDecorator> layers) {
+        List<TextDecorator> simplified = new ArrayList<>(layers.size());
+        for (TextDecorator layer : layers) {
+            TextDecorator current = layer;
+            while (!simplified.isEmpty()) {
+                TextDecorator merged = current.mergeWith(simplified.get(simplified.size() - 1));
+                if (merged == null) {
+                    break;
+                }
+                simplified.remove(simplified.size() - 1);
+                current = merged;
+            }
+            if (!current.isIdentity()) {
+                simplified.add(current);
+            }
+        }
+        return simplified;
+    }
+
+    private static boolean isFusable(TextDecorator layer) {
+        return layer instanceof CharDecorator || layer instanceof TagDecorator;
+    }
+
+    public String apply(String content) {
+        if (content == null) {
+            // Keep the nested chain's handling of null exactly, e.g. "<b>null</b>"
+            String result = null;
+            for (TextDecorator layer : layers) {
+                result = layer.transform(result);
+            }
+            return result;
+        }
+
+        String result = content;
+        for (Stage stage : stages) {
+            result = stage.apply(result);
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #apply(String)}, and times each stage.
+     */
+    public String apply(String content, StageTimer timer) {
+        if (content == null) {
+            return apply(null);
+        }
+
+        String result = content;
+        for (Stage stage : stages) {
+            long start = System.nanoTime();
+            result = stage.apply(result);
+            timer.record(stage.getLayers(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Whether the pipeline can transform a stream chunk by chunk, which needs every
+     * layer to be fusable.
+     */
+    public boolean isStreamable() {
+        return stages.isEmpty() || stages.size() == 1 && stages.get(0) instanceof FusedStage;
+    }
+
+    /**
+     * Transforms everything from the reader into the writer, a chunk at a time, and
+     * returns the number of chars written. Memory use doesn't depend on the input size.
+     */
+    public long write(Reader in, Writer out) throws IOException {
+        if (!isStreamable()) {
+            throw new IllegalStateException("Only chains of tag and char decorators can be streamed");
+        }
+        if (stages.isEmpty()) {
+            char[] buffer = new char[STREAM_CHUNK];
+            long written = 0;
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+                written += read;
+            }
+            return written;
+        }
+        return ((FusedStage) stages.get(0)).write(in, out);
+    }
+
+    /**
+     * What a streamable pipeline writes before the transformed content: the opening
+     * tags, already transformed by the layers outside them.
+     */
+    public String getPrefix() {
+        checkStreamable();
+        return stages.isEmpty() ? "" : ((FusedStage) stages.get(0)).prefix;
+    }
+
+    /**
+     * What a streamable pipeline writes after the transformed content.
+     */
+    public String getSuffix() {
+        checkStreamable();
+        return stages.isEmpty() ? "" : ((FusedStage) stages.get(0)).suffix;
+    }
+
+    /**
+     * Transforms {@code content[from, to)} on its own, without the prefix and suffix.
+     * Content cut at {@link #splitPoint}s, with each part transformed and the parts
+     * joined between the prefix and suffix, comes out the same as {@link #apply}.
+     */
+    public String transformPart(CharSequence content, int from, int to) {
+        checkStreamable();
+        if (stages.isEmpty() || ((FusedStage) stages.get(0)).identity) {
+            return content.subSequence(from, to).toString();
+        }
+        Output out = new Output(to - from);
+        ((FusedStage) stages.get(0)).transformBody(content, from, to, out);
+        return new String(out.chars, 0, out.length);
+    }
+
+    private void checkStreamable() {
+        if (!isStreamable()) {
+            throw new IllegalStateException("Only chains of tag and char decorators can be split");
+        }
+    }
+
+    /**
+     * The last point in {@code text[from, to)}, after {@code from}, where the text can be
+     * split and each part transformed on its own with the same result as the whole: before
+     * a char that is neither the second half of a surrogate pair nor a combining mark.
+     * Returns {@code to} if there is no such point.
+     */
+    public static int splitPoint(CharSequence text, int from, int to) {
+        for (int p = to - 1; p > from; p--) {
+            char c = text.charAt(p);
+            if (Character.isLowSurrogate(c)) {
+                continue;
+            }
+            int codePoint = Character.isHighSurrogate(c) && p + 1 < to
+                ? Character.toCodePoint(c, text.charAt(p + 1)) : c;
+            if (!isCombiningMark(codePoint)) {
+                return p;
+            }
+        }
+        // Nothing but combining marks: at least keep surrogate pairs together
+        for (int p = to - 1; p > from; p--) {
+            if (!Character.isLowSurrogate(text.charAt(p))) {
+                return p;
+            }
+        }
+        return to;
+    }
+
+    private static boolean isCombiningMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK
+            || type == Character.ENCLOSING_MARK
+            || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private interface Stage {
+        String apply(String content);
+
+        List<TextDecorator> getLayers();
+    }
+
+    private static final class OpaqueStage implements Stage {
+        private final TextDecorator layer;
+
+        OpaqueStage(TextDecorator layer) {
+            this.layer = layer;
+        }
+
+        @Override
+        public String apply(String content) {
+            return layer.transform(content);
+        }
+
+        @Override
+        public List<TextDecorator> getLayers() {
+            return Collections.singletonList(layer);
+        }
+    }
+
+    /**
+     * A growable char buffer written to directly by the fused stage.
+     */
+    private static final class Output {
+        char[] chars;
+        int length;
+
+        Output(int capacity) {
+            chars = new char[capacity];
+        }
+
+        void ensure(int extra) {
+            if (length + extra > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length + extra, chars.length + (chars.length >> 1)));
+            }
+        }
+
+        void append(String s) {
+            ensure(s.length());
+            s.getChars(0, s.length(), chars, length);
+            length += s.length();
+        }
+    }
+
+    private static final class FusedStage implements Stage {
+        private final List<TextDecorator> layers;
+        private final String prefix;
+        private final String suffix;
+        // All char transforms composed; -1 marks chars that need the slow path
+        private final int[] table;
+        private final boolean identity;
+        // Char transforms in application order, for non-ASCII runs
+        private final CharDecorator[] steps;
+
+        FusedStage(List<TextDecorator> run) {
+            // Walk outermost first, composing the char transforms seen so far, so each
+            // tag is transformed by exactly the layers outside it
+            int[] outer = IDENTITY.clone();
+            int[] scratch = new int[128];
+            List<CharDecorator> outerSteps = new ArrayList<>();
+            StringBuilder prefix = new StringBuilder();
+            List<String> closingTags = new ArrayList<>();
+            for (int i = run.size() - 1; i >= 0; i--) {
+                TextDecorator layer = run.get(i);
+                if (layer instanceof CharDecorator) {
+                    CharDecorator step = (CharDecorator) layer;
+                    int[] stepTable = step.getAsciiTable();
+                    for (int c = 0; c < 128; c++) {
+                        int mapped = stepTable[c];
+                        scratch[c] = mapped < 0 ? -1 : outer[mapped];
+                    }
+                    int[] swap = outer;
+                    outer = scratch;
+                    scratch = swap;
+                    outerSteps.add(step);
+                } else {
+                    TagDecorator tag = (TagDecorator) layer;
+                    prefix.append(map(tag.getOpeningTag(), outer, outerSteps));
+                    closingTags.add(map(tag.getClosingTag(), outer, outerSteps));
+                }
+            }
+
+            StringBuilder suffix = new StringBuilder();
+            for (int i = closingTags.size() - 1; i >= 0; i--) {
+                suffix.append(closingTags.get(i));
+            }
+
+            this.layers = Collections.unmodifiableList(new ArrayList<>(run));
+            this.prefix = prefix.toString();
+            this.suffix = suffix.toString();
+            this.table = outer;
+            this.identity = Arrays.equals(outer, IDENTITY);
+            this.steps = reversed(outerSteps);
+        }
+
+        private static CharDecorator[] reversed(List<CharDecorator> outermostFirst) {
+            CharDecorator[] steps = new CharDecorator[outermostFirst.size()];
+            for (int i = 0; i < steps.length; i++) {
+                steps[i] = outermostFirst.get(steps.length - 1 - i);
+            }
+            return steps;
+        }
+
+        private static String map(String tag, int[] table, List<CharDecorator> outermostFirst) {
+            char[] mapped = new char[tag.length()];
+            for (int i = 0; i < mapped.length; i++) {
+                char c = tag.charAt(i);
+                if (c >= 128 || table[c] < 0) {
+                    String result = tag;
+                    for (int j = outermostFirst.size() - 1; j >= 0; j--) {
+                        result = outermostFirst.get(j).transform(result);
+                    }
+                    return result;
+                }
+                mapped[i] = (char) table[c];
+            }
+            return new String(mapped);
+        }
+
+        @Override
+        public List<TextDecorator> getLayers() {
+            return layers;
+        }
+
+        @Override
+        public String apply(String body) {
+            int length = body.length();
+            if (identity) {
+                return new StringBuilder(prefix.length() + length + suffix.length())
+                    .append(prefix).append(body).append(suffix).toString();
+            }
+
+            Output out = new Output(prefix.length() + length + suffix.length());
+            out.append(prefix);
+            transformBody(body, 0, length, out);
+            out.append(suffix);
+            return new String(out.chars, 0, out.length);
+        }
+
+        long write(Reader in, Writer out) throws IOException {
+            char[] buffer = new char[STREAM_CHUNK];
+            Output output = new Output(STREAM_CHUNK);
+            CharBuffer chunk = CharBuffer.wrap(buffer);
+            long written = prefix.length();
+            out.write(prefix);
+
+            int length = 0;
+            for (int read = in.read(buffer, 0, buffer.length); read >= 0;
+                 read = in.read(buffer, length, buffer.length - length)) {
+                length += read;
+                if (length < buffer.length) {
+                    continue;
+                }
+                // Keep the tail that might still combine with the next chunk
+                int split = splitPoint(chunk, 0, length);
+                written += writeBody(chunk, split, output, out);
+                System.arraycopy(buffer, split, buffer, 0, length - split);
+                length -= split;
+            }
+            written += writeBody(chunk, length, output, out);
+
+            out.write(suffix);
+            return written + suffix.length();
+        }
+
+        private long writeBody(CharBuffer chunk, int length, Output output, Writer out) throws IOException {
+            if (identity) {
+                out.write(chunk.array(), 0, length);
+                return length;
+            }
+            output.length = 0;
+            transformBody(chunk, 0, length, output);
+            out.write(output.chars, 0, output.length);
+            return output.length;
+        }
+
+        private void transformBody(CharSequence body, int from, int to, Output out) {
+            out.ensure(to - from);
+            int i = from;
+            while (i < to) {
+                int start = i;
+                while (i < to && isFast(body.charAt(i))) {
+                    i++;
+                }
+                if (i == to) {
+                    appendFast(body, start, to, out);
+                    break;
+                }
+
+                // Hand the char before a slow run to the slow path too, as some locales'
+                // case rules depend on it (e.g. Lithuanian "i" followed by a combining dot)
+                int slowStart = i > start ? i - 1 : i;
+                appendFast(body, start, slowStart, out);
+                i++;
+                while (i < to && !isFast(body.charAt(i))) {
+                    i++;
+                }
+
+                String slow = body.subSequence(slowStart, i).toString();
+                for (CharDecorator step : steps) {
+                    slow = step.transform(slow);
+                }
+                out.ensure(slow.length() + (to - i));
+                out.append(slow);
+            }
+        }
+
+        private boolean isFast(char c) {
+            return c < 128 && table[c] >= 0;
+        }
+
+        private void appendFast(CharSequence body, int from, int to, Output out) {
+            int[] table = this.table;
+            char[] chars = out.chars;
+            int position = out.length;
+            for (int i = from; i < to; i++) {
+                chars[position++] = (char) table[body.charAt(i)];
+            }
+            out.length = position;
+        }
+    }
+}
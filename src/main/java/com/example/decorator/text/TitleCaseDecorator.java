@@ -0,0 +1,27 @@
+package com.example.decorator.text;
+
+import com.example.decorator.registry.RegisteredDecorator;
+
+/**
+ * Capitalizes each word and lower-cases the rest of it, by the rules of
+ * {@link CaseMapper#toTitleCase}. Works word by word, so it isn't a {@link CharDecorator}.
+ */
+@RegisteredDecorator(name = "titlecase", id = 6)
+public class TitleCaseDecorator extends TextDecorator {
+    private final CaseMapper mapper;
+
+    public TitleCaseDecorator(Text text) {
+        super(text);
+        this.mapper = CaseMapper.forLocale(getLocale());
+    }
+
+    @Override
+    public String transform(String content) {
+        return mapper.toTitleCase(content);
+    }
+
+    @Override
+    public long getAddedCostCents() {
+        return 75;
+    }
+}
@@ -1,17 +1,25 @@
 package com.example.decorator.text;
 
-public class UnderlineDecorator extends TextDecorator {
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "underline", id = 2)
+public class UnderlineDecorator extends TagDecorator {
     public UnderlineDecorator(Text text) {
         super(text);
     }
 
     @Override
-    public String getContent() {
-        return "<u>" + text.getContent() + "</u>";
+    public String getOpeningTag() {
+        return "<u>";
+    }
+
+    @Override
+    public String getClosingTag() {
+        return "</u>";
     }
 
     @Override
-    public double getCost() {
-        return text.getCost() + 0.2;
+    public long getAddedCostCents() {
+        return 20;
     }
 }
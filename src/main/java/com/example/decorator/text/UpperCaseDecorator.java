@@ -1,17 +1,34 @@
 package com.example.decorator.text;
 
-public class UpperCaseDecorator extends TextDecorator {
+import com.example.decorator.registry.RegisteredDecorator;
+
+@RegisteredDecorator(name = "uppercase", id = 3)
+public class UpperCaseDecorator extends CharDecorator {
+    private final CaseMapper mapper;
+
     public UpperCaseDecorator(Text text) {
         super(text);
+        this.mapper = CaseMapper.forLocale(getLocale());
+    }
+
+    @Override
+    public String transform(String content) {
+        return mapper.toUpperCase(content);
+    }
+
+    @Override
+    public int[] getAsciiTable() {
+        return mapper.getAsciiUpperTable();
     }
 
     @Override
-    public String getContent() {
-        return text.getContent().toUpperCase();
+    public TextDecorator mergeWith(TextDecorator inner) {
+        // Upper-casing is idempotent, so twice in a row is the same as once
+        return inner instanceof UpperCaseDecorator ? inner : null;
     }
 
     @Override
-    public double getCost() {
-        return text.getCost() + 0.5;
+    public long getAddedCostCents() {
+        return 50;
     }
 }
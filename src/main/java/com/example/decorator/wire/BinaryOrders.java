@@ -0,0 +1,207 @@
+package com.example.decorator.wire;
+
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.InvalidOrderException;
+import com.example.decorator.api.RecipeResponse;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.service.BatchService;
+import com.example.decorator.service.RecipeResult;
+import com.example.decorator.service.RecipeService;
+import com.example.decorator.text.CaseMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serves orders in the binary protocol laid out in {@link WireFormat}: decorators come
+ * as registry ids rather than names, and descriptions go back as ids into a table the
+ * client keeps, so neither side parses or builds JSON. The orders in a request are
+ * evaluated as a batch.
+ */
+@Service
+public class BinaryOrders {
+    public static final String CONTENT_TYPE = WireFormat.CONTENT_TYPE;
+
+    private final DecoratorRegistries registries;
+    private final RecipeService recipes;
+    private final BatchService batches;
+    private final DescriptionTable descriptions;
+    private final int maxOrders;
+    private final int maxChainLength;
+
+    public BinaryOrders(DecoratorRegistries registries, RecipeService recipes, BatchService batches,
+                        @Value("${decorator.wire.max-descriptions}") int maxDescriptions,
+                        @Value("${decorator.wire.max-description-bytes}") int maxDescriptionBytes,
+                        @Value("${decorator.batch.max-orders}") int maxOrders,
+                        @Value("${decorator.max-chain-length}") int maxChainLength) {
+        this.registries = registries;
+        this.recipes = recipes;
+        this.batches = batches;
+        this.descriptions = new DescriptionTable(maxDescriptions, maxDescriptionBytes);
+        this.maxOrders = maxOrders;
+        this.maxChainLength = maxChainLength;
+    }
+
+    /**
+     * Evaluates the orders in a request and returns the response.
+     *
+     * @throws InvalidOrderException if the request is malformed or an order can't be
+     *                               evaluated, in which case none are
+     */
+    public byte[] handle(byte[] request) {
+        ByteBuffer in = ByteBuffer.wrap(request);
+        List<RecipeKey> keys;
+        long epoch;
+        int known;
+        try {
+            if (in.getInt() != WireFormat.REQUEST_MAGIC) {
+                throw new InvalidOrderException("Not a binary order request");
+            }
+            epoch = in.getLong();
+            known = WireFormat.getVarint(in);
+            int count = WireFormat.getVarint(in);
+            if (count > maxOrders) {
+                throw new InvalidOrderException("At most " + maxOrders + " orders are allowed per request");
+            }
+            keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(readOrder(in));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidOrderException("Request is cut short");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException(e.getMessage());
+        }
+        if (in.hasRemaining()) {
+            throw new InvalidOrderException("Request has bytes after its last order");
+        }
+        if (epoch != descriptions.getEpoch()) {
+            known = 0;
+        }
+        return write(batches.evaluate(keys), known);
+    }
+
+    public Map<String, Object> describe() {
+        return descriptions.describe();
+    }
+
+    /**
+     * The id of each product's decorators by name, for clients to send.
+     */
+    public Map<String, Map<String, Integer>> decoratorIds() {
+        Map<String, Map<String, Integer>> products = new LinkedHashMap<>();
+        for (DecoratorRegistry<?> registry : registries.all()) {
+            Map<String, Integer> ids = new LinkedHashMap<>();
+            for (int id = 0; id <= registry.getMaxId(); id++) {
+                if (registry.isRegistered(id)) {
+                    ids.put(registry.nameOf(id), id);
+                }
+            }
+            products.put(registry.getProduct(), ids);
+        }
+        return products;
+    }
+
+    private RecipeKey readOrder(ByteBuffer in) {
+        int product = in.get();
+        if (product < 0 || product >= WireFormat.PRODUCTS.length) {
+            throw new InvalidOrderException("Unknown product code " + product);
+        }
+        DecoratorRegistry<?> registry = registries.forProduct(WireFormat.PRODUCTS[product]);
+        int length = WireFormat.getVarint(in);
+        if (length > maxChainLength) {
+            throw new InvalidOrderException("At most " + maxChainLength + " decorators are allowed per order");
+        }
+        int[] ids = new int[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = WireFormat.getVarint(in);
+            if (!registry.isRegistered(ids[i])) {
+                throw new InvalidOrderException("No " + registry.getProduct() + " decorator has id " + ids[i]);
+            }
+        }
+
+        switch (product) {
+            case WireFormat.COFFEE:
+                return recipes.coffeeKey(ids);
+            case WireFormat.BURGER:
+                return recipes.burgerKey(ids);
+            default:
+                // Zigzag-encoded, so any int's encoding is 32 bits
+                int shift = WireFormat.unzigzag((int) WireFormat.getVarlong(in));
+                String tag = WireFormat.getString(in);
+                Locale locale = tag.isEmpty() ? Locale.ROOT : CaseMapper.parse(tag);
+                return recipes.textKey(WireFormat.getString(in), ids, shift, locale);
+        }
+    }
+
+    private byte[] write(BatchService.BatchResult batch, int known) {
+        List<RecipeResult> results = batch.getResults();
+        // Each result's description and, for burgers, sentence: an id, or -1 to send it as text
+        int[] refs = new int[results.size() * 2];
+        int end = known;
+        for (int i = 0; i < results.size(); i++) {
+            RecipeResponse response = results.get(i).getResponse();
+            refs[2 * i + 1] = -1;
+            if (response instanceof CoffeeResponse) {
+                refs[2 * i] = descriptions.intern(((CoffeeResponse) response).getDescription());
+            } else if (response instanceof BurgerResponse) {
+                refs[2 * i] = descriptions.intern(((BurgerResponse) response).getDescription());
+                refs[2 * i + 1] = descriptions.intern(((BurgerResponse) response).getSentence());
+            } else {
+                refs[2 * i] = -1;
+            }
+            end = Math.max(end, Math.max(refs[2 * i], refs[2 * i + 1]) + 1);
+        }
+
+        WireFormat.Output out = new WireFormat.Output(64 + 16 * results.size());
+        out.putInt(WireFormat.RESPONSE_MAGIC);
+        out.putLong(descriptions.getEpoch());
+        out.putVarint(batch.getPriceVersion());
+        out.putVarint(known);
+        out.putVarint(end - known);
+        for (int id = known; id < end; id++) {
+            out.putBytes(descriptions.get(id));
+        }
+        out.putVarint(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            RecipeResult result = results.get(i);
+            RecipeResponse response = result.getResponse();
+            if (response instanceof CoffeeResponse) {
+                out.putByte(WireFormat.COFFEE);
+                out.putVarint(result.getCostCents());
+                putRef(out, refs[2 * i], ((CoffeeResponse) response).getDescription());
+            } else if (response instanceof BurgerResponse) {
+                BurgerResponse burger = (BurgerResponse) response;
+                out.putByte(WireFormat.BURGER);
+                out.putVarint(result.getCostCents());
+                putRef(out, refs[2 * i], burger.getDescription());
+                putRef(out, refs[2 * i + 1], burger.getSentence());
+            } else {
+                out.putByte(WireFormat.TEXT);
+                out.putVarint(result.getCostCents());
+                putRef(out, -1, ((TextResponse) response).getContent());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void putRef(WireFormat.Output out, int id, String s) {
+        if (id >= 0) {
+            out.putVarint(id + 1);
+        } else {
+            out.putVarint(0);
+            out.putString(s);
+        }
+    }
+}
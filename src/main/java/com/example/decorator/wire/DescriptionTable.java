@@ -0,0 +1,81 @@
+package com.example.decorator.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The descriptions the server has numbered for binary clients, so a description
+ * they've seen before takes a varint instead of its text. Ids are handed out from 0 and
+ * never reused; once the table is full, or for a description longer than the limit, the
+ * text is sent every time instead.
+ */
+final class DescriptionTable {
+    private final long epoch;
+    private final int maxBytes;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // The UTF-8 of each description by id, written before its id is published
+    private final byte[][] entries;
+    private volatile int size;
+
+    DescriptionTable(int maxEntries, int maxBytes) {
+        long epoch;
+        do {
+            epoch = ThreadLocalRandom.current().nextLong();
+        } while (epoch == 0);
+        this.epoch = epoch;
+        this.maxBytes = maxBytes;
+        this.entries = new byte[maxEntries][];
+    }
+
+    long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * The description's id, numbering it if it's new, or -1 if it isn't in the table and
+     * can't be added.
+     */
+    int intern(String description) {
+        Integer id = ids.get(description);
+        if (id != null) {
+            return id;
+        }
+        // A UTF-8 encoding has at least a byte per char
+        if (size == entries.length || description.length() > maxBytes) {
+            return -1;
+        }
+        synchronized (this) {
+            id = ids.get(description);
+            if (id != null) {
+                return id;
+            }
+            byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+            if (size == entries.length || bytes.length > maxBytes) {
+                return -1;
+            }
+            int next = size;
+            entries[next] = bytes;
+            ids.put(description, next);
+            size = next + 1;
+            return next;
+        }
+    }
+
+    /**
+     * The UTF-8 of a description whose id {@link #intern} has returned.
+     */
+    byte[] get(int id) {
+        return entries[id];
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("descriptions", size);
+        stats.put("max_descriptions", entries.length);
+        stats.put("max_description_bytes", maxBytes);
+        return stats;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.decorator.wire;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A client for the binary order endpoint, {@code POST /api/wire}. It keeps the
+ * descriptions the server has numbered, so each is sent in full only once; one client
+ * can be shared by many threads.
+ *
+ * <pre>
+ * WireClient client = new WireClient(new URL("http://localhost:5000/api/wire"));
+ * Map&lt;String, Integer&gt; coffee = client.fetchDecoratorIds().get("coffee");
+ * List&lt;WireResult&gt; results = client.send(Arrays.asList(
+ *     WireOrder.coffee(coffee.get("milk"), coffee.get("sugar")),
+ *     WireOrder.coffee(coffee.get("milk"))));
+ * </pre>
+ * Decorator ids are those of the server's registries, as {@link #fetchDecoratorIds}
+ * lists them.
+ */
+public class WireClient {
+    private static final TypeReference<Map<String, Map<String, Integer>>> DECORATOR_IDS =
+        new TypeReference<Map<String, Map<String, Integer>>>() {
+        };
+
+    private final URL endpoint;
+    private final Object lock = new Object();
+    // The server's descriptions by id, all of them from 0 up, and the table's epoch
+    private final List<String> descriptions = new ArrayList<>();
+    private long epoch;
+
+    public WireClient(URL endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * The id of each product's decorators by name, from {@code GET /api/wire/decorators}.
+     */
+    public Map<String, Map<String, Integer>> fetchDecoratorIds() throws IOException {
+        // Relative to the endpoint, .../api/wire
+        URL decorators = new URL(endpoint, "wire/decorators");
+        try (InputStream in = decorators.openStream()) {
+            return new ObjectMapper().readValue(in, DECORATOR_IDS);
+        }
+    }
+
+    /**
+     * Sends the orders as one request and returns their results, in order.
+     *
+     * @throws IOException if the request fails or the server rejects it, e.g. for a
+     *                     decorator id it doesn't have
+     */
+    public List<WireResult> send(List<WireOrder> orders) throws IOException {
+        byte[] request = encodeRequest(orders);
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", WireFormat.CONTENT_TYPE);
+        connection.setRequestProperty("Accept", WireFormat.CONTENT_TYPE + ", text/plain");
+        connection.setFixedLengthStreamingMode(request.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(request);
+        }
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            String message = "";
+            try (InputStream error = connection.getErrorStream()) {
+                if (error != null) {
+                    message = new String(readAll(error), StandardCharsets.UTF_8);
+                }
+            }
+            throw new IOException("Server answered " + status + ": " + message);
+        }
+        // Reading the body to the end lets the connection be kept alive for the next request
+        try (InputStream in = connection.getInputStream()) {
+            return decodeResponse(readAll(in));
+        }
+    }
+
+    /**
+     * The body of a request for the orders, telling the server the descriptions this
+     * client has.
+     */
+    public byte[] encodeRequest(List<WireOrder> orders) {
+        WireFormat.Output out = new WireFormat.Output(32 + 8 * orders.size());
+        out.putInt(WireFormat.REQUEST_MAGIC);
+        synchronized (lock) {
+            out.putLong(epoch);
+            out.putVarint(descriptions.size());
+        }
+        out.putVarint(orders.size());
+        for (WireOrder order : orders) {
+            order.writeTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the results from a response body, adding the descriptions that came with it.
+     *
+     * @throws IOException if the response is malformed
+     */
+    public List<WireResult> decodeResponse(byte[] response) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(response);
+        try {
+            if (in.getInt() != WireFormat.RESPONSE_MAGIC) {
+                throw new IOException("Not a binary order response");
+            }
+            long responseEpoch = in.getLong();
+            long priceVersion = WireFormat.getVarlong(in);
+            int first = WireFormat.getVarint(in);
+            int count = WireFormat.getVarint(in);
+            synchronized (lock) {
+                if (responseEpoch != epoch) {
+                    // The server restarted, and the ids we have mean nothing now
+                    descriptions.clear();
+                    epoch = responseEpoch;
+                }
+                if (first > descriptions.size()) {
+                    throw new IOException("Response skips descriptions " + descriptions.size() + " to " + first);
+                }
+                for (int i = 0; i < count; i++) {
+                    String description = WireFormat.getString(in);
+                    // Another request may have brought some of these already
+                    if (first + i == descriptions.size()) {
+                        descriptions.add(description);
+                    }
+                }
+
+                int size = WireFormat.getVarint(in);
+                List<WireResult> results = new ArrayList<>(Math.min(size, in.remaining()));
+                for (int i = 0; i < size; i++) {
+                    int product = in.get();
+                    long costCents = WireFormat.getVarlong(in);
+                    String description = readRef(in);
+                    String sentence = product == WireFormat.BURGER ? readRef(in) : null;
+                    results.add(new WireResult(WireFormat.PRODUCTS[product], costCents, priceVersion, description,
+                        sentence));
+                }
+                return results;
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed binary order response", e);
+        }
+    }
+
+    private String readRef(ByteBuffer in) throws IOException {
+        int ref = WireFormat.getVarint(in);
+        if (ref == 0) {
+            return WireFormat.getString(in);
+        }
+        if (ref > descriptions.size()) {
+            throw new IOException("Response uses description " + (ref - 1) + " it didn't send");
+        }
+        return descriptions.get(ref - 1);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.decorator.wire;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The layout of the binary order protocol, {@value #CONTENT_TYPE}. A request is a list
+ * of orders:
+ * <pre>
+ * int    magic "DWQ1"
+ * long   epoch of the description table the client's ids are from, 0 if none
+ * varint how many descriptions the client has, ids 0 up to this
+ * varint number of orders
+ * for each order:
+ * byte   product: 0 coffee, 1 burger, 2 text
+ * varint number of decorators
+ * varint decorator id, innermost first, for each decorator
+ * and for text only:
+ * varint encryption shift, zigzag-encoded
+ * string language tag whose case rules apply, empty for none
+ * string the text
+ * </pre>
+ * and the response has a result for each, in order:
+ * <pre>
+ * int    magic "DWS1"
+ * long   epoch of the description table
+ * varint price version
+ * varint id of the first description the client didn't have
+ * varint number of those descriptions, then a string for each
+ * varint number of results
+ * for each result:
+ * byte   product, as in the request
+ * varint cost in cents
+ * ref    description, or the content for text
+ * ref    sentence, for burgers only
+ * </pre>
+ * A string is a varint length and that many bytes of UTF-8. A ref is a description id
+ * plus one, or 0 followed by the string itself. The server's descriptions are numbered
+ * from 0 in the order it first sent them, and it sends every one from the client's count
+ * up to the highest the response uses, so the client's table never has gaps. A new
+ * epoch means the server started over, and the client's table is no good.
+ */
+final class WireFormat {
+    static final String CONTENT_TYPE = "application/x-decorator-orders";
+
+    static final int REQUEST_MAGIC = 0x44575131; // "DWQ1"
+    static final int RESPONSE_MAGIC = 0x44575331; // "DWS1"
+
+    static final String[] PRODUCTS = {"coffee", "burger", "text"};
+    static final int COFFEE = 0;
+    static final int BURGER = 1;
+    static final int TEXT = 2;
+
+    private WireFormat() {
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        long value = getVarlong(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Varint out of range");
+        }
+        return (int) value;
+    }
+
+    static long getVarlong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String runs past the end");
+        }
+        String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        // Through Buffer, as ByteBuffer's covariant overrides don't exist on Java 8
+        ((Buffer) buffer).position(buffer.position() + length);
+        return s;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A growable byte array to write a message into.
+     */
+    static final class Output {
+        private byte[] bytes;
+        private int length;
+
+        Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void putByte(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void putBytes(byte[] b) {
+            putVarint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        void putString(String s) {
+            putBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.decorator.wire;
+
+import java.util.Locale;
+
+/**
+ * An order as a {@link WireClient} sends it: a product and its decorators' registry
+ * ids, innermost first, plus for text the text itself.
+ */
+public final class WireOrder {
+    private final int product;
+    private final int[] decoratorIds;
+    private final String text;
+    private final int encryptShift;
+    private final Locale locale;
+
+    private WireOrder(int product, int[] decoratorIds, String text, int encryptShift, Locale locale) {
+        this.product = product;
+        this.decoratorIds = decoratorIds.clone();
+        this.text = text;
+        this.encryptShift = encryptShift;
+        this.locale = locale;
+    }
+
+    public static WireOrder coffee(int... decoratorIds) {
+        return new WireOrder(WireFormat.COFFEE, decoratorIds, null, 0, null);
+    }
+
+    public static WireOrder burger(int... decoratorIds) {
+        return new WireOrder(WireFormat.BURGER, decoratorIds, null, 0, null);
+    }
+
+    /**
+     * A text order, upper- and lower-cased by the rules of the given locale.
+     */
+    public static WireOrder text(String text, int encryptShift, Locale locale, int... decoratorIds) {
+        if (text == null) {
+            throw new IllegalArgumentException("text must not be null");
+        }
+        return new WireOrder(WireFormat.TEXT, decoratorIds, text, encryptShift, locale);
+    }
+
+    public String getProduct() {
+        return WireFormat.PRODUCTS[product];
+    }
+
+    public int[] getDecoratorIds() {
+        return decoratorIds.clone();
+    }
+
+    void writeTo(WireFormat.Output out) {
+        out.putByte(product);
+        out.putVarint(decoratorIds.length);
+        for (int id : decoratorIds) {
+            out.putVarint(id);
+        }
+        if (product == WireFormat.TEXT) {
+            out.putVarint(WireFormat.zigzag(encryptShift) & 0xFFFFFFFFL);
+            out.putString(locale == null || locale.equals(Locale.ROOT) ? "" : locale.toLanguageTag());
+            out.putString(text);
+        }
+    }
+}
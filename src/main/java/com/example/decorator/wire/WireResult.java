@@ -0,0 +1,51 @@
+package com.example.decorator.wire;
+
+/**
+ * One order's result as a {@link WireClient} reads it.
+ */
+public final class WireResult {
+    private final String product;
+    private final long costCents;
+    private final long priceVersion;
+    private final String description;
+    private final String sentence;
+
+    WireResult(String product, long costCents, long priceVersion, String description, String sentence) {
+        this.product = product;
+        this.costCents = costCents;
+        this.priceVersion = priceVersion;
+        this.description = description;
+        this.sentence = sentence;
+    }
+
+    public String getProduct() {
+        return product;
+    }
+
+    public long getCostCents() {
+        return costCents;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * The description of a coffee or burger, or the formatted content of a text.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * The sentence describing a burger, or null for other products.
+     */
+    public String getSentence() {
+        return sentence;
+    }
+
+    @Override
+    public String toString() {
+        return product + " " + costCents + "c: " + description;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.decorator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /api/text/bulk checks its recipe like an order: decorator names must be strings and
+ * the shift an integer, or the request is answered with 400.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkTextRequestTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void nullDecoratorNameIsRejected() throws Exception {
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"bold\",null]}").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nonStringDecoratorNameIsRejected() throws Exception {
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"bold\",5]}").andExpect(status().isBadRequest());
+        bulk("{\"texts\":[\"abc\"],\"decorators\":\"bold\"}").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void illTypedShiftIsRejected() throws Exception {
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"encrypt\"],\"encrypt_shift\":null}")
+            .andExpect(status().isBadRequest());
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"encrypt\"],\"encrypt_shift\":\"3\"}")
+            .andExpect(status().isBadRequest());
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"encrypt\"],\"encrypt_shift\":1.5}")
+            .andExpect(status().isBadRequest());
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"encrypt\"],\"encrypt_shift\":4294967296}")
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void wellTypedRecipeIsServed() throws Exception {
+        bulk("{\"texts\":[\"abc\"],\"decorators\":[\"encrypt\",\"bold\"],\"encrypt_shift\":-1}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.contents[0]").value("<b>zab</b>"));
+        bulk("{\"texts\":[\"abc\"],\"decorators\":null}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.contents[0]").value("abc"));
+        bulk("{\"text\":\"abc\",\"decorators\":[\"encrypt\"]}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.contents[0]").value("def"));
+    }
+
+    private ResultActions bulk(String body) throws Exception {
+        return mockMvc.perform(post("/api/text/bulk").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
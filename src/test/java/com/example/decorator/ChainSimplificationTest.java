@@ -0,0 +1,186 @@
+package com.example.decorator;
+
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.Order;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.BurgerDecorator;
+import com.example.decorator.burger.CompiledBurger;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.CoffeeDecorator;
+import com.example.decorator.coffee.CompiledCoffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.money.Money;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.service.RecipeResult;
+import com.example.decorator.service.RecipeService;
+import com.example.decorator.text.CompiledText;
+import com.example.decorator.text.PlainText;
+import com.example.decorator.text.Text;
+import com.example.decorator.text.TextDecorator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Random chains, heavy in runs of the same decorator, evaluated the way the service does
+ * (runs wrapped as one counted layer, text layers merged, dropped and fused) against the
+ * nested chain evaluated one layer at a time.
+ */
+@SpringBootTest
+class ChainSimplificationTest {
+    private static final int CHAINS = 3000;
+    private static final int MAX_DEPTH = 40;
+
+    private static final String[] CONTENTS = {
+        "", "Hello, World!", "The quick brown fox jumps over the lazy dog",
+        "Stra\u00DFe \u0130stanbul \u0131\u015F\u0131k", "\u03A3\u039F\u03A6\u0399\u0391 \u03C3\u03BF\u03C6\u03AF\u03B1\u03C2",
+        "\uFB01ne \u01C6z \u0149 na\u00EFve caf\u00E9", "i\u0307 \u00CC \u00ED \u012E\u0301", "emoji \uD83D\uDE00 z\u00FCrich",
+        "<b>&amp;</b> 12345 ~!@#", "  mixed\tWHITE space\n"
+    };
+
+    private static final Locale[] LOCALES = {
+        Locale.ROOT, new Locale("tr"), new Locale("az"), new Locale("lt"), new Locale("el")
+    };
+
+    @Autowired
+    private DecoratorRegistries registries;
+
+    @Autowired
+    private RecipeService recipes;
+
+    @Test
+    void coffeeChainsMatchLayerByLayer() {
+        DecoratorRegistry<Coffee> registry = registries.coffee();
+        Random random = new Random(16);
+        for (int n = 0; n < CHAINS; n++) {
+            int[] ids = randomChain(registry, random);
+
+            String description = new SimpleCoffee().getDescription();
+            double cost = new SimpleCoffee().getCost();
+            long cents = new SimpleCoffee().getCostCents();
+            Coffee nested = new SimpleCoffee();
+            for (int id : ids) {
+                nested = registry.wrap(id, nested, 0);
+                CoffeeDecorator layer = (CoffeeDecorator) nested;
+                description += layer.getAddedDescription();
+                cost += layer.getAddedCost();
+                cents += layer.getAddedCostCents();
+            }
+
+            CompiledCoffee compiled = CompiledCoffee.compile(registry.wrapAll(ids, new SimpleCoffee(), 0));
+            String chain = Arrays.toString(ids);
+            assertThat(compiled.getDescription()).as(chain).isEqualTo(description);
+            assertThat(compiled.getCost()).as(chain).isEqualTo(cost);
+            assertThat(compiled.getCostCents()).as(chain).isEqualTo(cents);
+
+            RecipeResult result = recipes.evaluate(recipes.coffeeKey(ids));
+            CoffeeResponse response = (CoffeeResponse) result.getResponse();
+            assertThat(response.getDescription()).as(chain).isEqualTo(description);
+            assertThat(result.getCostCents()).as(chain).isEqualTo(cents);
+            assertThat(response.getCost()).as(chain).isEqualTo(Money.format(cents));
+        }
+    }
+
+    @Test
+    void burgerChainsMatchLayerByLayer() {
+        DecoratorRegistry<Burger> registry = registries.burger();
+        Random random = new Random(17);
+        for (int n = 0; n < CHAINS; n++) {
+            int[] ids = randomChain(registry, random);
+
+            String description = new SimpleBurger().getDescription();
+            String sentencePart = new SimpleBurger().getSentencePart();
+            double cost = new SimpleBurger().getCost();
+            long cents = new SimpleBurger().getCostCents();
+            Burger nested = new SimpleBurger();
+            for (int id : ids) {
+                nested = registry.wrap(id, nested, 0);
+                BurgerDecorator layer = (BurgerDecorator) nested;
+                description += layer.getAddedDescription();
+                sentencePart = sentencePart.isEmpty()
+                    ? layer.getAddedSentencePart()
+                    : sentencePart + ", " + layer.getAddedSentencePart();
+                cost += layer.getAddedCost();
+                cents += layer.getAddedCostCents();
+            }
+
+            CompiledBurger compiled = CompiledBurger.compile(registry.wrapAll(ids, new SimpleBurger(), 0));
+            String chain = Arrays.toString(ids);
+            assertThat(compiled.getDescription()).as(chain).isEqualTo(description);
+            assertThat(compiled.getSentencePart()).as(chain).isEqualTo(sentencePart);
+            assertThat(compiled.getCost()).as(chain).isEqualTo(cost);
+            assertThat(compiled.getCostCents()).as(chain).isEqualTo(cents);
+
+            RecipeResult result = recipes.evaluate(recipes.burgerKey(ids));
+            BurgerResponse response = (BurgerResponse) result.getResponse();
+            assertThat(response.getDescription()).as(chain).isEqualTo(description);
+            assertThat(response.getSentence()).as(chain)
+                .isEqualTo(sentencePart.isEmpty() ? "" : "The burger has " + sentencePart + ".");
+            assertThat(result.getCostCents()).as(chain).isEqualTo(cents);
+        }
+    }
+
+    @Test
+    void textChainsMatchLayerByLayer() {
+        DecoratorRegistry<Text> registry = registries.text();
+        Random random = new Random(18);
+        for (int n = 0; n < CHAINS; n++) {
+            int[] ids = randomChain(registry, random);
+            String content = CONTENTS[random.nextInt(CONTENTS.length)];
+            Locale locale = LOCALES[random.nextInt(LOCALES.length)];
+            // A missing shift in an order means the default
+            Integer requested = random.nextInt(8) == 0 ? null : random.nextInt(61) - 30;
+            int shift = requested == null ? Order.DEFAULT_ENCRYPT_SHIFT : requested;
+
+            String expected = content;
+            double cost = 1.0;
+            long cents = 100;
+            Text nested = new PlainText(content, locale);
+            for (int id : ids) {
+                nested = registry.wrap(id, nested, shift);
+                TextDecorator layer = (TextDecorator) nested;
+                expected = layer.transform(expected);
+                cost += layer.getAddedCost();
+                cents += layer.getAddedCostCents();
+            }
+
+            String chain = Arrays.toString(ids) + " shift " + requested + " in " + locale + " over \"" + content + "\"";
+            CompiledText compiled = CompiledText.compile(registry.wrapAll(ids, new PlainText(content, locale), shift));
+            assertThat(compiled.getContent()).as(chain).isEqualTo(expected);
+            assertThat(compiled.getCost()).as(chain).isEqualTo(cost);
+            assertThat(compiled.getCostCents()).as(chain).isEqualTo(cents);
+
+            RecipeResult result = recipes.evaluate(recipes.textKey(content, ids, shift, locale));
+            assertThat(((TextResponse) result.getResponse()).getContent()).as(chain).isEqualTo(expected);
+            assertThat(result.getCostCents()).as(chain).isEqualTo(cents);
+        }
+    }
+
+    /**
+     * Runs of one to six of the same decorator, so repeats, merges and cancelling shifts
+     * come up often.
+     */
+    private static int[] randomChain(DecoratorRegistry<?> registry, Random random) {
+        int[] ids = new int[random.nextInt(MAX_DEPTH + 1)];
+        for (int i = 0; i < ids.length; ) {
+            int id;
+            do {
+                id = random.nextInt(registry.getMaxId() + 1);
+            } while (!registry.isRegistered(id));
+            int run = Math.min(ids.length - i, 1 + random.nextInt(6));
+            Arrays.fill(ids, i, i + run, id);
+            i += run;
+        }
+        return ids;
+    }
+}
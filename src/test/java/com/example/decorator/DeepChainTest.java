@@ -0,0 +1,64 @@
+package com.example.decorator;
+
+import com.example.decorator.burger.Burger;
+import com.example.decorator.burger.Cheese;
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.coffee.Sugar;
+import com.example.decorator.text.BoldDecorator;
+import com.example.decorator.text.ItalicDecorator;
+import com.example.decorator.text.PlainText;
+import com.example.decorator.text.Text;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Chains of a million decorators, built by hand, evaluate without a StackOverflowError.
+ */
+class DeepChainTest {
+    private static final int DEPTH = 1_000_000;
+
+    @Test
+    void millionSugarCoffee() {
+        Coffee coffee = new SimpleCoffee();
+        for (int i = 0; i < DEPTH; i++) {
+            coffee = new Sugar(coffee);
+        }
+
+        String description = coffee.getDescription();
+        assertThat(description).startsWith("Simple Coffee, Sugar, Sugar").endsWith(", Sugar");
+        assertThat(description).hasSize("Simple Coffee".length() + DEPTH * ", Sugar".length());
+        assertThat(coffee.getCostCents()).isEqualTo(200 + 20L * DEPTH);
+        assertThat(coffee.getCost()).isCloseTo(200_002.0, offset(0.01));
+    }
+
+    @Test
+    void millionCheeseBurger() {
+        Burger burger = new SimpleBurger();
+        for (int i = 0; i < DEPTH; i++) {
+            burger = new Cheese(burger);
+        }
+
+        assertThat(burger.getDescription()).hasSize("Simple Burger".length() + DEPTH * ", Cheese".length());
+        assertThat(burger.getSentencePart()).startsWith("a slice of cheese, a slice of cheese")
+            .hasSize(DEPTH * "a slice of cheese".length() + (DEPTH - 1) * ", ".length());
+        assertThat(burger.getCostCents()).isEqualTo(500 + 75L * DEPTH);
+    }
+
+    @Test
+    void millionBoldItalicText() {
+        Text text = new PlainText("Hi");
+        for (int i = 0; i < DEPTH; i++) {
+            text = i % 2 == 0 ? new ItalicDecorator(text) : new BoldDecorator(text);
+        }
+
+        String content = text.getContent();
+        assertThat(content).hasSize("Hi".length() + DEPTH * "<b>".length() + DEPTH * "</b>".length());
+        assertThat(content).startsWith("<b><i><b><i>").endsWith("</i></b></i></b>");
+        assertThat(content.substring(DEPTH * 3 - 6, DEPTH * 3 + 10)).isEqualTo("<b><i>Hi</i></b>");
+        assertThat(text.getCostCents()).isEqualTo(100 + 30L * DEPTH);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.decorator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Orders with more decorators than decorator.max-chain-length are rejected with 400 by
+ * the order codec, whether sent alone or in a batch.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MaxChainLengthTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${decorator.max-chain-length}")
+    private int maxChainLength;
+
+    @Test
+    void longestAllowedChainIsServed() throws Exception {
+        mockMvc.perform(post("/api/coffee").contentType(MediaType.APPLICATION_JSON).content(order(maxChainLength)))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void longerChainIsRejected() throws Exception {
+        mockMvc.perform(post("/api/coffee").contentType(MediaType.APPLICATION_JSON).content(order(maxChainLength + 1)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void longerChainInBatchIsRejected() throws Exception {
+        String batch = "[{\"product\":\"coffee\",\"decorators\":[\"milk\"]},"
+            + "{\"product\":\"coffee\"," + order(maxChainLength + 1).substring(1) + "]";
+        mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void longestAllowedChainInBatchIsServed() throws Exception {
+        String batch = "[{\"product\":\"coffee\"," + order(maxChainLength).substring(1) + "]";
+        mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results.length()").value(1));
+    }
+
+    private static String order(int decorators) {
+        return "{\"decorators\":[" + String.join(",", Collections.nCopies(decorators, "\"sugar\"")) + "]}";
+    }
+}
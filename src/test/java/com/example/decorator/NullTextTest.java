@@ -0,0 +1,53 @@
+package com.example.decorator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A text order whose text is null is rejected with 400 by the order codec, rather than
+ * failing inside a decorator; other products ignore the field.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NullTextTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void nullTextIsRejected() throws Exception {
+        mockMvc.perform(post("/api/text").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\":null,\"decorators\":[\"encrypt\",\"uppercase\"]}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nullTextIsRejectedInABatch() throws Exception {
+        mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"product\":\"coffee\",\"decorators\":[\"milk\"]},"
+                    + "{\"product\":\"text\",\"text\":null,\"decorators\":[\"uppercase\"]}]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void missingTextGetsTheDefault() throws Exception {
+        mockMvc.perform(post("/api/text").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"decorators\":[\"uppercase\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value("HELLO, WORLD!"));
+    }
+
+    @Test
+    void otherProductsIgnoreNullText() throws Exception {
+        mockMvc.perform(post("/api/coffee").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\":null,\"decorators\":[\"milk\"]}"))
+            .andExpect(status().isOk());
+    }
+}
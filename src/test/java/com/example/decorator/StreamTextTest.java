@@ -0,0 +1,123 @@
+package com.example.decorator;
+
+import com.example.decorator.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The streaming text endpoint rejects charsets it can't decode rather than failing with
+ * a 500, and recipes it can't stream rather than buffering the body, and only records
+ * an order once the whole body has been formatted.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StreamTextTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private RecipeService recipes;
+
+    @Test
+    void streamsTheBodyAndRecordsTheOrder() throws Exception {
+        mockMvc.perform(post("/api/text?decorators=uppercase").contentType("text/plain;charset=ISO-8859-1")
+                .content(new byte[] {'c', 'a', 'f', (byte) 0xE9}))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Cost"))
+            .andExpect(content().bytes("CAF\u00C9".getBytes(StandardCharsets.UTF_8)));
+        verify(recipes).record(eq(RecipeService.TEXT), any(int[].class), anyLong(), anyLong());
+    }
+
+    @Test
+    void recipesThatNeedTheWholeTextAreRejected() throws Exception {
+        for (String decorators : new String[] {"lowercase", "titlecase", "bold,lowercase,italic", "encrypt,titlecase"}) {
+            mockMvc.perform(post("/api/text?decorators=" + decorators).contentType("text/plain").content("hello"))
+                .andExpect(status().isBadRequest());
+        }
+        verify(recipes, never()).record(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void unsupportedCharsetIsRejected() throws Exception {
+        mockMvc.perform(post("/api/text?decorators=uppercase").contentType("text/plain;charset=x-no-such-charset")
+                .content("hello"))
+            .andExpect(status().isUnsupportedMediaType());
+        verify(recipes, never()).record(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void illegalCharsetNameIsRejected() throws Exception {
+        mockMvc.perform(post("/api/text?decorators=uppercase").contentType("text/plain;charset=no!charset")
+                .content("hello"))
+            .andExpect(status().isUnsupportedMediaType());
+        verify(recipes, never()).record(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void failedUploadIsNotRecorded() {
+        assertThatThrownBy(() -> mockMvc.perform(post("/api/text?decorators=uppercase").contentType("text/plain")
+                .with(request -> failingAfter(request, "hello, "))))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Connection reset");
+        verify(recipes, never()).record(any(), any(), anyLong(), anyLong());
+    }
+
+    /**
+     * Swaps the request's body for one that reads the given text and then fails, as an
+     * upload does when the client goes away.
+     */
+    private static MockHttpServletRequest failingAfter(MockHttpServletRequest request, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest failing = spy(request);
+        doReturn(new ServletInputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == bytes.length) {
+                    throw new IOException("Connection reset");
+                }
+                return bytes[position++];
+            }
+
+            @Override
+            public boolean isFinished() {
+                return false;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                throw new UnsupportedOperationException();
+            }
+        }).when(failing).getInputStream();
+        return failing;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.decorator.cache;
+
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChainInternerTest {
+    private final DecoratorRegistry<Coffee> registry = new DecoratorRegistries().coffee();
+
+    @Test
+    void evictsANodesDescendantsWithIt() {
+        ChainInterner<Coffee, String> chains = interner(4);
+        ChainInterner.Node<Coffee, String> vanilla = chains.intern(ids("milk", "sugar", "vanilla"), 0);
+        chains.intern(ids("caramel"), 0);
+        assertThat(chains.getStats()).containsEntry("size", 4).containsEntry("evictions", 0L);
+
+        // Evicting the least recently used node, milk, takes the two built on it too
+        chains.intern(ids("whipped_cream"), 0);
+        assertThat(chains.getStats()).containsEntry("size", 2).containsEntry("evictions", 3L);
+        ChainInterner.Node<Coffee, String> again = chains.intern(ids("milk", "sugar", "vanilla"), 0);
+        assertThat(again).isNotSameAs(vanilla);
+        assertThat(again.getChain().getDescription()).isEqualTo(vanilla.getChain().getDescription());
+    }
+
+    @Test
+    void doesNotInternUnderAnEvictedNode() {
+        ChainInterner<Coffee, String> chains = interner(2);
+        ChainInterner.Node<Coffee, String> milk = chains.intern(ids("milk"), 0);
+        chains.intern(ids("sugar"), 0);
+        chains.intern(ids("vanilla"), 0);
+        assertThat(chains.getStats()).containsEntry("size", 2);
+
+        // The caller still holds milk, but nothing built on it can be found again
+        ChainInterner.Node<Coffee, String> sugar = chains.child(milk, registry.idOf("sugar"), 1, 0);
+        assertThat(sugar.getChain().getDescription()).isEqualTo(registry.wrapAll(ids("milk", "sugar"),
+            new SimpleCoffee(), 0).getDescription());
+        assertThat(chains.getStats()).containsEntry("size", 2).containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void staysWithinItsSizeUnderRandomChains() {
+        String[] names = {"milk", "sugar", "vanilla", "caramel"};
+        ChainInterner<Coffee, String> chains = interner(50);
+        Random random = new Random(20);
+        for (int n = 0; n < 5000; n++) {
+            String[] chain = new String[random.nextInt(12)];
+            for (int i = 0; i < chain.length; i++) {
+                chain[i] = names[random.nextInt(random.nextBoolean() ? 2 : names.length)];
+            }
+            int[] ids = ids(chain);
+            assertThat(chains.compile(ids, 0))
+                .isEqualTo(registry.wrapAll(ids, new SimpleCoffee(), 0).getDescription());
+            assertThat((Integer) chains.getStats().get("size")).isLessThanOrEqualTo(50);
+            // Each node's prefixes are in the table with it, so looking the chain up again
+            // finds every layer
+            long misses = (Long) chains.getStats().get("misses");
+            assertThat(chains.intern(ids, 0)).isSameAs(chains.intern(ids, 0));
+            assertThat(chains.getStats()).containsEntry("misses", misses);
+        }
+    }
+
+    private ChainInterner<Coffee, String> interner(int maxEntries) {
+        return new ChainInterner<>("coffee-chains", registry, new SimpleCoffee(),
+            (chain, prefix, compiledPrefix) -> chain.getDescription(), maxEntries);
+    }
+
+    private int[] ids(String... names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registry.idOf(names[i]);
+        }
+        return ids;
+    }
+}
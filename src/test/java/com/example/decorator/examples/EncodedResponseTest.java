@@ -0,0 +1,50 @@
+package com.example.decorator.examples;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodedResponseTest {
+    private final EncodedResponse response =
+        EncodedResponse.json("{\"examples\":[]}".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void tagsEachEncodingSeparately() {
+        ResponseEntity<byte[]> identity = response.toResponse(null, null);
+        ResponseEntity<byte[]> gzip = response.toResponse(null, "gzip, deflate");
+
+        assertThat(identity.getHeaders().getETag()).isEqualTo(response.getEtag());
+        assertThat(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(identity.getBody()).isEqualTo(response.getIdentity());
+
+        assertThat(gzip.getHeaders().getETag()).isEqualTo(response.getGzipEtag());
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getBody()).isEqualTo(response.getGzip());
+
+        assertThat(response.getGzipEtag())
+            .isNotEqualTo(response.getEtag())
+            .isEqualTo(response.getEtag().substring(0, response.getEtag().length() - 1) + "-gz\"");
+    }
+
+    @Test
+    void revalidatesWithEitherTag() {
+        for (String tag : new String[] {response.getEtag(), response.getGzipEtag()}) {
+            for (String acceptEncoding : new String[] {null, "gzip"}) {
+                ResponseEntity<byte[]> notModified = response.toResponse(tag, acceptEncoding);
+                assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                assertThat(notModified.getHeaders().getETag())
+                    .isEqualTo(acceptEncoding == null ? response.getEtag() : response.getGzipEtag());
+            }
+        }
+        assertThat(response.toResponse("W/" + response.getGzipEtag(), "gzip").getStatusCode())
+            .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.toResponse("\"other\", " + response.getEtag(), null).getStatusCode())
+            .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.toResponse("\"other\"", "gzip").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.decorator.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void journalsEveryOrderAppendedBeforeClosing() throws Exception {
+        OrderJournal journal = new OrderJournal(true, directory.toString(), 1 << 16, 8, 1);
+        for (int i = 0; i < 1000; i++) {
+            journal.append("coffee", new int[] {i % 5, 1}, 200 + i, 0);
+        }
+        journal.destroy();
+
+        assertThat(journal.getLostCount()).isZero();
+        assertThat(new JournalReader(directory).read(record -> { })).isEqualTo(1000);
+    }
+
+    @Test
+    void countsOrdersAppendedWhileClosingAsJournaledOrLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path roundDirectory = directory.resolve("round-" + round);
+            // A small ring, so producers also wait for the writer while it stops
+            OrderJournal journal = new OrderJournal(true, roundDirectory.toString(), 1 << 16, 4, 1);
+            AtomicBoolean stop = new AtomicBoolean();
+            LongAdder appended = new LongAdder();
+            CountDownLatch started = new CountDownLatch(4);
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                producers[p] = new Thread(() -> {
+                    started.countDown();
+                    while (!stop.get()) {
+                        journal.append("burger", new int[] {2}, 575, 0);
+                        appended.increment();
+                    }
+                });
+                producers[p].start();
+            }
+            started.await();
+            Thread.sleep(5);
+            journal.destroy();
+            stop.set(true);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            long journaled = new JournalReader(roundDirectory).read(record -> { });
+            assertThat(journaled + journal.getLostCount()).as("round %d", round).isEqualTo(appended.sum());
+        }
+    }
+
+    @Test
+    void countsOrdersInTheRingAsLostWhenASegmentFailsToWrite() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path roundDirectory = directory.resolve("round-" + round);
+            // Segments of a few records, so the writer soon needs a new one
+            OrderJournal journal = new OrderJournal(true, roundDirectory.toString(), 256, 4, 1);
+            LongAdder appended = new LongAdder();
+            for (int i = 0; i < 20; i++) {
+                journal.append("coffee", new int[] {i % 5, 1}, 200 + i, 0);
+                appended.increment();
+            }
+            // The open segment stays mapped, but the next one can't be created
+            Path moved = directory.resolve("moved-" + round);
+            Files.move(roundDirectory, moved);
+
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                producers[p] = new Thread(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        journal.append("burger", new int[] {2}, 575, 0);
+                        appended.increment();
+                    }
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            journal.destroy();
+
+            long journaled = new JournalReader(moved).read(record -> { });
+            assertThat(journal.getLostCount()).as("round %d", round).isPositive();
+            assertThat(journaled + journal.getLostCount()).as("round %d", round).isEqualTo(appended.sum());
+        }
+    }
+}
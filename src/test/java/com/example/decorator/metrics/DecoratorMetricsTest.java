@@ -0,0 +1,95 @@
+package com.example.decorator.metrics;
+
+import com.example.decorator.cache.ChainInterner;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.coffee.Coffee;
+import com.example.decorator.coffee.CompiledCoffee;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.text.PlainText;
+import com.example.decorator.text.StreamingText;
+import com.example.decorator.text.Text;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecoratorMetricsTest {
+    private final DecoratorRegistries registries = new DecoratorRegistries();
+
+    @Test
+    void recordsEvaluationTimePerProduct() {
+        DecoratorMetrics metrics = new DecoratorMetrics(registries, true, 1);
+        int sugar = registries.coffee().idOf("sugar");
+        metrics.recordEvaluation(RecipeKey.of("coffee", new int[] {sugar, sugar}), 3_000);
+        metrics.recordEvaluation(RecipeKey.of("coffee", new int[] {sugar}), 40_000);
+
+        StringBuilder out = new StringBuilder();
+        metrics.writeTo(out);
+        assertThat(out.toString())
+            .contains("# TYPE decorator_recipe_evaluation_seconds histogram\n")
+            .contains("decorator_recipe_evaluation_seconds_bucket{product=\"coffee\",le=\"2.5E-6\"} 0\n")
+            .contains("decorator_recipe_evaluation_seconds_bucket{product=\"coffee\",le=\"5.0E-6\"} 1\n")
+            .contains("decorator_recipe_evaluation_seconds_bucket{product=\"coffee\",le=\"5.0E-5\"} 2\n")
+            .contains("decorator_recipe_evaluation_seconds_bucket{product=\"coffee\",le=\"+Inf\"} 2\n")
+            .contains("decorator_recipe_evaluation_seconds_sum{product=\"coffee\"} 4.3E-5\n")
+            .contains("decorator_recipe_evaluation_seconds_count{product=\"coffee\"} 2\n")
+            .contains("decorator_recipe_evaluation_seconds_count{product=\"text\"} 0\n")
+            .contains("decorator_invocations_total{product=\"coffee\",decorator=\"sugar\"} 3\n");
+    }
+
+    @Test
+    void recordsNothingWhenDisabled() {
+        DecoratorMetrics metrics = new DecoratorMetrics(registries, false, 1);
+        metrics.recordEvaluation(RecipeKey.of("coffee", new int[] {registries.coffee().idOf("milk")}), 3_000);
+
+        StringBuilder out = new StringBuilder();
+        metrics.writeTo(out);
+        assertThat(out.toString())
+            .contains("decorator_recipe_evaluation_seconds_count{product=\"coffee\"} 0\n")
+            .contains("decorator_invocations_total{product=\"coffee\",decorator=\"milk\"} 0\n");
+        assertThat(metrics.textStageTimer()).isNull();
+        assertThat(metrics.chainStageTimer("coffee")).isNull();
+    }
+
+    @Test
+    void timesEachTextStageByDecoratorClass() {
+        DecoratorMetrics metrics = new DecoratorMetrics(registries, true, 1);
+        DecoratorRegistry<Text> text = registries.text();
+        int[] ids = {text.idOf("encrypt"), text.idOf("bold"), text.idOf("lowercase"), text.idOf("italic"),
+            text.idOf("underline")};
+        StreamingText chain = StreamingText.of(text.wrapAll(ids, new PlainText(""), 3));
+        assertThat(chain.apply("Hello", metrics.textStageTimer())).isEqualTo(chain.apply("Hello"));
+
+        StringBuilder out = new StringBuilder();
+        metrics.writeTo(out);
+        // The char and tag layers each side of the lowercase layer run fused
+        assertThat(out.toString())
+            .contains("# TYPE decorator_evaluation_seconds histogram\n")
+            .contains("decorator_evaluation_seconds_count{product=\"text\",decorators=\"BoldDecorator+EncryptDecorator\"} 1\n")
+            .contains("decorator_evaluation_seconds_count{product=\"text\",decorators=\"LowerCaseDecorator\"} 1\n")
+            .contains("decorator_evaluation_seconds_count{product=\"text\",decorators=\"ItalicDecorator+UnderlineDecorator\"} 1\n");
+    }
+
+    @Test
+    void timesTheLayersEachChainCompileWalks() {
+        DecoratorMetrics metrics = new DecoratorMetrics(registries, true, 1);
+        DecoratorRegistry<Coffee> coffee = registries.coffee();
+        int sugar = coffee.idOf("sugar");
+        int milk = coffee.idOf("milk");
+        ChainInterner<Coffee, CompiledCoffee> chains = new ChainInterner<>("coffee-chains", coffee, new SimpleCoffee(),
+            CompiledCoffee::compile, 100);
+        chains.compile(new int[] {sugar, sugar, milk}, 0, metrics.chainStageTimer("coffee"));
+        // Compiled already, so nothing to time
+        chains.compile(new int[] {sugar, sugar, milk}, 0, metrics.chainStageTimer("coffee"));
+        // Only the layer past the compiled prefix is walked
+        chains.compile(new int[] {sugar, sugar, milk, coffee.idOf("vanilla")}, 0, metrics.chainStageTimer("coffee"));
+
+        StringBuilder out = new StringBuilder();
+        metrics.writeTo(out);
+        assertThat(out.toString())
+            .contains("decorator_evaluation_seconds_count{product=\"coffee\",decorators=\"Milk+Sugar\"} 1\n")
+            .contains("decorator_evaluation_seconds_count{product=\"coffee\",decorators=\"Vanilla\"} 1\n")
+            .doesNotContain("decorators=\"Milk+Sugar+Vanilla\"");
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.decorator.money;
+
+import com.example.decorator.burger.SimpleBurger;
+import com.example.decorator.coffee.SimpleCoffee;
+import com.example.decorator.examples.ExampleCatalogs;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import com.example.decorator.text.PlainText;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyTest {
+    private final DecoratorRegistries registries = new DecoratorRegistries();
+
+    @Test
+    void formatsCatalogCostsLikeStringFormat() {
+        for (Map<String, Object> example : ExampleCatalogs.coffeeExamples()) {
+            long cents = registries.coffee().wrapAll(ids(registries.coffee(), example), new SimpleCoffee(), 0)
+                .getCostCents();
+            assertFormatsLikeCatalog(example, cents);
+        }
+        for (Map<String, Object> example : ExampleCatalogs.burgerExamples()) {
+            long cents = registries.burger().wrapAll(ids(registries.burger(), example), new SimpleBurger(), 0)
+                .getCostCents();
+            assertFormatsLikeCatalog(example, cents);
+        }
+        for (Map<String, Object> example : ExampleCatalogs.textExamples()) {
+            long cents = registries.text().wrapAll(ids(registries.text(), example), new PlainText(""), 0)
+                .getCostCents();
+            assertFormatsLikeCatalog(example, cents);
+        }
+    }
+
+    @Test
+    void catalogCostsDontDependOnTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            for (Map<String, Object> example : ExampleCatalogs.coffeeExamples()) {
+                assertThat((String) example.get("cost")).as(String.valueOf(example.get("name")))
+                    .matches("\\$\\d+\\.\\d\\d");
+            }
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void formatsRandomCentsLikeStringFormat() {
+        Random random = new Random(6);
+        for (int i = 0; i < 100_000; i++) {
+            // Small amounts, where rounding the double matters most, and large ones up to $10^10
+            long cents = i % 2 == 0 ? random.nextInt(200_001) - 100_000 : random.nextLong() % 1_000_000_000_000L;
+            assertThat(Money.format(cents)).as("%d cents", cents).isEqualTo(stringFormat(cents));
+        }
+    }
+
+    @Test
+    void formatsEdgeCases() {
+        assertThat(Money.format(0)).isEqualTo("$0.00");
+        assertThat(Money.format(5)).isEqualTo("$0.05");
+        assertThat(Money.format(-5)).isEqualTo(stringFormat(-5));
+        assertThat(Money.format(-100)).isEqualTo("$-1.00");
+        assertThat(Money.format(Long.MAX_VALUE)).isEqualTo("$92233720368547758.07");
+        assertThat(Money.format(Long.MIN_VALUE)).isEqualTo("$-92233720368547758.08");
+    }
+
+    private static void assertFormatsLikeCatalog(Map<String, Object> example, long cents) {
+        assertThat(Money.format(cents)).as(String.valueOf(example.get("name")))
+            .isEqualTo(example.get("cost"))
+            .isEqualTo(stringFormat(cents));
+    }
+
+    private static String stringFormat(long cents) {
+        return String.format(Locale.ROOT, "$%.2f", cents / 100.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int[] ids(DecoratorRegistry<?> registry, Map<String, Object> example) {
+        List<String> names = (List<String>) example.get("decorators");
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registry.idOf(names.get(i));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.decorator.service;
+
+import com.example.decorator.registry.DecoratorRegistries;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BulkTextServiceTest {
+    @Autowired
+    private RecipeService recipes;
+
+    @Autowired
+    private DecoratorRegistries registries;
+
+    @Test
+    void cutsAtEverySplitPoint() throws Exception {
+        BulkTextService bulk = new BulkTextService(recipes, 1, 1);
+        try {
+            // A one-char window never holds a split point after its start
+            assertThat(bulk.cuts("abcdef")).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        } finally {
+            bulk.destroy();
+        }
+    }
+
+    @Test
+    void stretchWithoutSplitPointStaysInTheChunkBeforeIt() throws Exception {
+        BulkTextService bulk = new BulkTextService(recipes, 1, 4);
+        try {
+            // Lone low surrogates can't be split before, so the first chunk runs past them
+            String text = repeat('\uDC00', 8) + "abcdefgh";
+            assertThat(bulk.cuts(text)).containsExactly(0, 11, 14, 16);
+            assertThat(bulk.cuts(repeat('\uDC00', 16))).containsExactly(0, 16);
+        } finally {
+            bulk.destroy();
+        }
+    }
+
+    @Test
+    void chunkedTextMatchesTheWholeText() throws Exception {
+        int[] ids = {registries.text().idOf("bold"), registries.text().idOf("encrypt"),
+            registries.text().idOf("uppercase")};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("Stra\u00DFe \uD83D\uDE00 e\u0301 ").append(i).append(i % 7 == 0 ? "\uDC00\uDC00" : "");
+        }
+        String expected = recipes.streamingText(ids, 5, Locale.ROOT).apply(text.toString());
+
+        for (int chunkChars : new int[] {1, 2, 3, 7, 64, 1000}) {
+            BulkTextService bulk = new BulkTextService(recipes, 2, chunkChars);
+            try {
+                assertThat(bulk.format(text.toString(), ids, 5, Locale.ROOT).getContents())
+                    .as("chunks of %d", chunkChars)
+                    .containsExactly(expected);
+            } finally {
+                bulk.destroy();
+            }
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.decorator.service;
+
+import com.example.decorator.analytics.OrderAnalytics;
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.RecipeResponse;
+import com.example.decorator.journal.OrderJournal;
+import com.example.decorator.metrics.DecoratorMetrics;
+import com.example.decorator.pricing.Pricing;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.registry.DecoratorRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Random edits to sessions, each checked against evaluating the whole order from scratch.
+ * Few distinct decorators, so orders are full of repeated runs that edits split, trim and
+ * merge again, and the prices change now and then.
+ */
+class OrderSessionsTest {
+    private final DecoratorRegistries registries = new DecoratorRegistries();
+
+    @TempDir
+    Path directory;
+
+    private Path priceFile;
+    private int priceVersion;
+    private Pricing pricing;
+    private RecipeService recipes;
+    private OrderSessions sessions;
+    private RecipeService reference;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        priceFile = directory.resolve("prices.properties");
+        writePrices(new Random(0));
+        pricing = new Pricing(registries, priceFile.toString(), 0);
+        // A chain table nothing is evicted from, so each session's chain can be looked up
+        recipes = recipeService(1 << 20);
+        sessions = new OrderSessions(recipes, registries, 3600, 100, 10_000);
+        // Nothing cached or interned: every order is built and priced from scratch
+        reference = recipeService(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessions.destroy();
+        pricing.destroy();
+    }
+
+    @Test
+    void coffeeEditsMatchTheWholeOrder() throws IOException {
+        randomEdits(RecipeService.COFFEE, registries.coffee(), new String[] {"milk", "sugar", "vanilla"}, 1);
+    }
+
+    @Test
+    void burgerEditsMatchTheWholeOrder() throws IOException {
+        randomEdits(RecipeService.BURGER, registries.burger(), new String[] {"cheese", "bacon", "pickles"}, 2);
+    }
+
+    private void randomEdits(String product, DecoratorRegistry<?> registry, String[] names, long seed)
+            throws IOException {
+        Random random = new Random(seed);
+        for (int round = 0; round < 20; round++) {
+            List<Integer> ids = new ArrayList<>();
+            int initial = random.nextInt(10);
+            for (int i = 0; i < initial; i++) {
+                ids.add(registry.idOf(names[random.nextInt(names.length)]));
+            }
+            OrderSessions.Snapshot snapshot = sessions.open(product, toArray(ids));
+            String session = snapshot.getId();
+            assertMatches(snapshot, ids, "open");
+
+            for (int edit = 0; edit < 300; edit++) {
+                if (random.nextInt(40) == 0) {
+                    writePrices(random);
+                    assertThat(pricing.reload()).isTrue();
+                    assertMatches(sessions.get(session), ids, "repriced");
+                }
+
+                String description;
+                int choice = random.nextInt(ids.size() < 4 ? 2 : ids.size() > 80 ? 4 : 5);
+                if (choice < 2) {
+                    String name = names[random.nextInt(names.length)];
+                    Integer position = random.nextBoolean() ? null : random.nextInt(ids.size() + 1);
+                    ids.add(position == null ? ids.size() : position, registry.idOf(name));
+                    snapshot = sessions.add(session, position, name);
+                    description = "add " + name + " at " + position;
+                } else if (choice < 4) {
+                    int from = random.nextInt(ids.size());
+                    int to = choice == 2 ? random.nextInt(ids.size()) : withinRun(ids, from, random);
+                    ids.add(to, ids.remove(from));
+                    snapshot = sessions.move(session, from, to);
+                    description = "move " + from + " to " + to;
+                } else {
+                    int position = random.nextInt(ids.size());
+                    ids.remove(position);
+                    snapshot = sessions.remove(session, position);
+                    description = "remove " + position;
+                }
+                assertMatches(snapshot, ids, "round " + round + ", edit " + edit + ": " + description);
+            }
+            assertMatches(sessions.checkOut(session), ids, "check out");
+        }
+    }
+
+    /**
+     * A position in the same run of equal decorators as {@code from}, or next to it.
+     */
+    private static int withinRun(List<Integer> ids, int from, Random random) {
+        int start = from;
+        while (start > 0 && ids.get(start - 1).equals(ids.get(from))) {
+            start--;
+        }
+        int end = from + 1;
+        while (end < ids.size() && ids.get(end).equals(ids.get(from))) {
+            end++;
+        }
+        int lowest = Math.max(0, start - 1);
+        int highest = Math.min(ids.size() - 1, end);
+        return lowest + random.nextInt(highest - lowest + 1);
+    }
+
+    private void assertMatches(OrderSessions.Snapshot snapshot, List<Integer> ids, String step) {
+        int[] expectedIds = toArray(ids);
+        RecipeResult expected = reference.evaluate(snapshot.getProduct().equals(RecipeService.COFFEE)
+            ? reference.coffeeKey(expectedIds) : reference.burgerKey(expectedIds));
+
+        assertThat(snapshot.getDecoratorIds()).as(step).containsExactly(expectedIds);
+        assertThat(snapshot.getCostCents()).as(step).isEqualTo(expected.getCostCents());
+        assertThat(snapshot.getPriceVersion()).as(step).isEqualTo(priceVersion);
+        RecipeResponse response = snapshot.getResponse();
+        assertThat(response.getCost()).as(step).isEqualTo(expected.getResponse().getCost());
+        assertThat(response.getPriceVersion()).as(step).isEqualTo(priceVersion);
+        // The session's chain is the interned one, with each run of a decorator as one
+        // layer, so its description is the very string the interner compiled
+        if (response instanceof CoffeeResponse) {
+            assertThat(((CoffeeResponse) response).getDescription()).as(step)
+                .isEqualTo(((CoffeeResponse) expected.getResponse()).getDescription())
+                .isSameAs(recipes.getCoffeeChains().compile(expectedIds, 0).getDescription());
+        } else {
+            BurgerResponse burger = (BurgerResponse) response;
+            BurgerResponse expectedBurger = (BurgerResponse) expected.getResponse();
+            assertThat(burger.getDescription()).as(step)
+                .isEqualTo(expectedBurger.getDescription())
+                .isSameAs(recipes.getBurgerChains().compile(expectedIds, 0).getDescription());
+            assertThat(burger.getSentence()).as(step).isEqualTo(expectedBurger.getSentence());
+        }
+    }
+
+    /**
+     * Writes a new version of the price file with random prices for the base products
+     * and some of the decorators.
+     */
+    private void writePrices(Random random) throws IOException {
+        priceVersion++;
+        StringBuilder prices = new StringBuilder("version=" + priceVersion + "\n");
+        for (DecoratorRegistry<?> registry : new DecoratorRegistry<?>[] {registries.coffee(), registries.burger()}) {
+            prices.append(registry.getProduct()).append('=').append(dollars(random)).append('\n');
+            for (int id = 0; id <= registry.getMaxId(); id++) {
+                if (registry.isRegistered(id) && random.nextBoolean()) {
+                    prices.append(registry.getProduct()).append('.').append(registry.nameOf(id))
+                        .append('=').append(dollars(random)).append('\n');
+                }
+            }
+        }
+        Files.write(priceFile, prices.toString().getBytes(StandardCharsets.UTF_8));
+        // Pricing skips a file whose size and time haven't changed
+        Files.setLastModifiedTime(priceFile, FileTime.fromMillis(priceVersion * 1000L));
+    }
+
+    private static String dollars(Random random) {
+        int cents = random.nextInt(500);
+        return cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+    }
+
+    private RecipeService recipeService(int maxEntries) throws IOException {
+        OrderJournal journal = new OrderJournal(false, "", 0, 0, 0);
+        return new RecipeService(registries, new DecoratorMetrics(registries, false, 0), pricing, journal,
+            new OrderAnalytics(registries, pricing, journal, false, 60, 1, 1, 1, false),
+            maxEntries, maxEntries, 16 << 20, maxEntries);
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+}
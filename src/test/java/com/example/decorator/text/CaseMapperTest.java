@@ -0,0 +1,153 @@
+package com.example.decorator.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CaseMapper against the JDK's case mapping, over random mixes of ASCII, the rest of
+ * Latin-1 and chars with rules of their own, shifted through every alignment of the
+ * word-at-a-time path.
+ */
+class CaseMapperTest {
+    private static final Locale[] LOCALES = {
+        Locale.ROOT, new Locale("tr"), new Locale("az"), new Locale("lt"), new Locale("el")};
+
+    private static final String[] PIECES = {
+        // ASCII, including the letters around the case bit and the chars next to a-z and A-Z
+        "a", "z", "A", "Z", "i", "I", "@", "[", "`", "{", " ", "'", ".", "7", "Hello", "WORLD",
+        // Latin-1: sharp s, y with diaeresis and the micro sign upper-case out of it
+        "\u00DF", "\u00FF", "\u00B5", "\u00E9", "\u00C0", "\u00F7", "\u00AA",
+        // Dotted and dotless i, and i with a combining dot above and grave
+        "\u0130", "\u0131", "i\u0307", "I\u0307\u0300", "\u0307", "\u0300",
+        // Greek, with final and non-final sigma
+        "\u03A3", "\u03C3", "\u03C2", "\u039F\u0394\u039F\u03A3", "\u0391\u03A3", "\u0390",
+        // A digraph with its own title case, a ligature and an apostrophe
+        "\u01C6", "\u01C4", "\uFB00", "\u0149", "\u2019",
+        // Deseret, outside the BMP
+        "\uD801\uDC00", "\uD801\uDC28",
+        // CJK, which has no case
+        "\u4E2D"};
+
+    @Test
+    void mapsLikeTheJdkAtEveryAlignment() {
+        Random random = new Random(22);
+        for (Locale locale : LOCALES) {
+            CaseMapper mapper = CaseMapper.forLocale(locale);
+            for (int n = 0; n < 2000; n++) {
+                String text = randomText(random);
+                for (int shift = 0; shift < 8; shift++) {
+                    String s = "abcdefg".substring(0, shift) + text;
+                    assertThat(mapper.toUpperCase(s)).as("%s upper of %s", locale, escape(s))
+                        .isEqualTo(s.toUpperCase(locale));
+                    assertThat(mapper.toLowerCase(s)).as("%s lower of %s", locale, escape(s))
+                        .isEqualTo(s.toLowerCase(locale));
+                    assertThat(mapper.toTitleCase(s)).as("%s title of %s", locale, escape(s))
+                        .isEqualTo(titleCase(s, locale));
+                }
+            }
+        }
+    }
+
+    @Test
+    void mapsLongAsciiRunsAroundOtherChars() {
+        for (Locale locale : LOCALES) {
+            CaseMapper mapper = CaseMapper.forLocale(locale);
+            for (String other : new String[] {"\u00DF", "\u0130", "\u03A3", "\uD801\uDC00", "i\u0307"}) {
+                for (int at = 0; at < 16; at++) {
+                    String s = "The quick brown fox".substring(0, at) + other + " jumps over the LAZY dog";
+                    assertThat(mapper.toUpperCase(s)).as("%s upper of %s", locale, escape(s))
+                        .isEqualTo(s.toUpperCase(locale));
+                    assertThat(mapper.toLowerCase(s)).as("%s lower of %s", locale, escape(s))
+                        .isEqualTo(s.toLowerCase(locale));
+                }
+            }
+        }
+    }
+
+    @Test
+    void titleCasesWords() {
+        CaseMapper root = CaseMapper.forLocale(Locale.ROOT);
+        assertThat(root.toTitleCase("don't STOP me now")).isEqualTo("Don't Stop Me Now");
+        assertThat(root.toTitleCase("\u00DFtra\u00DFe")).isEqualTo("Sstra\u00DFe");
+        assertThat(root.toTitleCase("\u01C6ungla")).isEqualTo("\u01C5ungla");
+        assertThat(CaseMapper.forLocale(new Locale("tr")).toTitleCase("istanbul")).isEqualTo("\u0130stanbul");
+        // The last letter of a Greek word lower-cases to a final sigma
+        assertThat(CaseMapper.forLocale(new Locale("el")).toTitleCase("\u0391\u03A3 \u039F\u0394\u039F\u03A3"))
+            .isEqualTo("\u0391\u03C2 \u039F\u03B4\u03BF\u03C2");
+    }
+
+    /**
+     * Title case by its definition in {@link CaseMapper#toTitleCase}, a word at a time,
+     * with each word lower-cased whole so a letter's case can depend on the ones around it.
+     */
+    private static String titleCase(String s, Locale locale) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < s.length()) {
+            int c = s.codePointAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                out.appendCodePoint(c);
+                i += Character.charCount(c);
+                continue;
+            }
+
+            int firstEnd = i + Character.charCount(c);
+            while (firstEnd < s.length() && isMark(s.codePointAt(firstEnd))) {
+                firstEnd += Character.charCount(s.codePointAt(firstEnd));
+            }
+            int end = firstEnd;
+            while (end < s.length()) {
+                int next = s.codePointAt(end);
+                boolean apostrophe = (next == '\'' || next == '\u2019') && end + 1 < s.length()
+                    && Character.isLetterOrDigit(s.codePointAt(end + 1));
+                if (!Character.isLetterOrDigit(next) && !isMark(next) && !apostrophe) {
+                    break;
+                }
+                end += Character.charCount(next);
+            }
+
+            String word = s.substring(i, end);
+            String first = s.substring(i, firstEnd);
+            String rest = word.toLowerCase(locale).substring(first.toLowerCase(locale).length());
+            if (Character.toTitleCase(c) != Character.toUpperCase(c)) {
+                out.appendCodePoint(Character.toTitleCase(c))
+                    .append(word.toLowerCase(locale).substring(Character.charCount(c)));
+            } else {
+                String upper = first.toUpperCase(locale);
+                int head = Character.charCount(upper.codePointAt(0));
+                out.append(upper, 0, head).append(upper.substring(head).toLowerCase(locale)).append(rest);
+            }
+            i = end;
+        }
+        return out.toString();
+    }
+
+    private static boolean isMark(int c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+            || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int pieces = random.nextInt(12);
+        for (int i = 0; i < pieces; i++) {
+            // Mostly ASCII, so there are whole words for the fast path to take
+            text.append(random.nextInt(3) == 0 ? PIECES[random.nextInt(PIECES.length)]
+                : PIECES[random.nextInt(16)]);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder out = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            out.append(c < 128 ? String.valueOf(c) : String.format("\\u%04X", (int) c));
+        }
+        return out.toString();
+    }
+}
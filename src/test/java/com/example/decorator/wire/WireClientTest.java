@@ -0,0 +1,238 @@
+package com.example.decorator.wire;
+
+import com.example.decorator.api.BurgerResponse;
+import com.example.decorator.api.CoffeeResponse;
+import com.example.decorator.api.TextResponse;
+import com.example.decorator.cache.RecipeKey;
+import com.example.decorator.registry.DecoratorRegistries;
+import com.example.decorator.service.BatchService;
+import com.example.decorator.service.RecipeResult;
+import com.example.decorator.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Orders sent with a {@link WireClient} and served by {@link BinaryOrders} come back as
+ * the same results as evaluating them directly, however the descriptions travel: as ids
+ * the client has, as new ids, or as text once the table is full.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+class WireClientTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DecoratorRegistries registries;
+
+    @Autowired
+    private RecipeService recipes;
+
+    @Autowired
+    private BatchService batches;
+
+    // What each text order asks for, as WireOrder keeps it to itself
+    private final Map<WireOrder, RecipeKey> textKeys = new IdentityHashMap<>();
+
+    @Test
+    void sendsOrdersOverHttp() throws IOException {
+        WireClient client = new WireClient(new URL("http://localhost:" + port + "/api/wire"));
+        int milk = client.fetchDecoratorIds().get("coffee").get("milk");
+        assertThat(milk).isEqualTo(coffeeId("milk"));
+
+        List<WireOrder> orders = Arrays.asList(WireOrder.coffee(milk, milk), burgerOrder("cheese", "bacon"),
+            text("Hello", -3, Locale.ROOT, textId("encrypt"), textId("bold")));
+        assertMatches(client.send(orders), orders);
+        assertMatches(client.send(orders), orders);
+    }
+
+    @Test
+    void reusesDescriptionIdsAcrossRequests() throws IOException {
+        BinaryOrders server = server(100, 1024);
+        WireClient client = new WireClient(new URL("http://localhost/api/wire"));
+        List<WireOrder> orders = Arrays.asList(coffeeOrder("milk", "sugar"), burgerOrder("cheese", "bacon", "bacon"));
+
+        byte[] first = server.handle(client.encodeRequest(orders));
+        assertMatches(client.decodeResponse(first), orders);
+        assertThat(server.describe()).containsEntry("descriptions", 3);
+        assertThat(new String(first, StandardCharsets.ISO_8859_1)).contains(description(orders.get(0)));
+
+        // Every description is one the client has, so only ids come back
+        byte[] second = server.handle(client.encodeRequest(orders));
+        assertMatches(client.decodeResponse(second), orders);
+        assertThat(server.describe()).containsEntry("descriptions", 3);
+        assertThat(new String(second, StandardCharsets.ISO_8859_1)).doesNotContain(description(orders.get(0)));
+        assertThat(second.length).isLessThan(first.length);
+
+        // A new description takes the next id, and is sent along with the known ones' ids
+        List<WireOrder> more = Arrays.asList(coffeeOrder("milk", "sugar"), coffeeOrder("vanilla"));
+        assertMatches(client.decodeResponse(server.handle(client.encodeRequest(more))), more);
+        assertThat(server.describe()).containsEntry("descriptions", 4);
+    }
+
+    @Test
+    void startsOverWhenTheServerDoes() throws IOException {
+        WireClient client = new WireClient(new URL("http://localhost/api/wire"));
+        List<WireOrder> orders = Arrays.asList(coffeeOrder("milk"), burgerOrder("pickles"), coffeeOrder("caramel"));
+        BinaryOrders before = server(100, 1024);
+        assertMatches(client.decodeResponse(before.handle(client.encodeRequest(orders))), orders);
+
+        // A restarted server has a new table, whose ids mean something else
+        BinaryOrders after = server(100, 1024);
+        after.handle(client.encodeRequest(Collections.singletonList(coffeeOrder("whipped_cream"))));
+        List<WireOrder> reversed = new ArrayList<>(orders);
+        Collections.reverse(reversed);
+        assertMatches(client.decodeResponse(after.handle(client.encodeRequest(reversed))), reversed);
+        assertMatches(client.decodeResponse(after.handle(client.encodeRequest(orders))), orders);
+    }
+
+    @Test
+    void sendsTextOnceTheTableIsFull() throws IOException {
+        WireClient client = new WireClient(new URL("http://localhost/api/wire"));
+        // Room for two descriptions of up to 20 bytes
+        BinaryOrders server = server(2, 20);
+        List<WireOrder> orders = Arrays.asList(coffeeOrder("milk"), coffeeOrder("sugar"), coffeeOrder("vanilla"),
+            coffeeOrder("milk", "sugar", "vanilla", "caramel"), burgerOrder("cheese"));
+        for (int i = 0; i < 3; i++) {
+            assertMatches(client.decodeResponse(server.handle(client.encodeRequest(orders))), orders);
+        }
+        assertThat(server.describe())
+            .containsEntry("descriptions", 2)
+            .containsEntry("max_descriptions", 2)
+            .containsEntry("max_description_bytes", 20);
+    }
+
+    @Test
+    void sendsTextOrdersWithAnyShift() throws IOException {
+        WireClient client = new WireClient(new URL("http://localhost/api/wire"));
+        BinaryOrders server = server(100, 1024);
+        List<WireOrder> orders = new ArrayList<>();
+        for (int shift : new int[] {-1, -3, -26, -27, -1000, Integer.MIN_VALUE, 0, 5, Integer.MAX_VALUE}) {
+            orders.add(text("Hello, World", shift, Locale.ROOT, textId("encrypt"), textId("uppercase")));
+        }
+        orders.add(text("istanbul", -2, new Locale("tr"), textId("uppercase"), textId("encrypt")));
+        assertMatches(client.decodeResponse(server.handle(client.encodeRequest(orders))), orders);
+    }
+
+    @Test
+    void rejectsMalformedRequests() throws Exception {
+        WireClient client = new WireClient(new URL("http://localhost:" + port + "/api/wire"));
+        byte[] request = client.encodeRequest(Arrays.asList(coffeeOrder("milk"), burgerOrder("cheese")));
+        for (int length = 0; length < request.length; length++) {
+            assertRejected(Arrays.copyOf(request, length));
+        }
+        byte[] longer = Arrays.copyOf(request, request.length + 1);
+        assertRejected(longer);
+
+        assertRejected(client.encodeRequest(Collections.singletonList(WireOrder.coffee(999))));
+        assertRejected(client.encodeRequest(Collections.singletonList(WireOrder.burger(coffeeId("milk"), -1))));
+        int[] tooLong = new int[1001];
+        Arrays.fill(tooLong, coffeeId("milk"));
+        assertRejected(client.encodeRequest(Collections.singletonList(WireOrder.coffee(tooLong))));
+        assertRejected(client.encodeRequest(Collections.nCopies(1001, coffeeOrder("milk"))));
+
+        assertThatThrownBy(() -> client.send(Collections.singletonList(WireOrder.coffee(999))))
+            .isInstanceOf(IOException.class)
+            .hasMessageStartingWith("Server answered 400: No coffee decorator has id 999");
+    }
+
+    private void assertRejected(byte[] request) throws Exception {
+        mockMvc.perform(post("/api/wire").contentType(BinaryOrders.CONTENT_TYPE).content(request))
+            .andExpect(status().isBadRequest());
+    }
+
+    private BinaryOrders server(int maxDescriptions, int maxDescriptionBytes) {
+        return new BinaryOrders(registries, recipes, batches, maxDescriptions, maxDescriptionBytes, 1000, 1000);
+    }
+
+    private void assertMatches(List<WireResult> results, List<WireOrder> orders) {
+        assertThat(results).hasSameSizeAs(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            WireOrder order = orders.get(i);
+            WireResult result = results.get(i);
+            RecipeResult expected = evaluate(order);
+            assertThat(result.getProduct()).as("order %d", i).isEqualTo(order.getProduct());
+            assertThat(result.getCostCents()).as("order %d", i).isEqualTo(expected.getCostCents());
+            assertThat(result.getPriceVersion()).as("order %d", i).isEqualTo(expected.getPriceVersion());
+            if (expected.getResponse() instanceof CoffeeResponse) {
+                assertThat(result.getDescription()).as("order %d", i)
+                    .isEqualTo(((CoffeeResponse) expected.getResponse()).getDescription());
+            } else if (expected.getResponse() instanceof BurgerResponse) {
+                BurgerResponse burger = (BurgerResponse) expected.getResponse();
+                assertThat(result.getDescription()).as("order %d", i).isEqualTo(burger.getDescription());
+                assertThat(result.getSentence()).as("order %d", i).isEqualTo(burger.getSentence());
+            } else {
+                assertThat(result.getDescription()).as("order %d", i)
+                    .isEqualTo(((TextResponse) expected.getResponse()).getContent());
+            }
+        }
+    }
+
+    private RecipeResult evaluate(WireOrder order) {
+        switch (order.getProduct()) {
+            case RecipeService.COFFEE:
+                return recipes.evaluate(recipes.coffeeKey(order.getDecoratorIds()));
+            case RecipeService.BURGER:
+                return recipes.evaluate(recipes.burgerKey(order.getDecoratorIds()));
+            default:
+                return recipes.evaluate(textKeys.get(order));
+        }
+    }
+
+    private String description(WireOrder order) {
+        return ((CoffeeResponse) evaluate(order).getResponse()).getDescription();
+    }
+
+    private WireOrder coffeeOrder(String... names) {
+        return WireOrder.coffee(ids(names, "coffee"));
+    }
+
+    private WireOrder burgerOrder(String... names) {
+        return WireOrder.burger(ids(names, "burger"));
+    }
+
+    private int coffeeId(String name) {
+        return registries.coffee().idOf(name);
+    }
+
+    private int textId(String name) {
+        return registries.text().idOf(name);
+    }
+
+    private WireOrder text(String content, int encryptShift, Locale locale, int... decoratorIds) {
+        WireOrder order = WireOrder.text(content, encryptShift, locale, decoratorIds);
+        textKeys.put(order, recipes.textKey(content, decoratorIds, encryptShift, locale));
+        return order;
+    }
+
+    private int[] ids(String[] names, String product) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registries.forProduct(product).idOf(names[i]);
+        }
+        return ids;
+    }
+}